@@ -0,0 +1,304 @@
+package petcare.app.domain.cache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.entity.EntityPersister;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+
+import jakarta.persistence.EntityManagerFactory;
+import petcare.app.domain.utils.ListenConnections;
+
+/**
+ * Escucha las invalidaciones de la caché de segundo nivel enviadas por el resto de aplicaciones e instancias y descarta
+ * de la caché local las entidades afectadas, sus colecciones y los resultados de consultas cacheados.<br/>
+ * Mantiene una conexión dedicada a la base de datos, fuera del pool ({@link ListenConnections}). Cada vez que se
+ * (re)establece se vacía la caché completa, puesto que las notificaciones enviadas mientras no existía conexión se han
+ * perdido.<br/>
+ * Una carga de esta instancia que leyó la fila antes de que se confirmara la modificación puede volver a guardar en la
+ * caché la versión anterior después de descartarla. Por ello, cada descarte se repite pasado un tiempo
+ * (petcare.cache.invalidation.second-eviction-delay), que debe superar la duración de las transacciones de lectura
+ */
+public class CacheInvalidationListener implements SmartLifecycle {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+  /** Tiempo máximo de espera de nuevas notificaciones, en milisegundos */
+  private static final int POLL_TIMEOUT_MILLIS = 1000;
+
+  /** Tiempo de espera antes de volver a conectar tras un error, en milisegundos */
+  private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+  /** Configuración del origen de datos, con la que se abre la conexión de escucha */
+  private DataSourceProperties dataSourceProperties;
+
+  /** Tiempo tras el que se repite cada descarte */
+  private Duration secondEvictionDelay;
+
+  /** Factoría de EntityManagers */
+  private EntityManagerFactory entityManagerFactory;
+
+  /** Emisor de las invalidaciones de esta instancia */
+  private CacheInvalidationNotifier notifier;
+
+  /** Caché de segundo nivel */
+  private Cache cache;
+
+  /** Metamodelo de las entidades */
+  private MappingMetamodel metamodel;
+
+  /** Roles de las colecciones cacheadas de cada entidad raíz */
+  private Map<String, List<String>> cachedCollections;
+
+  /** Hilo de escucha */
+  private Thread thread;
+
+  /** Planificador de los descartes repetidos */
+  private ScheduledExecutorService scheduler;
+
+  /** Indica si la escucha está activa */
+  private volatile boolean running;
+
+  /**
+   * Setter - DataSourceProperties. Inyección de dependencias
+   * 
+   * @param dataSourceProperties Configuración del origen de datos
+   */
+  @Autowired
+  public void setDataSourceProperties(DataSourceProperties dataSourceProperties) {
+    this.dataSourceProperties = dataSourceProperties;
+  }
+
+  /**
+   * Setter - Tiempo tras el que se repite cada descarte
+   * 
+   * @param secondEvictionDelay Tiempo de espera
+   */
+  @Value("${petcare.cache.invalidation.second-eviction-delay:2s}")
+  public void setSecondEvictionDelay(Duration secondEvictionDelay) {
+    this.secondEvictionDelay = secondEvictionDelay;
+  }
+
+  /**
+   * Setter - EntityManagerFactory. Inyección de dependencias
+   * 
+   * @param entityManagerFactory Factoría de EntityManagers
+   */
+  @Autowired
+  public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  /**
+   * Setter - CacheInvalidationNotifier. Inyección de dependencias
+   * 
+   * @param notifier Emisor de las invalidaciones de esta instancia
+   */
+  @Autowired
+  public void setNotifier(CacheInvalidationNotifier notifier) {
+    this.notifier = notifier;
+  }
+
+  @Override
+  public void start() {
+
+    SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+
+    cache = sessionFactory.getCache();
+    metamodel = sessionFactory.getMappingMetamodel();
+    cachedCollections = new HashMap<>();
+
+    metamodel.forEachCollectionDescriptor(collection -> {
+
+      if (collection.hasCache()) {
+        cachedCollections
+            .computeIfAbsent(collection.getOwnerEntityPersister().getRootEntityName(), name -> new ArrayList<>())
+            .add(collection.getRole());
+      }
+    });
+
+    running = true;
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+      Thread schedulerThread = new Thread(runnable, "hibernate-cache-second-eviction");
+      schedulerThread.setDaemon(true);
+      return schedulerThread;
+    });
+
+    thread = new Thread(this::listen, "hibernate-cache-invalidation-listener");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public void stop() {
+
+    running = false;
+    thread.interrupt();
+    scheduler.shutdownNow();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /** Bucle de escucha. Vuelve a conectar mientras la escucha siga activa */
+  private void listen() {
+
+    while (running) {
+
+      try (Connection connection = ListenConnections.open(dataSourceProperties, CacheInvalidationNotifier.CHANNEL)) {
+
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+        cache.evictAllRegions();
+        evictAgain(cache::evictAllRegions);
+
+        while (running) {
+
+          PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              handle(notification.getParameter());
+            }
+          }
+        }
+
+      } catch (SQLException e) {
+
+        LOGGER.error("Se ha perdido la escucha de invalidaciones de la caché: {}", e.getMessage());
+        pause();
+      }
+    }
+  }
+
+  /**
+   * Descarta de la caché la entidad de una notificación, salvo que haya sido enviada por esta misma instancia, cuya
+   * caché ya ha actualizado Hibernate
+   * 
+   * @param payload Contenido de la notificación: origen, entidad raíz e ID, separados por
+   *                {@link CacheInvalidationNotifier#SEPARATOR}
+   */
+  private void handle(String payload) {
+
+    try {
+      String[] fields = payload.split(CacheInvalidationNotifier.SEPARATOR, 3);
+
+      if (fields.length == 3 && !notifier.getInstanceId().equals(fields[0])) {
+
+        evict(fields[1], fields[2]);
+        evictAgain(() -> evict(fields[1], fields[2]));
+      }
+
+    } catch (RuntimeException e) {
+      LOGGER.error("Error al procesar una invalidación de la caché: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Descarta de la caché una entidad, sus colecciones y los resultados de consultas. Los resultados de consultas sólo
+   * guardan IDs, pero una entidad nueva o modificada puede cambiar el resultado de cualquier consulta
+   * 
+   * @param rootEntityName Nombre de la entidad raíz de la jerarquía
+   * @param id             ID de la entidad, como texto. Si está vacío, se descarta la región completa
+   */
+  private void evict(String rootEntityName, String id) {
+
+    EntityPersister persister = metamodel.findEntityDescriptor(rootEntityName);
+
+    if (persister == null) {
+      return;
+    }
+
+    Object entityId = id.isEmpty() ? null : toId(persister, id);
+    List<String> collections = cachedCollections.getOrDefault(rootEntityName, List.of());
+
+    if (entityId == null) {
+      cache.evictEntityData(rootEntityName);
+      collections.forEach(cache::evictCollectionData);
+
+    } else {
+      cache.evictEntityData(rootEntityName, entityId);
+      collections.forEach(role -> cache.evictCollectionData(role, entityId));
+    }
+
+    cache.evictDefaultQueryRegion();
+  }
+
+  /**
+   * Convierte el ID recibido al tipo del ID de la entidad
+   * 
+   * @param persister Persister de la entidad
+   * @param id        ID como texto
+   * @return Object - ID de la entidad, o null si su tipo no es numérico ni texto
+   */
+  private static Object toId(EntityPersister persister, String id) {
+
+    Class<?> idType = persister.getIdentifierType().getReturnedClass();
+
+    if (Long.class.equals(idType)) {
+      return Long.valueOf(id);
+
+    } else if (Integer.class.equals(idType)) {
+      return Integer.valueOf(id);
+
+    } else if (String.class.equals(idType)) {
+      return id;
+    }
+
+    return null;
+  }
+
+  /**
+   * Repite un descarte pasado el tiempo configurado, para descartar las versiones anteriores que hayan vuelto a la caché
+   * 
+   * @param eviction Descarte a repetir
+   */
+  private void evictAgain(Runnable eviction) {
+
+    scheduler.schedule(() -> {
+
+      try {
+        eviction.run();
+
+      } catch (RuntimeException e) {
+        LOGGER.error("Error al repetir una invalidación de la caché: {}", e.getMessage());
+      }
+    }, secondEvictionDelay.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /** Espera antes de volver a conectar */
+  private void pause() {
+
+    try {
+      Thread.sleep(RECONNECT_DELAY_MILLIS);
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+}
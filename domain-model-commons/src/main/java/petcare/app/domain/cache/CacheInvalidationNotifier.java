@@ -0,0 +1,192 @@
+package petcare.app.domain.cache;
+
+import java.sql.PreparedStatement;
+import java.util.UUID;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Notifica al resto de aplicaciones e instancias las modificaciones de las entidades almacenadas en la caché de segundo
+ * nivel, para que las descarten de sus propias cachés.<br/>
+ * Cada inserción, modificación o borrado de una entidad cacheada, o de una de sus colecciones, envía un NOTIFY de
+ * PostgreSQL dentro de la propia transacción, de forma que sólo se entrega si se confirma. Las notificaciones se
+ * procesan en cada instancia mediante {@link CacheInvalidationListener}
+ */
+public class CacheInvalidationNotifier {
+
+  /** Canal de PostgreSQL por el que se envían las invalidaciones */
+  public static final String CHANNEL = "hibernate_cache_invalidation";
+
+  /** Separador de los campos de cada notificación */
+  public static final String SEPARATOR = ";";
+
+  /** Identificador de esta instancia. Permite descartar las notificaciones enviadas por ella misma */
+  private final String instanceId = UUID.randomUUID().toString();
+
+  /** Factoría de EntityManagers */
+  private EntityManagerFactory entityManagerFactory;
+
+  /**
+   * Setter - EntityManagerFactory. Inyección de dependencias
+   * 
+   * @param entityManagerFactory Factoría de EntityManagers
+   */
+  @Autowired
+  public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  /**
+   * Getter - Identificador de esta instancia
+   * 
+   * @return String
+   */
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  /** Registra los listeners de Hibernate que envían las notificaciones */
+  @PostConstruct
+  public void registerListeners() {
+
+    EventListenerRegistry registry = entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+
+    Listener listener = new Listener();
+
+    registry.appendListeners(EventType.POST_INSERT, (PostInsertEventListener) listener);
+    registry.appendListeners(EventType.POST_UPDATE, (PostUpdateEventListener) listener);
+    registry.appendListeners(EventType.POST_DELETE, (PostDeleteEventListener) listener);
+    registry.appendListeners(EventType.POST_COLLECTION_RECREATE, (PostCollectionRecreateEventListener) listener);
+    registry.appendListeners(EventType.POST_COLLECTION_UPDATE, (PostCollectionUpdateEventListener) listener);
+    registry.appendListeners(EventType.POST_COLLECTION_REMOVE, (PostCollectionRemoveEventListener) listener);
+  }
+
+  /**
+   * Envía la invalidación de una entidad mediante NOTIFY, dentro de la transacción de la sesión
+   * 
+   * @param session        Sesión de Hibernate
+   * @param rootEntityName Nombre de la entidad raíz de la jerarquía
+   * @param id             ID de la entidad. Si es null, se invalida la región completa
+   */
+  private void notifyInstances(EventSource session, String rootEntityName, Object id) {
+
+    String payload = String.join(SEPARATOR, instanceId, rootEntityName, id == null ? "" : id.toString());
+
+    session.doWork(connection -> {
+
+      try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+
+        statement.setString(1, CHANNEL);
+        statement.setString(2, payload);
+        statement.execute();
+      }
+    });
+  }
+
+  /**
+   * Indica si las entidades de un persister se almacenan en la caché de segundo nivel
+   * 
+   * @param persister Persister de la entidad
+   * @return boolean
+   */
+  private static boolean isCached(EntityPersister persister) {
+    return persister != null && persister.canWriteToCache();
+  }
+
+  /** Listener de las modificaciones de entidades y colecciones */
+  private final class Listener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+      PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+      onEntityEvent(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+      onEntityEvent(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+      onEntityEvent(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+      onCollectionEvent(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+      onCollectionEvent(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+      onCollectionEvent(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+      return false;
+    }
+
+    /**
+     * Notifica la modificación de una entidad, si es cacheada
+     * 
+     * @param session   Sesión de Hibernate
+     * @param persister Persister de la entidad
+     * @param id        ID de la entidad
+     */
+    private void onEntityEvent(EventSource session, EntityPersister persister, Object id) {
+
+      if (isCached(persister)) {
+        notifyInstances(session, persister.getRootEntityName(), id);
+      }
+    }
+
+    /**
+     * Notifica la modificación de una colección, si su entidad propietaria es cacheada
+     * 
+     * @param event Evento de la colección
+     */
+    private void onCollectionEvent(AbstractCollectionEvent event) {
+
+      EntityPersister persister = event
+          .getSession()
+          .getFactory()
+          .getMappingMetamodel()
+          .findEntityDescriptor(event.getAffectedOwnerEntityName());
+
+      if (isCached(persister)) {
+        notifyInstances(event.getSession(), persister.getRootEntityName(), event.getAffectedOwnerIdOrNull());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,54 @@
+package petcare.app.domain.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuración de las regiones de la caché de segundo nivel de Hibernate. Cada región admite un número máximo de
+ * elementos y un tiempo máximo de permanencia. Los nombres de región contienen puntos, por lo que se indican entre
+ * corchetes, por ejemplo:
+ * 
+ * <pre>
+ * petcare.cache.regions[petcare.role].maximum-size=100
+ * petcare.cache.regions[petcare.role].expire-after-write=1h
+ * </pre>
+ * 
+ * Las regiones sin configuración propia utilizan la configuración por defecto
+ */
+@Data
+@ConfigurationProperties(prefix = "petcare.cache")
+public class CacheRegionProperties {
+
+  /** Configuración por defecto de las regiones */
+  private Region defaults = new Region();
+
+  /** Configuración de cada región, por nombre de región */
+  private Map<String, Region> regions = new HashMap<>();
+
+  /**
+   * Obtiene la configuración de una región
+   * 
+   * @param name Nombre de la región
+   * @return Region - Configuración propia de la región o, si no tiene, la configuración por defecto
+   */
+  public Region getRegion(String name) {
+    return regions.getOrDefault(name, defaults);
+  }
+
+  /** Configuración de una región */
+  @Data
+  public static class Region {
+
+    /** Número máximo de elementos de la región */
+    private long maximumSize = 10_000;
+
+    /** Tiempo máximo de permanencia de cada elemento desde su escritura */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+  }
+
+}
@@ -0,0 +1,23 @@
+package petcare.app.domain.cache;
+
+/** Clase de utilidad que contiene los nombres de las regiones de la caché de segundo nivel de Hibernate */
+public class CacheRegions {
+
+  /** Constructor privado para evitar inicialización */
+  private CacheRegions() {
+
+  }
+
+  /** Usuarios de la aplicación: clientes, veterinarios y entidades veterinarias */
+  public static final String APP_USER = "petcare.app-user";
+
+  /** Roles de cada usuario de la aplicación */
+  public static final String APP_USER_ROLES = "petcare.app-user.roles";
+
+  /** Roles */
+  public static final String ROLE = "petcare.role";
+
+  /** Mascotas */
+  public static final String PET = "petcare.pet";
+
+}
@@ -0,0 +1,101 @@
+package petcare.app.domain.cache;
+
+import java.util.OptionalLong;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Configuración de la caché de segundo nivel y de la caché de consultas de Hibernate, respaldadas por Caffeine a través
+ * de JCache.<br/>
+ * Las entidades que cambian con poca frecuencia (usuarios, roles y mascotas) se mantienen en memoria, y las consultas
+ * marcadas como cacheables (búsquedas por nombre de usuario y por nombre de rol) guardan los IDs de sus resultados.
+ * Hibernate invalida ambas cachés con las modificaciones realizadas en esta instancia, y
+ * {@link CacheInvalidationListener} con las realizadas desde cualquier otra aplicación o instancia.<br/>
+ * Debe importarse desde la clase principal de cada aplicación que utilice las entidades
+ */
+@Configuration
+@EnableConfigurationProperties(CacheRegionProperties.class)
+@Import({ CacheInvalidationNotifier.class, CacheInvalidationListener.class })
+public class SecondLevelCacheConfig {
+
+  /** Regiones de entidades y colecciones configurables */
+  private static final String[] REGIONS = { CacheRegions.APP_USER, CacheRegions.APP_USER_ROLES, CacheRegions.ROLE,
+      CacheRegions.PET, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME };
+
+  /**
+   * Gestor JCache de las regiones de la caché de segundo nivel. Crea cada región con su tamaño y tiempo de permanencia
+   * configurados. La región de marcas de tiempo de las tablas, con la que Hibernate descarta los resultados de
+   * consultas desactualizados, no admite expulsiones, por lo que nunca se limita
+   * 
+   * @param properties Configuración de las regiones
+   * @return CacheManager
+   */
+  @Bean(destroyMethod = "close")
+  public CacheManager hibernateCacheManager(CacheRegionProperties properties) {
+
+    CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+    CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+
+    for (String region : REGIONS) {
+
+      CacheRegionProperties.Region regionProperties = properties.getRegion(region);
+
+      createCache(cacheManager, region, new CaffeineConfiguration<>()
+          .setMaximumSize(OptionalLong.of(regionProperties.getMaximumSize()))
+          .setExpireAfterWrite(OptionalLong.of(regionProperties.getExpireAfterWrite().toNanos())));
+    }
+
+    createCache(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+        new CaffeineConfiguration<>());
+
+    return cacheManager;
+  }
+
+  /**
+   * Activa la caché de segundo nivel y la caché de consultas de Hibernate sobre el gestor JCache
+   * 
+   * @param hibernateCacheManager Gestor JCache de las regiones
+   * @return HibernatePropertiesCustomizer
+   */
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+
+    return hibernateProperties -> {
+      hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+      hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+      hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+      hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+      hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create-warn");
+    };
+  }
+
+  /**
+   * Crea una región, salvo que ya exista en el gestor
+   * 
+   * @param cacheManager  Gestor JCache
+   * @param name          Nombre de la región
+   * @param configuration Configuración de la región
+   */
+  private static void createCache(CacheManager cacheManager, String name,
+      CaffeineConfiguration<Object, Object> configuration) {
+
+    if (cacheManager.getCache(name) == null) {
+      cacheManager.createCache(name, configuration.setStatisticsEnabled(true));
+    }
+  }
+
+}
@@ -0,0 +1,46 @@
+package petcare.app.domain.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Dto con un cambio en la agenda de una entidad veterinaria, enviado a los suscriptores de la agenda */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgendaEventDto {
+
+  /** Tipo de cambio */
+  private Type type;
+
+  /** ID de la cita */
+  private Long appointmentId;
+
+  /** ID del veterinario que atenderá la cita. Será null si la cita se ha eliminado */
+  private Long vetId;
+
+  /** Fecha de la cita. Será null si la cita se ha eliminado */
+  private LocalDateTime appointmentDate;
+
+  /** ID del veterinario que tenía asignada la cita. Será null si la cita se ha creado */
+  private Long previousVetId;
+
+  /** Fecha que tenía la cita. Será null si la cita se ha creado */
+  private LocalDateTime previousAppointmentDate;
+
+  /** Tipo de cambio en la agenda */
+  public enum Type {
+
+    /** Cita creada */
+    CREATED,
+
+    /** Cita modificada */
+    UPDATED,
+
+    /** Cita eliminada */
+    DELETED
+  }
+
+}
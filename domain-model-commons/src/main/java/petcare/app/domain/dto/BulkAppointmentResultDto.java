@@ -0,0 +1,25 @@
+package petcare.app.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una de las citas de una creación masiva. Si la cita se ha almacenado, contiene la cita con su ID. En
+ * otro caso, contiene el motivo por el que no se ha podido almacenar
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAppointmentResultDto {
+
+  /** Posición de la cita en la petición */
+  private int index;
+
+  /** Cita almacenada en formato DTO. Será null si no se ha podido almacenar */
+  private AppointmentDto appointmentDto;
+
+  /** Motivo por el que no se ha podido almacenar la cita. Será null si se ha almacenado */
+  private String error;
+
+}
@@ -0,0 +1,26 @@
+package petcare.app.domain.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Página de resultados obtenida mediante paginación por cursor (keyset).<br/>
+ * El cursor es opaco para el cliente: debe reenviarse tal cual para obtener la página siguiente
+ *
+ * @param <T> Tipo de los elementos de la página
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+
+  /** Elementos de la página */
+  private List<T> content;
+
+  /** Cursor de la página siguiente. Será null si no existen más resultados */
+  private String nextCursor;
+
+}
@@ -0,0 +1,24 @@
+package petcare.app.domain.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Dto con un hueco libre en la agenda de un veterinario */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeSlotDto {
+
+  /** ID del veterinario que tiene libre el hueco */
+  private Long vetId;
+
+  /** Fecha de comienzo del hueco */
+  private LocalDateTime start;
+
+  /** Fecha de finalización del hueco */
+  private LocalDateTime end;
+
+}
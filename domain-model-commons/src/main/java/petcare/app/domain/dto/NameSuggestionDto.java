@@ -0,0 +1,19 @@
+package petcare.app.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Sugerencia de autocompletado de una búsqueda por nombre de veterinarios o entidades veterinarias */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NameSuggestionDto {
+
+  /** ID del veterinario o de la entidad veterinaria */
+  private Long id;
+
+  /** Nombre del veterinario o de la entidad veterinaria */
+  private String name;
+
+}
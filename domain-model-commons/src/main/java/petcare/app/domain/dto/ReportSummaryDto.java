@@ -0,0 +1,43 @@
+package petcare.app.domain.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resumen de un informe de visita clínica para los listados. No incluye el diagnóstico ni el tratamiento, y el motivo
+ * de la visita se trunca, de forma que los listados no cargan el texto completo de cada informe. El informe completo
+ * se obtiene por su ID
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportSummaryDto {
+
+  /** Longitud máxima del motivo de la visita incluido en el resumen */
+  public static final int REASON_PREVIEW_LENGTH = 120;
+
+  /** ID del informe */
+  private Long id;
+
+  /** Fecha de emisión del informe */
+  private LocalDate reportDate;
+
+  /** ID de la mascota sobre la que se establece el informe */
+  private Long petId;
+
+  /** Nombre de la mascota */
+  private String petName;
+
+  /** ID del veterinario que realiza el informe */
+  private Long vetId;
+
+  /** Nombre del veterinario */
+  private String vetName;
+
+  /** Motivo de la visita, truncado a {@value #REASON_PREVIEW_LENGTH} caracteres */
+  private String reasonPreview;
+
+}
@@ -0,0 +1,46 @@
+package petcare.app.domain.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dto con una entrada del historial clínico de una mascota: una cita o un informe de visita. Sólo se informa el campo
+ * correspondiente al tipo de la entrada
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntryDto {
+
+  /** Tipo de entrada */
+  private Type type;
+
+  /** Fecha de la entrada. Los informes, que sólo tienen día, se sitúan al comienzo de su día */
+  private LocalDateTime date;
+
+  /** ID de la cita o del informe */
+  private Long id;
+
+  /** Cita. Será null si la entrada es un informe */
+  private AppointmentDto appointmentDto;
+
+  /** Resumen del informe. Será null si la entrada es una cita. El informe completo se obtiene por su ID */
+  private ReportSummaryDto reportSummaryDto;
+
+  /**
+   * Tipo de entrada del historial. A igualdad de fecha, las entradas se ordenan según el orden de declaración, por lo
+   * que éste no debe modificarse
+   */
+  public enum Type {
+
+    /** Informe de visita */
+    REPORT,
+
+    /** Cita */
+    APPOINTMENT
+  }
+
+}
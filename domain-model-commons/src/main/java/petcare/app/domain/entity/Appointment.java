@@ -11,23 +11,40 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 
 /**
  * Cita que se apunta en la agenda de un cliente en conjunto con una mascota. Debe anotar, además, al veterinario que
- * tratará dicha cita
+ * tratará dicha cita<br/>
+ * El grafo "Appointment.detail" incluye todas las relaciones necesarias para convertir la cita a DTO, de forma que las
+ * consultas que lo usan obtienen cada fila completa en una única sentencia
  */
 @Entity
 @Data
-@Table(name = "appointment")
+@NamedEntityGraph(name = "Appointment.detail",
+    attributeNodes = { @NamedAttributeNode("client"), @NamedAttributeNode("pet"),
+        @NamedAttributeNode(value = "vet", subgraph = "vet") },
+    subgraphs = @NamedSubgraph(name = "vet", attributeNodes = @NamedAttributeNode("vetEntity")))
+@Table(name = "appointment",
+    indexes = { @Index(name = "appointment_vet_date_idx", columnList = "vet_id, appointment_date, id"),
+        @Index(name = "appointment_pet_date_idx", columnList = "pet_id, appointment_date, id") })
 public class Appointment {
 
-  /** ID autogenerado de una cita veterinaria */
+  /**
+   * ID autogenerado de una cita veterinaria. Se obtiene de una secuencia que reserva bloques de IDs, de forma que las
+   * inserciones pueden agruparse en lotes JDBC
+   */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_seq")
+  @SequenceGenerator(name = "appointment_seq", sequenceName = "appointment_seq", allocationSize = 50)
   private Long id;
 
   /** Cliente que traerá a la mascota */
@@ -2,6 +2,10 @@ package petcare.app.domain.entity.security;
 
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -17,9 +21,16 @@ import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
+import petcare.app.domain.cache.CacheRegions;
 
-/** Usuario de la aplicación. Clase que contiene todos los datos referentes al acceso del usuario */
+/**
+ * Usuario de la aplicación. Clase que contiene todos los datos referentes al acceso del usuario.<br/>
+ * Los usuarios de todos los tipos (clientes, veterinarios y entidades veterinarias) comparten la región
+ * {@link CacheRegions#APP_USER} de la caché de segundo nivel
+ */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.APP_USER)
 @Table(name = "app_user")
 @Data
 @Inheritance(strategy = InheritanceType.JOINED)
@@ -34,8 +45,8 @@ public abstract class AppUser {
   @Column(unique = true, length = 20)
   private String username;
 
-  /** Contraseña usada para el login del usuario */
-  @Column(length = 60)
+  /** Hash de la contraseña usada para el login del usuario, precedido del identificador de su algoritmo */
+  @Column(length = 100)
   private String password;
 
   /** Indica si la cuenta del usuario está activa y se permite su login en la aplicación */
@@ -50,6 +61,7 @@ public abstract class AppUser {
   @JoinTable(name = "users_roles", joinColumns = @JoinColumn(name = "app_user_id"),
       inverseJoinColumns = @JoinColumn(name = "role_id"),
       uniqueConstraints = { @UniqueConstraint(columnNames = { "app_user_id", "role_id" }) })
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.APP_USER_ROLES)
   private List<Role> roles;
 
 }
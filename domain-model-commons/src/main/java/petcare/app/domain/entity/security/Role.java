@@ -1,5 +1,9 @@
 package petcare.app.domain.entity.security;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -7,6 +11,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.Data;
+import petcare.app.domain.cache.CacheRegions;
 
 /**
  * Role que podrá poseer un usuario. Este será:
@@ -20,6 +25,8 @@ import lombok.Data;
  * </ul>
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.ROLE)
 @Table(name = "role")
 @Data
 public class Role {
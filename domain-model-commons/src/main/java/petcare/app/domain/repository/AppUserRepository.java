@@ -0,0 +1,23 @@
+package petcare.app.domain.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import petcare.app.domain.entity.security.AppUser;
+
+/** Repositorio de acceso a los usuarios de la aplicación, sea cual sea su tipo */
+@Repository
+public interface AppUserRepository extends CrudRepository<AppUser, Long> {
+
+  /**
+   * Busca un usuario de cualquier tipo (cliente, veterinario o entidad veterinaria) dado su username, en una única
+   * consulta
+   * 
+   * @param username Username
+   * @return Optional(AppUser) - Un objeto del tipo Optional que podrá contener el usuario en caso de ser encontrado
+   */
+  Optional<AppUser> findByUsername(String username);
+
+}
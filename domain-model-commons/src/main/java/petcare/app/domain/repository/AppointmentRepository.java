@@ -1,16 +1,24 @@
 package petcare.app.domain.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
 import petcare.app.domain.entity.Appointment;
+import petcare.app.domain.repository.projection.AppointmentSlot;
 
 /**
  * Repositorio de acceso a los datos de una cita veterinaria.<br/>
@@ -18,7 +26,9 @@ import petcare.app.domain.entity.Appointment;
  * Todas las citas obtenidas mediante consultas serán posteriores a la hora actual, puesto que la gestión de la
  * aplicación implica que, pasada la hora de la cita (con un cierto margen) debe generarse un informe con la visita del
  * día actual, o ninguno en caso de no asistencia. Sin embargo, no se podrán buscar citas anteriores al momento actual.
- * 
+ * <br/>
+ * Las consultas de lectura cargan el cliente, la mascota y el veterinario (con su entidad) en la misma sentencia, por
+ * lo que la conversión a DTO no genera consultas adicionales por cada fila
  */
 @Repository
 public interface AppointmentRepository extends CrudRepository<Appointment, Long>, JpaRepository<Appointment, Long> {
@@ -30,6 +40,7 @@ public interface AppointmentRepository extends CrudRepository<Appointment, Long>
    * @param pageable Sistema de paginación
    * @return List(Appointment) - Lista con todas las citas que cumplen la condición establecida
    */
+  @EntityGraph("Appointment.detail")
   @Query("""
     SELECT a FROM Appointment a
     JOIN a.pet p
@@ -47,6 +58,7 @@ public interface AppointmentRepository extends CrudRepository<Appointment, Long>
    * @param pageable Sistema de paginación
    * @return List(Appointment) - Lista con todas las citas que cumplen la condición establecida
    */
+  @EntityGraph("Appointment.detail")
   @Query("SELECT a FROM Appointment a WHERE a.vet.id = :vetId AND a.appointmentDate > CURRENT_TIMESTAMP ORDER BY a.appointmentDate ASC")
   List<Appointment> findByVetId(@Param("vetId") Long vetId, Pageable pageable);
 
@@ -59,6 +71,7 @@ public interface AppointmentRepository extends CrudRepository<Appointment, Long>
    * @param pageable   Sistema de paginación
    * @return List(Appointment) - Lista con todas las citas que cumplen la condición establecida
    */
+  @EntityGraph("Appointment.detail")
   @Query("""
     SELECT a FROM Appointment a
       WHERE a.vet.id = :vetId
@@ -75,6 +88,7 @@ public interface AppointmentRepository extends CrudRepository<Appointment, Long>
    * @param pageable    Sistema de paginación
    * @return List(Appointment) - Lista con todas las citas que cumplen la condición establecida
    */
+  @EntityGraph("Appointment.detail")
   @Query("""
     SELECT a FROM Appointment a
       JOIN a.vet v
@@ -94,6 +108,7 @@ public interface AppointmentRepository extends CrudRepository<Appointment, Long>
    * @param pageable    Sistema de paginación
    * @return List(Appointment) - Lista con todas las citas que cumplen la condición establecida
    */
+  @EntityGraph("Appointment.detail")
   @Query("""
     SELECT a FROM Appointment a
       JOIN a.vet v
@@ -104,4 +119,186 @@ public interface AppointmentRepository extends CrudRepository<Appointment, Long>
   List<Appointment> findByVetEntityIdAndDay(@Param("vetEntityId") Long vetEntityId,
       @Param("startOfDay") LocalDateTime startOfDay, @Param("endOfDay") LocalDateTime endOfDay, Pageable pageable);
 
+  /**
+   * Realiza una búsqueda por cursor (keyset) de las citas próximas que tiene alguna de las mascotas asociadas con el
+   * cliente dado. Se devuelven las citas posteriores al par (fecha, ID) aportado, ordenadas por fecha e ID
+   * 
+   * @param clientId  ID del cliente
+   * @param afterDate Fecha de la última cita de la página anterior
+   * @param afterId   ID de la última cita de la página anterior
+   * @param pageable  Tamaño de la página. Sólo se utilizará el tamaño, nunca el offset
+   * @return List(Appointment) - Lista con todas las citas que cumplen la condición establecida
+   */
+  @EntityGraph("Appointment.detail")
+  @Query("""
+    SELECT a FROM Appointment a
+    JOIN a.pet p
+    JOIN p.clients c
+    WHERE c.id = :clientId
+      AND a.appointmentDate > CURRENT_TIMESTAMP
+      AND (a.appointmentDate > :afterDate OR (a.appointmentDate = :afterDate AND a.id > :afterId))
+    ORDER BY a.appointmentDate ASC, a.id ASC
+    """)
+  List<Appointment> findByClientIdAfter(@Param("clientId") Long clientId,
+      @Param("afterDate") LocalDateTime afterDate, @Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Realiza una búsqueda por cursor (keyset) de las citas próximas que tiene asignado un veterinario. Se devuelven las
+   * citas posteriores al par (fecha, ID) aportado, ordenadas por fecha e ID
+   * 
+   * @param vetId     ID del veterinario
+   * @param afterDate Fecha de la última cita de la página anterior
+   * @param afterId   ID de la última cita de la página anterior
+   * @param pageable  Tamaño de la página. Sólo se utilizará el tamaño, nunca el offset
+   * @return List(Appointment) - Lista con todas las citas que cumplen la condición establecida
+   */
+  @EntityGraph("Appointment.detail")
+  @Query("""
+    SELECT a FROM Appointment a
+      WHERE a.vet.id = :vetId
+        AND a.appointmentDate > CURRENT_TIMESTAMP
+        AND (a.appointmentDate > :afterDate OR (a.appointmentDate = :afterDate AND a.id > :afterId))
+      ORDER BY a.appointmentDate ASC, a.id ASC
+    """)
+  List<Appointment> findByVetIdAfter(@Param("vetId") Long vetId, @Param("afterDate") LocalDateTime afterDate,
+      @Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Realiza una búsqueda por cursor (keyset) de las citas próximas que tiene asignada una clínica veterinaria. Se
+   * devuelven las citas posteriores al par (fecha, ID) aportado, ordenadas por fecha e ID
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param afterDate   Fecha de la última cita de la página anterior
+   * @param afterId     ID de la última cita de la página anterior
+   * @param pageable    Tamaño de la página. Sólo se utilizará el tamaño, nunca el offset
+   * @return List(Appointment) - Lista con todas las citas que cumplen la condición establecida
+   */
+  @EntityGraph("Appointment.detail")
+  @Query("""
+    SELECT a FROM Appointment a
+      JOIN a.vet v
+      WHERE v.vetEntity.id = :vetEntityId
+        AND a.appointmentDate > CURRENT_TIMESTAMP
+        AND (a.appointmentDate > :afterDate OR (a.appointmentDate = :afterDate AND a.id > :afterId))
+      ORDER BY a.appointmentDate ASC, a.id ASC
+    """)
+  List<Appointment> findByVetEntityIdAfter(@Param("vetEntityId") Long vetEntityId,
+      @Param("afterDate") LocalDateTime afterDate, @Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Realiza una búsqueda por cursor (keyset) de todas las citas, pasadas y futuras, de una mascota. Se devuelven las
+   * citas anteriores al par (fecha, ID) aportado, ordenadas por fecha e ID de forma descendente
+   * 
+   * @param petId      ID de la mascota
+   * @param beforeDate Fecha de la última cita ya devuelta
+   * @param beforeId   ID de la última cita ya devuelta
+   * @param pageable   Número máximo de resultados. Sólo se utilizará el tamaño, nunca el offset
+   * @return List(Appointment) - Lista con todas las citas que cumplen la condición establecida
+   */
+  @EntityGraph("Appointment.detail")
+  @Query("""
+    SELECT a FROM Appointment a
+      WHERE a.pet.id = :petId
+        AND (a.appointmentDate < :beforeDate OR (a.appointmentDate = :beforeDate AND a.id < :beforeId))
+      ORDER BY a.appointmentDate DESC, a.id DESC
+    """)
+  List<Appointment> findByPetIdBefore(@Param("petId") Long petId, @Param("beforeDate") LocalDateTime beforeDate,
+      @Param("beforeId") Long beforeId, Pageable pageable);
+
+  /**
+   * Obtiene los huecos de agenda ocupados por todas las citas posteriores a la fecha aportada. Se usa para reconstruir
+   * el índice de agendas de los veterinarios
+   * 
+   * @param from Fecha a partir de la cual se buscan las citas
+   * @return List(AppointmentSlot) - Lista con los huecos ocupados
+   */
+  @Query("""
+    SELECT a.id AS id, a.vet.id AS vetId, a.appointmentDate AS appointmentDate FROM Appointment a
+      WHERE a.appointmentDate > :from
+    """)
+  List<AppointmentSlot> findSlotsAfter(@Param("from") LocalDateTime from);
+
+  /**
+   * Obtiene los huecos de agenda ocupados por las citas de una clínica veterinaria entre dos fechas concretas. Los
+   * huecos se devuelven agrupados por veterinario y, dentro de cada uno, ordenados por fecha
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param from        Fecha a partir de la cual se buscan las citas
+   * @param to          Fecha hasta la que se buscan las citas
+   * @return List(AppointmentSlot) - Lista con los huecos ocupados
+   */
+  @Query("""
+    SELECT a.id AS id, v.id AS vetId, a.appointmentDate AS appointmentDate FROM Appointment a
+      JOIN a.vet v
+      WHERE v.vetEntity.id = :vetEntityId
+        AND a.appointmentDate > :from
+        AND a.appointmentDate < :to
+      ORDER BY v.id ASC, a.appointmentDate ASC
+    """)
+  List<AppointmentSlot> findSlotsByVetEntityIdBetween(@Param("vetEntityId") Long vetEntityId,
+      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+  /**
+   * Recorre todas las citas, pasadas y futuras, de una clínica veterinaria ordenadas por fecha e ID. Las filas se
+   * obtienen de la base de datos en bloques de tamaño fijo, sin almacenar las entidades en la caché de segundo nivel y
+   * en modo de sólo lectura, de forma que el consumo de memoria no depende del número de citas.<br/>
+   * El Stream debe consumirse y cerrarse dentro de una transacción
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @return Stream(Appointment) - Citas de la entidad veterinaria
+   */
+  @EntityGraph("Appointment.detail")
+  @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false"),
+      @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE") })
+  @Query("""
+    SELECT a FROM Appointment a
+      JOIN a.vet v
+      WHERE v.vetEntity.id = :vetEntityId
+      ORDER BY a.appointmentDate ASC, a.id ASC
+    """)
+  Stream<Appointment> streamByVetEntityId(@Param("vetEntityId") Long vetEntityId);
+
+  /**
+   * Obtiene los huecos de agenda ocupados por las citas posteriores a una posición concreta (fecha, ID) y anteriores a
+   * una fecha límite, ordenados por fecha e ID. Permite recorrer las citas por bloques aunque muchas coincidan en fecha
+   * 
+   * @param afterDate Fecha de la última cita ya recorrida
+   * @param afterId   ID de la última cita ya recorrida
+   * @param to        Fecha hasta la que se buscan las citas (incluida)
+   * @param pageable  Número máximo de resultados. Sólo se utilizará el tamaño, nunca el offset
+   * @return List(AppointmentSlot) - Lista con los huecos ocupados
+   */
+  @Query("""
+    SELECT a.id AS id, a.vet.id AS vetId, a.appointmentDate AS appointmentDate FROM Appointment a
+      WHERE (a.appointmentDate > :afterDate OR (a.appointmentDate = :afterDate AND a.id > :afterId))
+        AND a.appointmentDate <= :to
+      ORDER BY a.appointmentDate ASC, a.id ASC
+    """)
+  List<AppointmentSlot> findSlotsAfter(@Param("afterDate") LocalDateTime afterDate, @Param("afterId") Long afterId,
+      @Param("to") LocalDateTime to, Pageable pageable);
+
+  /**
+   * Obtiene los huecos de agenda ocupados por las citas aportadas
+   * 
+   * @param ids IDs de las citas
+   * @return List(AppointmentSlot) - Lista con los huecos ocupados por las citas que aún existen
+   */
+  @Query("""
+    SELECT a.id AS id, a.vet.id AS vetId, a.appointmentDate AS appointmentDate FROM Appointment a
+      WHERE a.id IN :ids
+    """)
+  List<AppointmentSlot> findSlotsByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Elimina las citas archivadas de una mascota. Las citas archivadas (tabla appointment_archive) no forman parte de las
+   * citas de la mascota, por lo que no se eliminan en cascada con ella
+   * 
+   * @param petId ID de la mascota
+   */
+  @Modifying
+  @Query(nativeQuery = true, value = "DELETE FROM appointment_archive WHERE pet_id = :petId")
+  void deleteArchivedByPetId(@Param("petId") Long petId);
+
 }
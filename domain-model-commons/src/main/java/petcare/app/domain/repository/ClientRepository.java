@@ -3,9 +3,12 @@ package petcare.app.domain.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
 import petcare.app.domain.entity.Client;
 
 /** Repositorio de acceso a los datos de un cliente */
@@ -13,11 +16,12 @@ import petcare.app.domain.entity.Client;
 public interface ClientRepository extends CrudRepository<Client, Long> {
 
   /**
-   * Busca un cliente dado su username
+   * Busca un cliente dado su username. El resultado se guarda en la caché de consultas
    * 
    * @param username Username
    * @return Optional(Client) - Un objeto del tipo Optional que podrá contener el cliente en caso de ser encontrado
    */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Optional<Client> findByUsername(String username);
 
   /**
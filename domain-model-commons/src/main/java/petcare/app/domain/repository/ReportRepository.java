@@ -1,20 +1,35 @@
 package petcare.app.domain.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import petcare.app.domain.dto.ReportSummaryDto;
 import petcare.app.domain.entity.Report;
 
 /** Repositorio de informes veterinarios */
 @Repository
 public interface ReportRepository extends CrudRepository<Report, Long>, JpaRepository<Report, Long> {
 
+  /**
+   * Selección de los campos de los resúmenes de informes, con el motivo de la visita truncado por la base de datos a
+   * {@link ReportSummaryDto#REASON_PREVIEW_LENGTH} caracteres
+   */
+  String SUMMARY_SELECT = "SELECT new petcare.app.domain.dto.ReportSummaryDto(r.id, r.reportDate, p.id, p.name, v.id, "
+      + "v.name, SUBSTRING(r.reason, 1, " + ReportSummaryDto.REASON_PREVIEW_LENGTH + "))";
+
   /**
    * Consulta de todos los informes clínicos de una mascota concreta
    * 
@@ -83,4 +98,166 @@ public interface ReportRepository extends CrudRepository<Report, Long>, JpaRepos
     """)
   List<Report> findByVetEntityId(@Param("vetEntityId") Long vetEntityId, Pageable pageable);
 
+  /**
+   * Consulta de los resúmenes de los informes clínicos de una mascota concreta. Sólo se obtienen los campos del
+   * resumen, con el motivo de la visita ya truncado por la base de datos, por lo que el texto completo de los informes
+   * nunca se transfiere
+   * 
+   * @param petId    ID de la mascota
+   * @param pageable Sistema de paginación
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes solicitados
+   */
+  @Query(SUMMARY_SELECT + """
+      FROM Report r
+      LEFT JOIN r.pet p
+      LEFT JOIN r.vet v
+      WHERE p.id = :petId
+      ORDER BY r.reportDate DESC, r.id DESC
+    """)
+  List<ReportSummaryDto> findSummariesByPetId(@Param("petId") Long petId, Pageable pageable);
+
+  /**
+   * Realiza una búsqueda por cursor (keyset) de los resúmenes de los informes clínicos de una mascota. Se devuelven los
+   * informes anteriores al par (fecha, ID) aportado, ordenados por fecha e ID de forma descendente
+   * 
+   * @param petId      ID de la mascota
+   * @param beforeDate Fecha del último informe ya devuelto
+   * @param beforeId   ID del último informe ya devuelto
+   * @param pageable   Número máximo de resultados. Sólo se utilizará el tamaño, nunca el offset
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes solicitados
+   */
+  @Query(SUMMARY_SELECT + """
+      FROM Report r
+      JOIN r.pet p
+      LEFT JOIN r.vet v
+      WHERE p.id = :petId
+        AND (r.reportDate < :beforeDate OR (r.reportDate = :beforeDate AND r.id < :beforeId))
+      ORDER BY r.reportDate DESC, r.id DESC
+    """)
+  List<ReportSummaryDto> findSummariesByPetIdBefore(@Param("petId") Long petId,
+      @Param("beforeDate") LocalDate beforeDate, @Param("beforeId") Long beforeId, Pageable pageable);
+
+  /**
+   * Consulta de los resúmenes de los informes clínicos de todas las mascotas de un cliente
+   * 
+   * @param clientId ID del cliente
+   * @param pageable Sistema de paginación
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes solicitados
+   */
+  @Query(SUMMARY_SELECT + """
+      FROM Report r
+      LEFT JOIN r.pet p
+      LEFT JOIN r.vet v
+      JOIN p.clients c
+      WHERE c.id = :clientId
+      ORDER BY r.reportDate DESC, r.id DESC
+    """)
+  List<ReportSummaryDto> findSummariesByClientId(@Param("clientId") Long clientId, Pageable pageable);
+
+  /**
+   * Consulta de los resúmenes de los informes clínicos de todas las mascotas de un cliente dado su NIF/NIE
+   * 
+   * @param nationalIdDocument NIF/NIE del cliente
+   * @param pageable           Sistema de paginación
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes solicitados
+   */
+  @Query(SUMMARY_SELECT + """
+      FROM Report r
+      LEFT JOIN r.pet p
+      LEFT JOIN r.vet v
+      JOIN p.clients c
+      WHERE c.nationalIdDocument = :nationalIdDocument
+      ORDER BY r.reportDate DESC, r.id DESC
+    """)
+  List<ReportSummaryDto> findSummariesByClientNationalIdDocument(
+      @Param("nationalIdDocument") String nationalIdDocument, Pageable pageable);
+
+  /**
+   * Consulta de los resúmenes de los informes clínicos emitidos por un veterinario
+   * 
+   * @param vetId    ID del veterinario
+   * @param pageable Sistema de paginación
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes solicitados
+   */
+  @Query(SUMMARY_SELECT + """
+      FROM Report r
+      LEFT JOIN r.pet p
+      LEFT JOIN r.vet v
+      WHERE v.id = :vetId
+      ORDER BY r.reportDate DESC, r.id DESC
+    """)
+  List<ReportSummaryDto> findSummariesByVetId(@Param("vetId") Long vetId, Pageable pageable);
+
+  /**
+   * Consulta de los resúmenes de los informes clínicos emitidos por los veterinarios de una entidad veterinaria
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param pageable    Sistema de paginación
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes solicitados
+   */
+  @Query(SUMMARY_SELECT + """
+      FROM Report r
+      LEFT JOIN r.pet p
+      LEFT JOIN r.vet v
+      WHERE v.vetEntity.id = :vetEntityId
+      ORDER BY r.reportDate DESC, r.id DESC
+    """)
+  List<ReportSummaryDto> findSummariesByVetEntityId(@Param("vetEntityId") Long vetEntityId, Pageable pageable);
+
+  /**
+   * Búsqueda de texto completo sobre el motivo, el diagnóstico y el tratamiento de los informes clínicos de una entidad
+   * veterinaria. Admite la sintaxis de los buscadores web (frases entre comillas, "or" y exclusión con "-"), y las
+   * palabras se comparan sin tildes y por su raíz en español. Los informes se ordenan por relevancia y, a igualdad de
+   * relevancia, por fecha descendente. Sólo se obtienen los IDs, de forma que los informes se cargan después junto con
+   * sus asociaciones ({@link #findWithAssociationsByIdIn(Collection)})
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param query       Texto a buscar
+   * @param pageable    Sistema de paginación. La ordenación aportada se ignora
+   * @return List(Long) - Lista con los IDs de los informes clínicos encontrados, ordenados por relevancia
+   */
+  @Query(nativeQuery = true, value = """
+    SELECT r.id FROM report r
+      JOIN vet v ON v.id = r.vet_id
+      WHERE v.vet_entity_id = :vetEntityId
+        AND r.search_vector @@ websearch_to_tsquery('petcare_es', :query)
+      ORDER BY ts_rank_cd(r.search_vector, websearch_to_tsquery('petcare_es', :query)) DESC,
+        r.report_date DESC, r.id DESC
+    """)
+  List<Long> searchIdsByVetEntityId(@Param("vetEntityId") Long vetEntityId, @Param("query") String query,
+      Pageable pageable);
+
+  /**
+   * Obtiene los informes clínicos aportados junto con su mascota y su veterinario (con su entidad) en la misma
+   * sentencia, por lo que la conversión a DTO no genera consultas adicionales por cada fila
+   * 
+   * @param ids IDs de los informes
+   * @return List(Report) - Lista con los informes encontrados, sin un orden determinado
+   */
+  @EntityGraph(attributePaths = { "pet", "vet", "vet.vetEntity" })
+  @Query("SELECT r FROM Report r WHERE r.id IN :ids")
+  List<Report> findWithAssociationsByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Recorre todos los informes clínicos de una entidad veterinaria ordenados por fecha e ID. Las filas se obtienen de
+   * la base de datos en bloques de tamaño fijo, sin almacenar las entidades en la caché de segundo nivel y en modo de
+   * sólo lectura, de forma que el consumo de memoria no depende del número de informes.<br/>
+   * El Stream debe consumirse y cerrarse dentro de una transacción
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @return Stream(Report) - Informes de la entidad veterinaria
+   */
+  @EntityGraph(attributePaths = { "pet", "vet", "vet.vetEntity" })
+  @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false"),
+      @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE") })
+  @Query("""
+    SELECT r FROM Report r
+      JOIN r.vet v
+      WHERE v.vetEntity.id = :vetEntityId
+      ORDER BY r.reportDate ASC, r.id ASC
+    """)
+  Stream<Report> streamByVetEntityId(@Param("vetEntityId") Long vetEntityId);
+
 }
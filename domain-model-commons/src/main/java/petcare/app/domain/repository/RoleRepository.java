@@ -1,8 +1,11 @@
 package petcare.app.domain.repository;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
 import petcare.app.domain.entity.security.Role;
 
 /** Repositorio de roles */
@@ -10,11 +13,12 @@ import petcare.app.domain.entity.security.Role;
 public interface RoleRepository extends CrudRepository<Role, Long> {
 
   /**
-   * Busca un Role con el nombre aportado
+   * Busca un Role con el nombre aportado. El resultado se guarda en la caché de consultas
    * 
    * @param name Nombre del Role
    * @return Role
    */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Role findByName(String name);
 
 }
@@ -3,24 +3,31 @@ package petcare.app.domain.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
 import petcare.app.domain.entity.VetEntity;
+import petcare.app.domain.repository.projection.NameMatch;
 
 /** Repositorio de acceso a los datos de una entidad veterinaria */
 @Repository
 public interface VetEntityRepository extends CrudRepository<VetEntity, Long>, JpaRepository<VetEntity, Long> {
 
   /**
-   * Busca una entidad veterinaria dado su username
+   * Busca una entidad veterinaria dado su username. El resultado se guarda en la caché de consultas
    * 
    * @param username Username
    * @return Optional(Client) - Un objeto del tipo Optional que podrá contener la entidad veterinaria en caso de ser
    *         encontrada
    */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Optional<VetEntity> findByUsername(String username);
 
   /**
@@ -32,4 +39,23 @@ public interface VetEntityRepository extends CrudRepository<VetEntity, Long>, Jp
    */
   List<VetEntity> findByNameContaining(String name, Pageable pageable);
 
+  /**
+   * Autocompletado de entidades veterinarias por nombre. La búsqueda no distingue tildes ni mayúsculas, admite palabras
+   * incompletas y pequeñas erratas, y utiliza el índice de trigramas de la columna search_name. Las entidades cuyo
+   * nombre comienza por el texto buscado aparecen primero; el resto se ordena por similitud
+   * 
+   * @param query    Texto escrito por el usuario
+   * @param prefix   Texto escrito por el usuario, con los comodines de LIKE escapados (LikePatterns)
+   * @param pageable Sistema de paginación. La ordenación aportada se ignora
+   * @return List(NameMatch) - IDs y nombres de las entidades veterinarias encontradas
+   */
+  @Query(nativeQuery = true, value = """
+    SELECT v.id AS id, v.name AS name FROM vet_entity v
+      WHERE petcare_search_name(:query) <% v.search_name
+      ORDER BY v.search_name LIKE petcare_search_name(:prefix) || '%' ESCAPE '\\' DESC,
+        word_similarity(petcare_search_name(:query), v.search_name) DESC, v.name ASC, v.id ASC
+    """)
+  List<NameMatch> autocompleteByName(@Param("query") String query, @Param("prefix") String prefix,
+      Pageable pageable);
+
 }
@@ -3,25 +3,30 @@ package petcare.app.domain.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
 import petcare.app.domain.entity.Vet;
+import petcare.app.domain.repository.projection.NameMatch;
 
 /** Repositorio de acceso a los distintos veterinarios almacenados en el sistema */
 @Repository
 public interface VetRepository extends CrudRepository<Vet, Long>, JpaRepository<Vet, Long> {
 
   /**
-   * Busca un veterinario dado su username
+   * Busca un veterinario dado su username. El resultado se guarda en la caché de consultas
    * 
    * @param username Username
    * @return Optional(Client) - Un objeto del tipo Optional que podrá contener el veterinario en caso de ser encontrado
    */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Optional<Vet> findByUsername(String username);
 
   /**
@@ -49,4 +54,52 @@ public interface VetRepository extends CrudRepository<Vet, Long>, JpaRepository<
   @Query("SELECT v FROM Vet v WHERE v.vetEntity.id = :vetEntityId")
   List<Vet> findByVetEntityId(@Param("vetEntityId") Long vetEntityId, Pageable pageable);
 
+  /**
+   * Busca los IDs de todos los veterinarios pertenecientes a la misma entidad o clínica
+   * 
+   * @param vetEntityId ID asociado a la entidad o clínica veterinaria
+   * @return List(Long) - Una lista con los IDs de los veterinarios, ordenados de forma ascendente
+   */
+  @Query("SELECT v.id FROM Vet v WHERE v.vetEntity.id = :vetEntityId ORDER BY v.id ASC")
+  List<Long> findIdsByVetEntityId(@Param("vetEntityId") Long vetEntityId);
+
+  /**
+   * Autocompletado de veterinarios por nombre. La búsqueda no distingue tildes ni mayúsculas, admite palabras
+   * incompletas y pequeñas erratas, y utiliza el índice de trigramas de la columna search_name. Los veterinarios cuyo
+   * nombre comienza por el texto buscado aparecen primero; el resto se ordena por similitud
+   * 
+   * @param query    Texto escrito por el usuario
+   * @param prefix   Texto escrito por el usuario, con los comodines de LIKE escapados (LikePatterns)
+   * @param pageable Sistema de paginación. La ordenación aportada se ignora
+   * @return List(NameMatch) - IDs y nombres de los veterinarios encontrados
+   */
+  @Query(nativeQuery = true, value = """
+    SELECT v.id AS id, v.name AS name FROM vet v
+      WHERE petcare_search_name(:query) <% v.search_name
+      ORDER BY v.search_name LIKE petcare_search_name(:prefix) || '%' ESCAPE '\\' DESC,
+        word_similarity(petcare_search_name(:query), v.search_name) DESC, v.name ASC, v.id ASC
+    """)
+  List<NameMatch> autocompleteByName(@Param("query") String query, @Param("prefix") String prefix,
+      Pageable pageable);
+
+  /**
+   * Autocompletado de los veterinarios de una entidad o clínica veterinaria por nombre. Sigue los mismos criterios que
+   * {@link #autocompleteByName(String, String, Pageable)}
+   * 
+   * @param query       Texto escrito por el usuario
+   * @param prefix      Texto escrito por el usuario, con los comodines de LIKE escapados (LikePatterns)
+   * @param vetEntityId ID asociado a la entidad o clínica veterinaria
+   * @param pageable    Sistema de paginación. La ordenación aportada se ignora
+   * @return List(NameMatch) - IDs y nombres de los veterinarios encontrados
+   */
+  @Query(nativeQuery = true, value = """
+    SELECT v.id AS id, v.name AS name FROM vet v
+      WHERE v.vet_entity_id = :vetEntityId
+        AND petcare_search_name(:query) <% v.search_name
+      ORDER BY v.search_name LIKE petcare_search_name(:prefix) || '%' ESCAPE '\\' DESC,
+        word_similarity(petcare_search_name(:query), v.search_name) DESC, v.name ASC, v.id ASC
+    """)
+  List<NameMatch> autocompleteByNameAndVetEntityId(@Param("query") String query, @Param("prefix") String prefix,
+      @Param("vetEntityId") Long vetEntityId, Pageable pageable);
+
 }
@@ -0,0 +1,32 @@
+package petcare.app.domain.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección mínima de una cita veterinaria: únicamente el hueco que ocupa en la agenda del veterinario. Evita cargar
+ * las relaciones de la cita cuando sólo se necesita conocer la ocupación de la agenda
+ */
+public interface AppointmentSlot {
+
+  /**
+   * ID de la cita
+   * 
+   * @return Long
+   */
+  Long getId();
+
+  /**
+   * ID del veterinario que atenderá la cita
+   * 
+   * @return Long
+   */
+  Long getVetId();
+
+  /**
+   * Fecha de la cita
+   * 
+   * @return LocalDateTime
+   */
+  LocalDateTime getAppointmentDate();
+
+}
@@ -0,0 +1,23 @@
+package petcare.app.domain.repository.projection;
+
+/**
+ * Proyección mínima de un resultado de búsqueda por nombre: únicamente el ID y el nombre, suficientes para mostrar las
+ * sugerencias de autocompletado sin cargar la entidad completa
+ */
+public interface NameMatch {
+
+  /**
+   * ID del elemento encontrado
+   * 
+   * @return Long
+   */
+  Long getId();
+
+  /**
+   * Nombre del elemento encontrado
+   * 
+   * @return String
+   */
+  String getName();
+
+}
@@ -23,10 +23,37 @@ public class ExceptionMessages {
   /** Mensaje de error de cliente no encontrado */
   public static final String CLIENT_NOT_FOUND_BY_NATIONAL_ID_DOCUMENT = "No se pudo encontrar el cliente con NIF/NIE: %s";
 
+  /** Mensaje de error de usuario no encontrado dado su username */
+  public static final String USER_NOT_FOUND_BY_USERNAME = "No se pudo encontrar el usuario con username: %s";
+
   /** Mensaje de error de mascota no encontrado dado su ID */
   public static final String PET_NOT_FOUND_BY_ID = "No se pudo encontrar la mascota con ID: %d";
 
   /** Mensaje de error de informe no encontrado dado su ID */
   public static final String REPORT_NOT_FOUND_BY_ID = "No se pudo encontrar el informe con ID: %d";
 
+  /** Mensaje de error de cursor de paginación inválido */
+  public static final String INVALID_CURSOR = "El cursor de paginación no es válido: %s";
+
+  /** Mensaje de error de cita que se solapa con otra del mismo veterinario */
+  public static final String APPOINTMENT_SLOT_NOT_AVAILABLE = "El veterinario con ID: %d ya tiene una cita que se solapa con la fecha: %s";
+
+  /** Mensaje de error de ventana de búsqueda de huecos libres inválida */
+  public static final String INVALID_FREE_SLOT_WINDOW = "La ventana de búsqueda de huecos libres no es válida: %s - %s";
+
+  /** Mensaje de error de cita sin veterinario, mascota, cliente o fecha */
+  public static final String APPOINTMENT_INCOMPLETE = "La cita debe indicar veterinario, mascota, cliente y fecha";
+
+  /** Mensaje de error de duración del hueco de las citas distinta de la de la base de datos */
+  public static final String SLOT_DURATION_MISMATCH = "La duración del hueco de las citas (%s) no coincide con la de la base de datos (%s)";
+
+  /** Mensaje de error de límite de suscripciones a agendas alcanzado */
+  public static final String TOO_MANY_AGENDA_SUBSCRIBERS = "Se ha alcanzado el número máximo de suscripciones a agendas: %d";
+
+  /** Mensaje de error de cálculo de contraseña rechazado por saturación */
+  public static final String PASSWORD_HASHING_REJECTED = "Servicio de contraseñas saturado. Vuelva a intentarlo más tarde";
+
+  /** Mensaje de error de cálculo de contraseña interrumpido */
+  public static final String PASSWORD_HASHING_INTERRUPTED = "Se ha interrumpido el cálculo de la contraseña";
+
 }
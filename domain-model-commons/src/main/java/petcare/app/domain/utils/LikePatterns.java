@@ -0,0 +1,39 @@
+package petcare.app.domain.utils;
+
+/** Clase de utilidad para construir patrones de búsqueda LIKE a partir del texto escrito por el usuario */
+public class LikePatterns {
+
+  /** Carácter de escape de los patrones. Las consultas deben declararlo con ESCAPE '\' */
+  public static final char ESCAPE = '\\';
+
+  /** Constructor privado para evitar inicialización */
+  private LikePatterns() {
+
+  }
+
+  /**
+   * Escapa los comodines de LIKE (% y _) y el propio carácter de escape, de forma que el texto sólo coincide de forma
+   * literal
+   * 
+   * @param text Texto escrito por el usuario
+   * @return String - Texto escapado
+   */
+  public static String escape(String text) {
+
+    StringBuilder escaped = new StringBuilder(text.length());
+
+    for (int i = 0; i < text.length(); i++) {
+
+      char c = text.charAt(i);
+
+      if (c == ESCAPE || c == '%' || c == '_') {
+        escaped.append(ESCAPE);
+      }
+
+      escaped.append(c);
+    }
+
+    return escaped.toString();
+  }
+
+}
@@ -0,0 +1,47 @@
+package petcare.app.domain.utils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+/**
+ * Conexiones dedicadas a la escucha de notificaciones de PostgreSQL (LISTEN).<br/>
+ * Una conexión de escucha permanece abierta mientras vive la aplicación, por lo que se abre directamente con el driver,
+ * con la URL y las credenciales del origen de datos, y no se toma del pool: de lo contrario el pool perdería una
+ * conexión por cada canal escuchado
+ */
+public class ListenConnections {
+
+  /** Constructor privado para evitar inicialización */
+  private ListenConnections() {
+  }
+
+  /**
+   * Abre una conexión fuera del pool y comienza la escucha de un canal. La conexión debe cerrarse al terminar la
+   * escucha
+   * 
+   * @param properties Configuración del origen de datos
+   * @param channel    Canal a escuchar
+   * @return Connection - Conexión en escucha
+   * @throws SQLException Si no puede abrirse la conexión o comenzar la escucha
+   */
+  public static Connection open(DataSourceProperties properties, String channel) throws SQLException {
+
+    Connection connection = DriverManager.getConnection(properties.determineUrl(), properties.determineUsername(),
+        properties.determinePassword());
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("LISTEN " + channel);
+
+    } catch (SQLException e) {
+      connection.close();
+      throw e;
+    }
+
+    return connection;
+  }
+
+}
@@ -0,0 +1,86 @@
+package petcare.app.domain.utils.cursor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import petcare.app.domain.entity.Appointment;
+import petcare.app.domain.utils.ExceptionMessages;
+
+/**
+ * Cursor de paginación de citas veterinarias. Identifica la última cita devuelta mediante el par (fecha, ID), que
+ * coincide con el orden de las consultas, de forma que la página siguiente se obtiene buscando directamente en el
+ * índice a partir de ese punto en lugar de descartar filas con un offset
+ */
+@Data
+@AllArgsConstructor
+public class AppointmentCursor {
+
+  /** Separador entre los campos del cursor */
+  private static final String SEPARATOR = ",";
+
+  /** Fecha de la última cita devuelta */
+  private LocalDateTime appointmentDate;
+
+  /** ID de la última cita devuelta */
+  private Long id;
+
+  /**
+   * Cursor inicial. Las citas se buscan a partir del momento actual, por lo que la primera página comienza en él
+   *
+   * @return AppointmentCursor
+   */
+  public static AppointmentCursor first() {
+    return new AppointmentCursor(LocalDateTime.now(), 0L);
+  }
+
+  /**
+   * Genera el cursor que apunta a la cita aportada
+   *
+   * @param appointment Última cita de la página
+   * @return AppointmentCursor
+   */
+  public static AppointmentCursor of(Appointment appointment) {
+    return new AppointmentCursor(appointment.getAppointmentDate(), appointment.getId());
+  }
+
+  /**
+   * Codifica el cursor en un texto opaco apto para URLs
+   *
+   * @return String - Cursor codificado
+   */
+  public String encode() {
+
+    String raw = appointmentDate + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodifica un cursor generado previamente mediante {@link #encode()}. Si el cursor es null, se devuelve el cursor
+   * inicial
+   *
+   * @param cursor Cursor codificado
+   * @return AppointmentCursor
+   * @throws IllegalArgumentException Si el cursor no tiene un formato válido
+   */
+  public static AppointmentCursor decode(String cursor) {
+
+    if (cursor == null || cursor.isBlank()) {
+      return first();
+    }
+
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] fields = raw.split(SEPARATOR);
+
+      return new AppointmentCursor(LocalDateTime.parse(fields[0]), Long.parseLong(fields[1]));
+
+    } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException(String.format(ExceptionMessages.INVALID_CURSOR, cursor), e);
+    }
+  }
+
+}
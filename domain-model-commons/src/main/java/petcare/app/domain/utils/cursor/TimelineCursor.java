@@ -0,0 +1,96 @@
+package petcare.app.domain.utils.cursor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import petcare.app.domain.dto.TimelineEntryDto;
+import petcare.app.domain.utils.ExceptionMessages;
+
+/**
+ * Cursor de paginación del historial clínico de una mascota. Identifica la última entrada devuelta mediante la terna
+ * (fecha, tipo, ID), que coincide con el orden descendente del historial, de forma que la página siguiente de cada
+ * tipo de entrada se obtiene buscando directamente en su índice a partir de ese punto
+ */
+@Data
+@AllArgsConstructor
+public class TimelineCursor {
+
+  /** Separador entre los campos del cursor */
+  private static final String SEPARATOR = ",";
+
+  /** Fecha posterior a cualquier entrada del historial, usada por el cursor inicial */
+  private static final LocalDateTime END_OF_TIME = LocalDate.of(9999, 12, 31).atTime(LocalTime.MAX);
+
+  /** Fecha de la última entrada devuelta */
+  private LocalDateTime date;
+
+  /** Tipo de la última entrada devuelta */
+  private TimelineEntryDto.Type type;
+
+  /** ID de la última entrada devuelta */
+  private Long id;
+
+  /**
+   * Cursor inicial. Se sitúa tras cualquier entrada del historial, por lo que la primera página comienza en la más
+   * reciente
+   * 
+   * @return TimelineCursor
+   */
+  public static TimelineCursor first() {
+    return new TimelineCursor(END_OF_TIME, TimelineEntryDto.Type.APPOINTMENT, Long.MAX_VALUE);
+  }
+
+  /**
+   * Genera el cursor que apunta a la entrada aportada
+   * 
+   * @param entry Última entrada de la página
+   * @return TimelineCursor
+   */
+  public static TimelineCursor of(TimelineEntryDto entry) {
+    return new TimelineCursor(entry.getDate(), entry.getType(), entry.getId());
+  }
+
+  /**
+   * Codifica el cursor en un texto opaco apto para URLs
+   * 
+   * @return String - Cursor codificado
+   */
+  public String encode() {
+
+    String raw = date + SEPARATOR + type + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodifica un cursor generado previamente mediante {@link #encode()}. Si el cursor es null, se devuelve el cursor
+   * inicial
+   * 
+   * @param cursor Cursor codificado
+   * @return TimelineCursor
+   * @throws IllegalArgumentException Si el cursor no tiene un formato válido
+   */
+  public static TimelineCursor decode(String cursor) {
+
+    if (cursor == null || cursor.isBlank()) {
+      return first();
+    }
+
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] fields = raw.split(SEPARATOR);
+
+      return new TimelineCursor(LocalDateTime.parse(fields[0]), TimelineEntryDto.Type.valueOf(fields[1]),
+          Long.parseLong(fields[2]));
+
+    } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException(String.format(ExceptionMessages.INVALID_CURSOR, cursor), e);
+    }
+  }
+
+}
@@ -0,0 +1,18 @@
+package petcare.app.domain.utils.exceptions;
+
+/** Excepción lanzada cuando una cita se solapa con otra ya existente en la agenda del mismo veterinario */
+public class ScheduleConflictException extends Exception {
+
+  /** SerialVersionUID */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Constructor con mensaje
+   * 
+   * @param message Mensaje de error
+   */
+  public ScheduleConflictException(String message) {
+    super(message);
+  }
+
+}
@@ -5,7 +5,11 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import petcare.app.domain.cache.SecondLevelCacheConfig;
 
 /** Clase principal */
 @SpringBootApplication
@@ -13,6 +17,8 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @EntityScan(basePackages = { "petcare.app.domain.entity", "petcare.app.domain.entity.security" })
 @EnableJpaRepositories(basePackages = { "petcare.app.domain.repository" })
 @RefreshScope
+@EnableScheduling
+@Import(SecondLevelCacheConfig.class)
 public class PetcareCoreApplication {
 
   /**
@@ -1,13 +1,20 @@
 package petcare.app.core.controller;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,12 +23,23 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import petcare.app.core.controller.support.AgendaSubscriptions;
+import petcare.app.core.controller.support.NdjsonResponses;
 import petcare.app.core.service.IAppointmentService;
 import petcare.app.domain.dto.AppointmentDto;
+import petcare.app.domain.dto.BulkAppointmentResultDto;
+import petcare.app.domain.dto.CursorPageDto;
+import petcare.app.domain.dto.FreeSlotDto;
+import petcare.app.domain.entity.Appointment;
 import petcare.app.domain.utils.conversor.AppointmentDtoConversor;
+import petcare.app.domain.utils.cursor.AppointmentCursor;
 import petcare.app.domain.utils.exceptions.ResourceNotFoundException;
+import petcare.app.domain.utils.exceptions.ScheduleConflictException;
 
 /** Controlador de citas veterinarias */
 @RestController
@@ -31,9 +49,27 @@ public class AppointmentController {
   /** Logger */
   private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentController.class);
 
+  /** Tamaño máximo de página permitido en la paginación por cursor */
+  private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+  /** Número máximo de citas permitidas en una creación masiva */
+  private static final int MAX_BULK_SIZE = 5000;
+
+  /** Número máximo de huecos libres devueltos en una búsqueda */
+  private static final int MAX_FREE_SLOTS = 100;
+
+  /** Ventana de búsqueda de huecos libres por defecto */
+  private static final Duration DEFAULT_FREE_SLOT_WINDOW = Duration.ofDays(7);
+
   /** Servicio de gestión de citas */
   private IAppointmentService appointmentService;
 
+  /** Generador de respuestas NDJSON */
+  private NdjsonResponses ndjsonResponses;
+
+  /** Suscripciones a los cambios de las agendas */
+  private AgendaSubscriptions agendaSubscriptions;
+
   /**
    * Setter - IAppointmentService. Inyección de dependencias
    * 
@@ -44,6 +80,26 @@ public class AppointmentController {
     this.appointmentService = appointmentService;
   }
 
+  /**
+   * Setter - NdjsonResponses. Inyección de dependencias
+   * 
+   * @param ndjsonResponses Generador de respuestas NDJSON
+   */
+  @Autowired
+  public void setNdjsonResponses(NdjsonResponses ndjsonResponses) {
+    this.ndjsonResponses = ndjsonResponses;
+  }
+
+  /**
+   * Setter - AgendaSubscriptions. Inyección de dependencias
+   * 
+   * @param agendaSubscriptions Suscripciones a los cambios de las agendas
+   */
+  @Autowired
+  public void setAgendaSubscriptions(AgendaSubscriptions agendaSubscriptions) {
+    this.agendaSubscriptions = agendaSubscriptions;
+  }
+
   /**
    * GetMapping - Busca todas las citas asociadas con los animales relacionados directamente con el cliente aportado
    * 
@@ -93,11 +149,7 @@ public class AppointmentController {
 
     LocalDate parsedDate = LocalDate.parse(date);
 
-    return appointmentService
-        .findByVetIdAndDate(vetId, parsedDate, pageable)
-        .stream()
-        .map(AppointmentDtoConversor::toAppointmentDto)
-        .toList();
+    return appointmentService.findByVetIdAndDate(vetId, parsedDate, pageable);
   }
 
   /**
@@ -132,11 +184,135 @@ public class AppointmentController {
 
     LocalDate parsedDate = LocalDate.parse(date);
 
-    return appointmentService
-        .findByVetEntityIdAndDate(vetEntityId, parsedDate, pageable)
-        .stream()
-        .map(AppointmentDtoConversor::toAppointmentDto)
-        .toList();
+    return appointmentService.findByVetEntityIdAndDate(vetEntityId, parsedDate, pageable);
+  }
+
+  /**
+   * GetMapping - Busca, mediante paginación por cursor, las citas asociadas con los animales relacionados directamente
+   * con el cliente aportado. El coste de cada página es constante, independientemente de su profundidad
+   * 
+   * @param clientId ID del cliente
+   * @param cursor   Cursor devuelto en la página anterior. Si no se aporta, se obtiene la primera página
+   * @param size     Tamaño de la página
+   * @return ResponseEntity(CursorPageDto(AppointmentDto)) - Respuesta con la página solicitada y el cursor siguiente
+   */
+  @GetMapping("/find/client-id/{clientId}/cursor")
+  public ResponseEntity<CursorPageDto<AppointmentDto>> findByClientIdAfter(@PathVariable Long clientId,
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+
+    return findPage(cursor, size,
+        (appointmentCursor, pageSize) -> appointmentService.findByClientIdAfter(clientId, appointmentCursor, pageSize));
+  }
+
+  /**
+   * GetMapping - Busca, mediante paginación por cursor, las citas asociadas con un veterinario. El coste de cada página
+   * es constante, independientemente de su profundidad
+   * 
+   * @param vetId  ID del veterinario
+   * @param cursor Cursor devuelto en la página anterior. Si no se aporta, se obtiene la primera página
+   * @param size   Tamaño de la página
+   * @return ResponseEntity(CursorPageDto(AppointmentDto)) - Respuesta con la página solicitada y el cursor siguiente
+   */
+  @GetMapping("/find/vet-id/{vetId}/cursor")
+  public ResponseEntity<CursorPageDto<AppointmentDto>> findByVetIdAfter(@PathVariable Long vetId,
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+
+    return findPage(cursor, size,
+        (appointmentCursor, pageSize) -> appointmentService.findByVetIdAfter(vetId, appointmentCursor, pageSize));
+  }
+
+  /**
+   * GetMapping - Busca, mediante paginación por cursor, las citas asociadas con una entidad veterinaria. El coste de
+   * cada página es constante, independientemente de su profundidad
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param cursor      Cursor devuelto en la página anterior. Si no se aporta, se obtiene la primera página
+   * @param size        Tamaño de la página
+   * @return ResponseEntity(CursorPageDto(AppointmentDto)) - Respuesta con la página solicitada y el cursor siguiente
+   */
+  @GetMapping("/find/vet-entity-id/{vetEntityId}/cursor")
+  public ResponseEntity<CursorPageDto<AppointmentDto>> findByVetEntityIdAfter(@PathVariable Long vetEntityId,
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+
+    return findPage(cursor, size, (appointmentCursor, pageSize) -> appointmentService
+        .findByVetEntityIdAfter(vetEntityId, appointmentCursor, pageSize));
+  }
+
+  /**
+   * GetMapping - Exporta las citas no archivadas de una entidad veterinaria en formato NDJSON (una cita en formato JSON
+   * por línea), ordenadas por fecha: las futuras y las de los meses pasados que todavía no se han archivado. Las citas
+   * se escriben a medida que se leen de la base de datos
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @return ResponseEntity(StreamingResponseBody) - Respuesta con las citas en formato NDJSON
+   */
+  @GetMapping(value = "/export/vet-entity-id/{vetEntityId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportByVetEntityId(@PathVariable Long vetEntityId) {
+
+    return ndjsonResponses
+        .stream((Consumer<AppointmentDto> consumer) -> appointmentService.exportByVetEntityId(vetEntityId, consumer));
+  }
+
+  /**
+   * GetMapping - Suscribe al cliente a los cambios de la agenda de una entidad veterinaria mediante Server-Sent Events.
+   * Cada cita creada, modificada o eliminada se envía como un evento "appointment" una vez confirmado el cambio. El
+   * evento "resync" indica que deben volver a cargarse las agendas, al poder haberse perdido cambios
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @return ResponseEntity(SseEmitter) - Conexión de eventos, o error si no se admiten más suscriptores
+   */
+  @GetMapping(value = "/subscribe/vet-entity-id/{vetEntityId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> subscribe(@PathVariable Long vetEntityId) {
+
+    ResponseEntity<SseEmitter> result;
+
+    try {
+      result = ResponseEntity.ok(agendaSubscriptions.subscribe(vetEntityId));
+
+    } catch (IllegalStateException e) {
+
+      result = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+      LOGGER.error(e.getMessage());
+    }
+
+    return result;
+  }
+
+  /**
+   * GetMapping - Busca los primeros huecos libres de una entidad veterinaria entre todos sus veterinarios<br/>
+   * Las fechas aportadas deben encontrarse en formato 'yyyy-MM-ddTHH:mm:ss' y la duración en formato ISO-8601 (por
+   * ejemplo, 'PT45M'). En otro caso, se devolverá un error.
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param from        Fecha a partir de la cual se buscan huecos. Por defecto, el momento actual. Se ajusta al
+   *                    comienzo del primer hueco de la agenda a partir de ella
+   * @param to          Fecha en la que deben haber terminado los huecos. Por defecto, una semana después de from
+   * @param duration    Duración de los huecos buscados. Por defecto, la duración de una cita
+   * @param limit       Número máximo de huecos a devolver
+   * @return ResponseEntity(List(FreeSlotDto)) - Respuesta con los huecos libres ordenados por fecha
+   */
+  @GetMapping("/find/vet-entity-id/{vetEntityId}/free-slots")
+  public ResponseEntity<List<FreeSlotDto>> findFreeSlots(@PathVariable Long vetEntityId,
+      @RequestParam(required = false) String from, @RequestParam(required = false) String to,
+      @RequestParam(required = false) String duration, @RequestParam(defaultValue = "10") int limit) {
+
+    ResponseEntity<List<FreeSlotDto>> result;
+
+    try {
+      LocalDateTime parsedFrom = from == null ? LocalDateTime.now() : LocalDateTime.parse(from);
+      LocalDateTime parsedTo = to == null ? parsedFrom.plus(DEFAULT_FREE_SLOT_WINDOW) : LocalDateTime.parse(to);
+      Duration parsedDuration = duration == null ? null : Duration.parse(duration);
+
+      result = ResponseEntity.ok(appointmentService.findFreeSlots(vetEntityId, parsedFrom, parsedTo, parsedDuration,
+          Math.clamp(limit, 1, MAX_FREE_SLOTS)));
+
+    } catch (DateTimeParseException | IllegalArgumentException e) {
+
+      result = ResponseEntity.badRequest().build();
+      LOGGER.error(e.getMessage());
+    }
+
+    return result;
   }
 
   /**
@@ -159,6 +335,41 @@ public class AppointmentController {
 
       result = ResponseEntity.notFound().build();
       LOGGER.error(e.getMessage());
+
+      // La cita se solapa con otra del veterinario, detectado por el índice de agendas o por la base de datos
+    } catch (ScheduleConflictException | DataIntegrityViolationException e) {
+
+      result = ResponseEntity.status(HttpStatus.CONFLICT).build();
+      LOGGER.error(e.getMessage());
+    }
+
+    return result;
+  }
+
+  /**
+   * PostMapping - Almacena un conjunto de citas en el sistema. Cada cita se procesa de forma independiente, por lo que
+   * la respuesta indica, para cada una, la cita almacenada o el motivo por el que no se ha podido almacenar
+   * 
+   * @param appointmentDtos DTOs de las citas a almacenar
+   * @return ResponseEntity(List(BulkAppointmentResultDto)) - Respuesta con el resultado de cada cita
+   */
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkAppointmentResultDto>> saveAll(@RequestBody List<AppointmentDto> appointmentDtos) {
+
+    ResponseEntity<List<BulkAppointmentResultDto>> result;
+
+    if (appointmentDtos == null || appointmentDtos.isEmpty() || appointmentDtos.size() > MAX_BULK_SIZE) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    try {
+      result = ResponseEntity.ok(appointmentService.saveAll(appointmentDtos));
+
+      // Una petición concurrente ha ocupado alguno de los huecos. No se almacena ninguna cita
+    } catch (ScheduleConflictException | DataIntegrityViolationException e) {
+
+      result = ResponseEntity.status(HttpStatus.CONFLICT).build();
+      LOGGER.error(e.getMessage());
     }
 
     return result;
@@ -185,6 +396,12 @@ public class AppointmentController {
 
       result = ResponseEntity.notFound().build();
       LOGGER.error(e.getMessage());
+
+      // La cita se solapa con otra del veterinario, detectado por el índice de agendas o por la base de datos
+    } catch (ScheduleConflictException | DataIntegrityViolationException e) {
+
+      result = ResponseEntity.status(HttpStatus.CONFLICT).build();
+      LOGGER.error(e.getMessage());
     }
 
     return result;
@@ -217,4 +434,40 @@ public class AppointmentController {
 
   }
 
+  /**
+   * Obtiene una página de citas a partir del cursor aportado y genera el cursor de la página siguiente
+   * 
+   * @param cursor Cursor codificado de la página anterior
+   * @param size   Tamaño de página solicitado
+   * @param finder Consulta que obtiene las citas posteriores al cursor
+   * @return ResponseEntity(CursorPageDto(AppointmentDto)) - Respuesta con la página solicitada o error si el cursor no
+   *         es válido
+   */
+  private ResponseEntity<CursorPageDto<AppointmentDto>> findPage(String cursor, int size,
+      BiFunction<AppointmentCursor, Integer, List<Appointment>> finder) {
+
+    ResponseEntity<CursorPageDto<AppointmentDto>> result;
+
+    try {
+      int pageSize = Math.clamp(size, 1, MAX_CURSOR_PAGE_SIZE);
+      List<Appointment> appointments = finder.apply(AppointmentCursor.decode(cursor), pageSize);
+
+      // Sólo existe página siguiente si la actual está completa
+      String nextCursor = appointments.size() == pageSize
+          ? AppointmentCursor.of(appointments.get(appointments.size() - 1)).encode()
+          : null;
+
+      result = ResponseEntity
+          .ok(new CursorPageDto<>(appointments.stream().map(AppointmentDtoConversor::toAppointmentDto).toList(),
+              nextCursor));
+
+    } catch (IllegalArgumentException e) {
+
+      result = ResponseEntity.badRequest().build();
+      LOGGER.error(e.getMessage());
+    }
+
+    return result;
+  }
+
 }
@@ -16,12 +16,16 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import petcare.app.core.service.IPetService;
+import petcare.app.domain.dto.CursorPageDto;
 import petcare.app.domain.dto.PetDto;
+import petcare.app.domain.dto.TimelineEntryDto;
 import petcare.app.domain.entity.Pet;
 import petcare.app.domain.utils.conversor.PetDtoConversor;
+import petcare.app.domain.utils.cursor.TimelineCursor;
 import petcare.app.domain.utils.exceptions.ResourceNotFoundException;
 
 /** Controlador de gestión de mascotas */
@@ -31,6 +35,9 @@ public class PetController {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PetController.class);
 
+  /** Tamaño máximo de página permitido en el historial clínico */
+  private static final int MAX_TIMELINE_PAGE_SIZE = 100;
+
   /** Servicio de mascotas */
   private IPetService petService;
 
@@ -96,6 +103,43 @@ public class PetController {
         .toList();
   }
 
+  /**
+   * GetMapping - Obtiene, mediante paginación por cursor, el historial clínico de una mascota: sus citas y sus informes
+   * de visita en una única lista ordenada por fecha de forma descendente. El coste de cada página no depende de su
+   * profundidad
+   * 
+   * @param id     ID de la mascota
+   * @param cursor Cursor devuelto en la página anterior. Si no se aporta, se obtiene la primera página
+   * @param size   Tamaño de la página
+   * @return ResponseEntity(CursorPageDto(TimelineEntryDto)) - Respuesta con la página solicitada y el cursor
+   *         siguiente, o error si el cursor no es válido
+   */
+  @GetMapping("/{id}/timeline")
+  ResponseEntity<CursorPageDto<TimelineEntryDto>> findTimeline(@PathVariable Long id,
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+
+    ResponseEntity<CursorPageDto<TimelineEntryDto>> result;
+
+    try {
+      int pageSize = Math.clamp(size, 1, MAX_TIMELINE_PAGE_SIZE);
+      List<TimelineEntryDto> timeline = petService.findTimeline(id, TimelineCursor.decode(cursor), pageSize);
+
+      // Sólo existe página siguiente si la actual está completa
+      String nextCursor = timeline.size() == pageSize
+          ? TimelineCursor.of(timeline.get(timeline.size() - 1)).encode()
+          : null;
+
+      result = ResponseEntity.ok(new CursorPageDto<>(timeline, nextCursor));
+
+    } catch (IllegalArgumentException e) {
+
+      result = ResponseEntity.badRequest().build();
+      LOGGER.error(e.getMessage());
+    }
+
+    return result;
+  }
+
   /**
    * PostMapping - Almacena una nueva mascota en el sistema
    * 
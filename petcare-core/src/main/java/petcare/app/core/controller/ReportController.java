@@ -2,12 +2,14 @@ package petcare.app.core.controller;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,10 +18,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import petcare.app.core.controller.support.NdjsonResponses;
 import petcare.app.core.service.IReportService;
 import petcare.app.domain.dto.ReportDto;
+import petcare.app.domain.dto.ReportSummaryDto;
 import petcare.app.domain.entity.Report;
 import petcare.app.domain.utils.conversor.ReportDtoConversor;
 import petcare.app.domain.utils.exceptions.ResourceNotFoundException;
@@ -35,6 +41,9 @@ public class ReportController {
   /** Servicio de informes veterinarios */
   private IReportService reportService;
 
+  /** Generador de respuestas NDJSON */
+  private NdjsonResponses ndjsonResponses;
+
   /**
    * Setter - ReportService. Inyección de dependencias
    * 
@@ -45,6 +54,16 @@ public class ReportController {
     this.reportService = reportService;
   }
 
+  /**
+   * Setter - NdjsonResponses. Inyección de dependencias
+   * 
+   * @param ndjsonResponses Generador de respuestas NDJSON
+   */
+  @Autowired
+  public void setNdjsonResponses(NdjsonResponses ndjsonResponses) {
+    this.ndjsonResponses = ndjsonResponses;
+  }
+
   /**
    * Busca un informe dado su ID
    * 
@@ -142,6 +161,107 @@ public class ReportController {
         .toList();
   }
 
+  /**
+   * Lista los resúmenes de los informes referentes a una mascota. El informe completo se obtiene mediante
+   * /reports/find/{id}
+   * 
+   * @param petId    ID de la mascota
+   * @param pageable Sistema de paginación
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes encontrados
+   */
+  @GetMapping("/summary/pet-id/{petId}")
+  public List<ReportSummaryDto> findSummariesByPetId(@PathVariable Long petId, Pageable pageable) {
+
+    return reportService.findSummariesByPetId(petId, pageable);
+  }
+
+  /**
+   * Lista los resúmenes de los informes referentes a mascotas asociadas con el cliente aportado
+   * 
+   * @param clientId ID del cliente
+   * @param pageable Sistema de paginación
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes encontrados
+   */
+  @GetMapping("/summary/client-id/{clientId}")
+  public List<ReportSummaryDto> findSummariesByClientId(@PathVariable Long clientId, Pageable pageable) {
+
+    return reportService.findSummariesByClientId(clientId, pageable);
+  }
+
+  /**
+   * Lista los resúmenes de los informes referentes a mascotas asociadas con el cliente aportado
+   * 
+   * @param clientNationalIdDocument Documento nacional de identidad del cliente (NIF/NIE)
+   * @param pageable                 Sistema de paginación
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes encontrados
+   */
+  @GetMapping("/summary/client-national-id-document/{clientNationalIdDocument}")
+  public List<ReportSummaryDto> findSummariesByClientNationalIdDocument(@PathVariable String clientNationalIdDocument,
+      Pageable pageable) {
+
+    return reportService.findSummariesByClientNationalIdDocument(clientNationalIdDocument, pageable);
+  }
+
+  /**
+   * Lista los resúmenes de los informes emitidos por un veterinario
+   * 
+   * @param vetId    ID del veterinario
+   * @param pageable Sistema de paginación
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes encontrados
+   */
+  @GetMapping("/summary/vet-id/{vetId}")
+  public List<ReportSummaryDto> findSummariesByVetId(@PathVariable Long vetId, Pageable pageable) {
+
+    return reportService.findSummariesByVetId(vetId, pageable);
+  }
+
+  /**
+   * Lista los resúmenes de los informes emitidos por veterinarios de una entidad concreta
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param pageable    Sistema de paginación
+   * @return List(ReportSummaryDto) - Lista con los resúmenes de los informes encontrados
+   */
+  @GetMapping("/summary/vet-entity-id/{vetEntityId}")
+  public List<ReportSummaryDto> findSummariesByVetEntityId(@PathVariable Long vetEntityId, Pageable pageable) {
+
+    return reportService.findSummariesByVetEntityId(vetEntityId, pageable);
+  }
+
+  /**
+   * Busca, por relevancia, los informes de una entidad veterinaria cuyo motivo, diagnóstico o tratamiento contienen el
+   * texto aportado
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param query       Texto a buscar, por ejemplo "otitis" o "amoxicilina"
+   * @param pageable    Sistema de paginación
+   * @return List(ReportDto) - Lista con todos los informes encontrados
+   */
+  @GetMapping("/search/vet-entity-id/{vetEntityId}")
+  public List<ReportDto> searchByVetEntityId(@PathVariable Long vetEntityId, @RequestParam("q") String query,
+      Pageable pageable) {
+
+    return reportService
+        .searchByVetEntityId(vetEntityId, query, pageable)
+        .stream()
+        .map(ReportDtoConversor::toReportDto)
+        .toList();
+  }
+
+  /**
+   * Exporta todos los informes emitidos por los veterinarios de una entidad veterinaria en formato NDJSON (un informe
+   * en formato JSON por línea), ordenados por fecha. Los informes se escriben a medida que se leen de la base de datos
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @return ResponseEntity(StreamingResponseBody) - Respuesta con los informes en formato NDJSON
+   */
+  @GetMapping(value = "/export/vet-entity-id/{vetEntityId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportByVetEntityId(@PathVariable Long vetEntityId) {
+
+    return ndjsonResponses
+        .stream((Consumer<ReportDto> consumer) -> reportService.exportByVetEntityId(vetEntityId, consumer));
+  }
+
   /**
    * Almacena un nuevo informe en el sistema
    * 
@@ -8,9 +8,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import petcare.app.core.service.query.IVetEntityQueryService;
+import petcare.app.domain.dto.NameSuggestionDto;
 import petcare.app.domain.dto.VetEntityDto;
 import petcare.app.domain.entity.VetEntity;
 import petcare.app.domain.utils.conversor.VetEntityDtoConversor;
@@ -20,6 +22,9 @@ import petcare.app.domain.utils.conversor.VetEntityDtoConversor;
 @RequestMapping("/vet-entities-query")
 public class VetEntityQueryController {
 
+  /** Número máximo de sugerencias de autocompletado */
+  private static final int MAX_AUTOCOMPLETE_SIZE = 20;
+
   /** Servicio de consultas a entidades veterinarias */
   private IVetEntityQueryService vetEntityQueryService;
 
@@ -73,4 +78,19 @@ public class VetEntityQueryController {
 
   }
 
+  /**
+   * GetMapping - Autocompletado de entidades veterinarias por nombre, sin distinguir tildes ni mayúsculas y tolerando
+   * pequeñas erratas
+   * 
+   * @param query Texto escrito por el usuario
+   * @param size  Número máximo de sugerencias, hasta {@value #MAX_AUTOCOMPLETE_SIZE}
+   * @return List(NameSuggestionDto) - Sugerencias ordenadas por relevancia
+   */
+  @GetMapping("/autocomplete")
+  public List<NameSuggestionDto> autocompleteByName(@RequestParam("q") String query,
+      @RequestParam(defaultValue = "10") int size) {
+
+    return vetEntityQueryService.autocompleteByName(query, Math.clamp(size, 1, MAX_AUTOCOMPLETE_SIZE));
+  }
+
 }
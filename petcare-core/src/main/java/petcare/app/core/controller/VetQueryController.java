@@ -10,9 +10,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import petcare.app.core.service.query.IVetQueryService;
+import petcare.app.domain.dto.NameSuggestionDto;
 import petcare.app.domain.dto.VetDto;
 import petcare.app.domain.entity.Vet;
 import petcare.app.domain.utils.conversor.VetDtoConversor;
@@ -24,6 +26,9 @@ public class VetQueryController {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(VetQueryController.class);
 
+  /** Número máximo de sugerencias de autocompletado */
+  private static final int MAX_AUTOCOMPLETE_SIZE = 20;
+
   /** Servicio de veterinarios */
   private IVetQueryService vetService;
 
@@ -96,4 +101,20 @@ public class VetQueryController {
     return vetService.findByVetEntityId(vetEntityId, pageable).stream().map(VetDtoConversor::toVetDto).toList();
   }
 
+  /**
+   * GetMapping - Autocompletado de veterinarios por nombre, sin distinguir tildes ni mayúsculas y tolerando pequeñas
+   * erratas
+   * 
+   * @param query       Texto escrito por el usuario
+   * @param vetEntityId ID de la entidad veterinaria a la que deben pertenecer. Opcional
+   * @param size        Número máximo de sugerencias, hasta {@value #MAX_AUTOCOMPLETE_SIZE}
+   * @return List(NameSuggestionDto) - Sugerencias ordenadas por relevancia
+   */
+  @GetMapping("/autocomplete")
+  public List<NameSuggestionDto> autocompleteByName(@RequestParam("q") String query,
+      @RequestParam(required = false) Long vetEntityId, @RequestParam(defaultValue = "10") int size) {
+
+    return vetService.autocompleteByName(query, vetEntityId, Math.clamp(size, 1, MAX_AUTOCOMPLETE_SIZE));
+  }
+
 }
@@ -0,0 +1,364 @@
+package petcare.app.core.controller.support;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import jakarta.annotation.PreDestroy;
+import petcare.app.core.service.change.AppointmentChange;
+import petcare.app.core.service.change.AppointmentChange.State;
+import petcare.app.core.service.change.AppointmentChangeResync;
+import petcare.app.domain.dto.AgendaEventDto;
+import petcare.app.domain.utils.ExceptionMessages;
+
+/**
+ * Suscripciones a los cambios de la agenda de las entidades veterinarias mediante Server-Sent Events.<br/>
+ * Cada cambio de cita confirmado, en esta o en otra instancia de petcare-core, se envía a los suscriptores de la
+ * entidad veterinaria anterior y de la nueva. Cada suscriptor dispone de una cola limitada de eventos pendientes que se
+ * vacía desde un hilo de envío propio. Si un suscriptor no consume sus eventos al ritmo al que se producen y su cola se
+ * llena, se da de baja y su hilo de envío cierra la conexión, de forma que un cliente lento nunca retiene memoria ni
+ * retrasa al resto.<br/>
+ * Los envíos y el cierre de un SseEmitter se sincronizan sobre el propio emisor, y un envío a un cliente que no lee
+ * queda bloqueado con el monitor adquirido. Por ello sólo los hilos de envío, y nunca los hilos que publican los
+ * eventos, llegan a utilizar el emisor. Son hilos de plataforma: un hilo virtual bloqueado dentro de un bloque
+ * synchronized retendría su hilo portador
+ */
+@Component
+public class AgendaSubscriptions {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(AgendaSubscriptions.class);
+
+  /** Nombre de los eventos de cambio de cita */
+  private static final String APPOINTMENT_EVENT = "appointment";
+
+  /** Nombre del evento que indica que el cliente debe volver a cargar la agenda completa */
+  private static final String RESYNC_EVENT = "resync";
+
+  /** Suscriptores de cada entidad veterinaria */
+  private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+  /** Número de suscriptores activos */
+  private final AtomicInteger subscriberCount = new AtomicInteger();
+
+  /** Hilos de envío de eventos. Como mucho hay un hilo por suscriptor, y sólo mientras tiene eventos pendientes */
+  private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "agenda-sender");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** Número máximo de suscriptores simultáneos */
+  private int maxSubscribers;
+
+  /** Número máximo de eventos pendientes de envío por suscriptor */
+  private int queueCapacity;
+
+  /** Duración máxima de una suscripción. El cliente debe volver a suscribirse al finalizar */
+  private Duration timeout;
+
+  /**
+   * Setter - Número máximo de suscriptores simultáneos
+   * 
+   * @param maxSubscribers Número máximo de suscriptores
+   */
+  @Value("${petcare.appointments.subscriptions.max-subscribers:2000}")
+  public void setMaxSubscribers(int maxSubscribers) {
+    this.maxSubscribers = maxSubscribers;
+  }
+
+  /**
+   * Setter - Número máximo de eventos pendientes de envío por suscriptor
+   * 
+   * @param queueCapacity Número máximo de eventos pendientes
+   */
+  @Value("${petcare.appointments.subscriptions.queue-capacity:256}")
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Setter - Duración máxima de una suscripción
+   * 
+   * @param timeout Duración máxima
+   */
+  @Value("${petcare.appointments.subscriptions.timeout:30m}")
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  /**
+   * Suscribe un nuevo cliente a la agenda de una entidad veterinaria
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @return SseEmitter - Conexión con el cliente
+   * @throws IllegalStateException Si se ha alcanzado el número máximo de suscriptores
+   */
+  public SseEmitter subscribe(Long vetEntityId) {
+
+    if (subscriberCount.incrementAndGet() > maxSubscribers) {
+
+      subscriberCount.decrementAndGet();
+      throw new IllegalStateException(String.format(ExceptionMessages.TOO_MANY_AGENDA_SUBSCRIBERS, maxSubscribers));
+    }
+
+    SseEmitter emitter = createEmitter(timeout.toMillis());
+    Subscriber subscriber = new Subscriber(vetEntityId, emitter);
+
+    subscribers.computeIfAbsent(vetEntityId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+    emitter.onCompletion(subscriber::remove);
+    emitter.onTimeout(subscriber::close);
+    emitter.onError(error -> subscriber.close());
+
+    return emitter;
+  }
+
+  /**
+   * Crea la conexión con un nuevo cliente
+   * 
+   * @param timeoutMillis Duración máxima de la suscripción, en milisegundos
+   * @return SseEmitter
+   */
+  SseEmitter createEmitter(long timeoutMillis) {
+    return new SseEmitter(timeoutMillis);
+  }
+
+  /**
+   * Envía un cambio de cita a los suscriptores de las entidades veterinarias afectadas
+   * 
+   * @param change Cambio de la cita
+   */
+  @EventListener
+  public void onChange(AppointmentChange change) {
+
+    AgendaEventDto agendaEvent = toAgendaEventDto(change);
+    Supplier<SseEventBuilder> event = () -> SseEmitter
+        .event()
+        .name(APPOINTMENT_EVENT)
+        .id(String.valueOf(change.appointmentId()))
+        .data(agendaEvent);
+
+    Long previousVetEntityId = change.previous() == null ? null : change.previous().vetEntityId();
+    Long currentVetEntityId = change.current() == null ? null : change.current().vetEntityId();
+
+    send(previousVetEntityId, event);
+
+    if (currentVetEntityId != null && !currentVetEntityId.equals(previousVetEntityId)) {
+      send(currentVetEntityId, event);
+    }
+  }
+
+  /**
+   * Indica a todos los suscriptores que deben volver a cargar su agenda, al poder haberse perdido cambios
+   * 
+   * @param resync Evento de resincronización
+   */
+  @EventListener
+  public void onResync(AppointmentChangeResync resync) {
+    broadcast(() -> SseEmitter.event().name(RESYNC_EVENT).data(""));
+  }
+
+  /** Envía un comentario a todos los suscriptores, de forma que se detectan las conexiones cerradas */
+  @Scheduled(fixedDelayString = "${petcare.appointments.subscriptions.heartbeat:PT15S}")
+  public void heartbeat() {
+    broadcast(() -> SseEmitter.event().comment("heartbeat"));
+  }
+
+  /** Cierra todas las suscripciones al detener la aplicación */
+  @PreDestroy
+  public void shutdown() {
+
+    subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+    senders.shutdown();
+  }
+
+  /**
+   * Envía un evento a los suscriptores de una entidad veterinaria
+   * 
+   * @param vetEntityId ID de la entidad veterinaria. Puede ser null
+   * @param event       Generador del evento a enviar
+   */
+  private void send(Long vetEntityId, Supplier<SseEventBuilder> event) {
+
+    if (vetEntityId != null) {
+      subscribers.getOrDefault(vetEntityId, Set.of()).forEach(subscriber -> subscriber.offer(event));
+    }
+  }
+
+  /**
+   * Envía un evento a todos los suscriptores
+   * 
+   * @param event Generador del evento a enviar
+   */
+  private void broadcast(Supplier<SseEventBuilder> event) {
+    subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(event)));
+  }
+
+  /**
+   * Convierte un cambio de cita en el evento enviado a los suscriptores
+   * 
+   * @param change Cambio de la cita
+   * @return AgendaEventDto
+   */
+  private AgendaEventDto toAgendaEventDto(AppointmentChange change) {
+
+    State previous = change.previous();
+    State current = change.current();
+
+    AgendaEventDto.Type type;
+
+    if (previous == null) {
+      type = AgendaEventDto.Type.CREATED;
+
+    } else if (current == null) {
+      type = AgendaEventDto.Type.DELETED;
+
+    } else {
+      type = AgendaEventDto.Type.UPDATED;
+    }
+
+    return new AgendaEventDto(type, change.appointmentId(), current == null ? null : current.vetId(),
+        current == null ? null : current.appointmentDate(), previous == null ? null : previous.vetId(),
+        previous == null ? null : previous.appointmentDate());
+  }
+
+  /** Cliente suscrito a la agenda de una entidad veterinaria */
+  private final class Subscriber {
+
+    /** ID de la entidad veterinaria */
+    private final Long vetEntityId;
+
+    /** Conexión con el cliente */
+    private final SseEmitter emitter;
+
+    /** Eventos pendientes de envío. Cada envío necesita su propio SseEventBuilder, por lo que se encolan generadores */
+    private final BlockingQueue<Supplier<SseEventBuilder>> queue;
+
+    /** Indica si existe un hilo enviando los eventos pendientes */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /** Indica si la suscripción ya ha sido eliminada */
+    private final AtomicBoolean removed = new AtomicBoolean();
+
+    /**
+     * Constructor
+     * 
+     * @param vetEntityId ID de la entidad veterinaria
+     * @param emitter     Conexión con el cliente
+     */
+    private Subscriber(Long vetEntityId, SseEmitter emitter) {
+
+      this.vetEntityId = vetEntityId;
+      this.emitter = emitter;
+      this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Encola un evento. Si la cola está llena, el cliente no consume al ritmo necesario y se da de baja la suscripción.
+     * El hilo que publica el evento nunca utiliza el emisor, que puede estar bloqueado por un envío en curso
+     * 
+     * @param event Generador del evento a enviar
+     */
+    private void offer(Supplier<SseEventBuilder> event) {
+
+      if (removed.get()) {
+        return;
+      }
+
+      if (!queue.offer(event)) {
+        LOGGER.warn("Suscriptor lento de la agenda de la entidad veterinaria {}. Se cierra la conexión", vetEntityId);
+        remove();
+      }
+
+      schedule();
+    }
+
+    /** Inicia un hilo de envío si no existe ninguno para la suscripción */
+    private void schedule() {
+
+      if (draining.compareAndSet(false, true)) {
+
+        try {
+          senders.execute(this::drain);
+
+        } catch (RejectedExecutionException e) {
+          // La aplicación se está deteniendo
+          draining.set(false);
+        }
+      }
+    }
+
+    /**
+     * Envía los eventos pendientes hasta vaciar la cola. Si la suscripción se ha dado de baja, cierra la conexión con
+     * el cliente. Tras el cierre el indicador de envío no se libera, de forma que no se inician más hilos
+     */
+    private void drain() {
+
+      do {
+        Supplier<SseEventBuilder> event;
+
+        while (!removed.get() && (event = queue.poll()) != null) {
+
+          try {
+            emitter.send(event.get());
+
+          } catch (IOException | IllegalStateException e) {
+            remove();
+          }
+        }
+
+        if (removed.get()) {
+          emitter.complete();
+          return;
+        }
+
+        draining.set(false);
+
+        // Un evento encolado o una baja justo antes de liberar el indicador deben atenderse desde este mismo hilo
+      } while ((!queue.isEmpty() || removed.get()) && draining.compareAndSet(false, true));
+    }
+
+    /** Da de baja la suscripción y cierra la conexión con el cliente desde un hilo de envío */
+    private void close() {
+
+      remove();
+      schedule();
+    }
+
+    /** Elimina la suscripción */
+    private void remove() {
+
+      if (removed.compareAndSet(false, true)) {
+
+        queue.clear();
+        subscriberCount.decrementAndGet();
+
+        subscribers.computeIfPresent(vetEntityId, (id, set) -> {
+          set.remove(this);
+          return set.isEmpty() ? null : set;
+        });
+      }
+    }
+  }
+
+}
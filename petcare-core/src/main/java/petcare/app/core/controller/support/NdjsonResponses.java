@@ -0,0 +1,60 @@
+package petcare.app.core.controller.support;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Genera respuestas en formato NDJSON (un objeto JSON por línea) que se escriben de forma incremental. Cada elemento se
+ * serializa y se envía en cuanto se produce, por lo que la respuesta nunca se mantiene completa en memoria
+ */
+@Component
+public class NdjsonResponses {
+
+  /** Serializador JSON de los elementos */
+  private ObjectWriter objectWriter;
+
+  /**
+   * Setter - ObjectMapper. Inyección de dependencias
+   * 
+   * @param objectMapper Mapper JSON configurado en la aplicación
+   */
+  @Autowired
+  public void setObjectMapper(ObjectMapper objectMapper) {
+    this.objectWriter = objectMapper.writer();
+  }
+
+  /**
+   * Genera una respuesta NDJSON a partir de un productor de elementos. El productor se ejecuta cuando comienza a
+   * escribirse la respuesta, fuera del hilo de la petición, y entrega cada elemento al consumidor aportado
+   * 
+   * @param <T>      Tipo de los elementos
+   * @param producer Productor que recibe el consumidor de elementos
+   * @return ResponseEntity(StreamingResponseBody) - Respuesta NDJSON
+   */
+  public <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> producer) {
+
+    StreamingResponseBody body = outputStream -> producer.accept(element -> {
+
+      try {
+        outputStream.write(objectWriter.writeValueAsBytes(element));
+        outputStream.write('\n');
+
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+}
@@ -1,17 +1,47 @@
 package petcare.app.core.service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import petcare.app.core.service.cache.AgendaCache;
+import petcare.app.core.service.cache.AgendaCache.AgendaKey;
+import petcare.app.core.service.change.AppointmentChange;
+import petcare.app.core.service.change.AppointmentChange.State;
+import petcare.app.core.service.change.AppointmentChangeFeed;
+import petcare.app.core.service.schedule.FreeSlotFinder;
+import petcare.app.core.service.schedule.VetScheduleIndex;
+import petcare.app.core.service.schedule.VetScheduleIndex.Slot;
 import petcare.app.domain.dto.AppointmentDto;
+import petcare.app.domain.dto.BulkAppointmentResultDto;
+import petcare.app.domain.dto.FreeSlotDto;
+import petcare.app.domain.dto.simple.ClientDtoSimple;
+import petcare.app.domain.dto.simple.PetDtoSimple;
+import petcare.app.domain.dto.simple.VetDtoSimple;
 import petcare.app.domain.entity.Appointment;
 import petcare.app.domain.entity.Client;
 import petcare.app.domain.entity.Pet;
@@ -22,12 +52,20 @@ import petcare.app.domain.repository.PetRepository;
 import petcare.app.domain.repository.VetRepository;
 import petcare.app.domain.utils.ExceptionMessages;
 import petcare.app.domain.utils.conversor.AppointmentDtoConversor;
+import petcare.app.domain.utils.cursor.AppointmentCursor;
 import petcare.app.domain.utils.exceptions.ResourceNotFoundException;
+import petcare.app.domain.utils.exceptions.ScheduleConflictException;
 
 /** Implementación del servicio de gestión de citas */
 @Service
 public class AppointmentServiceImpl implements IAppointmentService {
 
+  /** Número de citas exportadas tras el que se vacía el contexto de persistencia */
+  private static final int EXPORT_CLEAR_INTERVAL = 500;
+
+  /** Contexto de persistencia */
+  private EntityManager entityManager;
+
   /** Repositorio de citas veterinarias */
   private AppointmentRepository appointmentRepository;
 
@@ -40,6 +78,25 @@ public class AppointmentServiceImpl implements IAppointmentService {
   /** Repositorio de veterinarios */
   private VetRepository vetRepository;
 
+  /** Índice de agendas de los veterinarios */
+  private VetScheduleIndex scheduleIndex;
+
+  /** Caché de agendas diarias */
+  private AgendaCache agendaCache;
+
+  /** Canal de cambios de citas */
+  private AppointmentChangeFeed changeFeed;
+
+  /**
+   * Setter - EntityManager. Inyección de dependencias
+   * 
+   * @param entityManager Contexto de persistencia
+   */
+  @PersistenceContext
+  public void setEntityManager(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
   /**
    * Setter - AppointmentRepository. Inyección de dependencias
    * 
@@ -80,6 +137,36 @@ public class AppointmentServiceImpl implements IAppointmentService {
     this.vetRepository = vetRepository;
   }
 
+  /**
+   * Setter - VetScheduleIndex. Inyección de dependencias
+   * 
+   * @param scheduleIndex Índice de agendas de los veterinarios
+   */
+  @Autowired
+  public void setScheduleIndex(VetScheduleIndex scheduleIndex) {
+    this.scheduleIndex = scheduleIndex;
+  }
+
+  /**
+   * Setter - AgendaCache. Inyección de dependencias
+   * 
+   * @param agendaCache Caché de agendas diarias
+   */
+  @Autowired
+  public void setAgendaCache(AgendaCache agendaCache) {
+    this.agendaCache = agendaCache;
+  }
+
+  /**
+   * Setter - AppointmentChangeFeed. Inyección de dependencias
+   * 
+   * @param changeFeed Canal de cambios de citas
+   */
+  @Autowired
+  public void setChangeFeed(AppointmentChangeFeed changeFeed) {
+    this.changeFeed = changeFeed;
+  }
+
   @Override
   @Transactional(readOnly = true)
   public List<Appointment> findByClientId(Long clientId, Pageable pageable) {
@@ -96,13 +183,20 @@ public class AppointmentServiceImpl implements IAppointmentService {
 
   @Override
   @Transactional(readOnly = true)
-  public List<Appointment> findByVetIdAndDate(Long vetId, LocalDate date, Pageable pageable) {
+  public List<AppointmentDto> findByVetIdAndDate(Long vetId, LocalDate date, Pageable pageable) {
 
     // LocalDateTime entre el comienzo del día y el final del mismo día para obtener todas las citas del día completo
     LocalDateTime startOfDay = date.atStartOfDay();
     LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
 
-    return appointmentRepository.findByVetIdAndDay(vetId, startOfDay, endOfDay, pageable);
+    // Se almacena la agenda completa del día, independientemente de la página solicitada
+    List<AppointmentDto> agenda = agendaCache.get(AgendaKey.ofVet(vetId, date), key -> appointmentRepository
+        .findByVetIdAndDay(vetId, startOfDay, endOfDay, Pageable.unpaged())
+        .stream()
+        .map(AppointmentDtoConversor::toAppointmentDto)
+        .toList());
+
+    return page(agenda, pageable);
   }
 
   @Override
@@ -114,18 +208,97 @@ public class AppointmentServiceImpl implements IAppointmentService {
 
   @Override
   @Transactional(readOnly = true)
-  public List<Appointment> findByVetEntityIdAndDate(Long vetEntityId, LocalDate date, Pageable pageable) {
+  public List<AppointmentDto> findByVetEntityIdAndDate(Long vetEntityId, LocalDate date, Pageable pageable) {
 
     // LocalDateTime entre el comienzo del día y el final del mismo día para obtener todas las citas del día completo
     LocalDateTime startOfDay = date.atStartOfDay();
     LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
 
-    return appointmentRepository.findByVetEntityIdAndDay(vetEntityId, startOfDay, endOfDay, pageable);
+    // Se almacena la agenda completa del día, independientemente de la página solicitada
+    List<AppointmentDto> agenda = agendaCache.get(AgendaKey.ofVetEntity(vetEntityId, date),
+        key -> appointmentRepository
+            .findByVetEntityIdAndDay(vetEntityId, startOfDay, endOfDay, Pageable.unpaged())
+            .stream()
+            .map(AppointmentDtoConversor::toAppointmentDto)
+            .toList());
+
+    return page(agenda, pageable);
   }
 
   @Override
-  @Transactional
-  public AppointmentDto save(AppointmentDto appointmentDto) throws ResourceNotFoundException {
+  @Transactional(readOnly = true)
+  public List<Appointment> findByClientIdAfter(Long clientId, AppointmentCursor cursor, int size) {
+
+    return appointmentRepository
+        .findByClientIdAfter(clientId, cursor.getAppointmentDate(), cursor.getId(), PageRequest.ofSize(size));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Appointment> findByVetIdAfter(Long vetId, AppointmentCursor cursor, int size) {
+
+    return appointmentRepository
+        .findByVetIdAfter(vetId, cursor.getAppointmentDate(), cursor.getId(), PageRequest.ofSize(size));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Appointment> findByVetEntityIdAfter(Long vetEntityId, AppointmentCursor cursor, int size) {
+
+    return appointmentRepository
+        .findByVetEntityIdAfter(vetEntityId, cursor.getAppointmentDate(), cursor.getId(), PageRequest.ofSize(size));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public void exportByVetEntityId(Long vetEntityId, Consumer<AppointmentDto> consumer) {
+
+    try (Stream<Appointment> appointments = appointmentRepository.streamByVetEntityId(vetEntityId)) {
+
+      int count = 0;
+      for (Appointment appointment : (Iterable<Appointment>) appointments::iterator) {
+
+        consumer.accept(AppointmentDtoConversor.toAppointmentDto(appointment));
+
+        // Se vacía periódicamente el contexto de persistencia para que no retenga las citas ya exportadas
+        if (++count % EXPORT_CLEAR_INTERVAL == 0) {
+          entityManager.clear();
+        }
+      }
+    }
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<FreeSlotDto> findFreeSlots(Long vetEntityId, LocalDateTime from, LocalDateTime to, Duration duration,
+      int limit) {
+
+    Duration slotDuration = scheduleIndex.getSlotDuration();
+    Duration freeSlotDuration = duration == null ? slotDuration : duration;
+
+    if (!from.isBefore(to) || freeSlotDuration.isNegative() || freeSlotDuration.isZero()) {
+      throw new IllegalArgumentException(String.format(ExceptionMessages.INVALID_FREE_SLOT_WINDOW, from, to));
+    }
+
+    // Todos los veterinarios de la clínica participan, aunque no tengan ninguna cita en la ventana
+    Map<Long, List<LocalDateTime>> busyByVet = new LinkedHashMap<>();
+    vetRepository.findIdsByVetEntityId(vetEntityId).forEach(vetId -> busyByVet.put(vetId, new ArrayList<>()));
+
+    // Se incluyen las citas que comienzan antes de la ventana pero aún la ocupan. Llegan ordenadas por veterinario y
+    // fecha, por lo que cada lista queda ordenada
+    appointmentRepository
+        .findSlotsByVetEntityIdBetween(vetEntityId, from.minus(slotDuration), to)
+        .forEach(slot -> busyByVet
+            .computeIfAbsent(slot.getVetId(), vetId -> new ArrayList<>())
+            .add(slot.getAppointmentDate()));
+
+    return FreeSlotFinder.findFirst(busyByVet, from, to, slotDuration, freeSlotDuration, limit);
+  }
+
+  @Override
+  @Transactional(rollbackFor = ScheduleConflictException.class)
+  public AppointmentDto save(AppointmentDto appointmentDto)
+      throws ResourceNotFoundException, ScheduleConflictException {
 
     Appointment appointment = AppointmentDtoConversor.toAppointment(appointmentDto);
 
@@ -147,21 +320,82 @@ public class AppointmentServiceImpl implements IAppointmentService {
         .orElseThrow(() -> new ResourceNotFoundException(
             String.format(ExceptionMessages.CLIENT_NOT_FOUND_BY_ID, appointmentDto.getClientDtoSimple().getId())));
 
-    // Se actualizan vet, pet y client
-    pet.getAppointments().add(appointment);
-
+    // Se asignan vet, pet y client. Sólo se mantiene el lado propietario de las relaciones, de forma que no se carga
+    // el historial de citas de la mascota
     appointment.setVet(vet);
     appointment.setPet(pet);
     appointment.setClient(client);
 
     Appointment savedAppointment = appointmentRepository.save(appointment);
 
+    // Se reserva el hueco en la agenda del veterinario. Si la transacción no llega a confirmarse, se libera
+    Slot slot = reserveSlot(savedAppointment);
+    afterCompletion(null, slot);
+
+    changeFeed.publish(new AppointmentChange(savedAppointment.getId(), null, State.of(savedAppointment)));
+
     return AppointmentDtoConversor.toAppointmentDto(savedAppointment);
   }
 
   @Override
-  @Transactional
-  public AppointmentDto update(AppointmentDto appointmentDto, Long id) throws ResourceNotFoundException {
+  @Transactional(rollbackFor = ScheduleConflictException.class)
+  public List<BulkAppointmentResultDto> saveAll(List<AppointmentDto> appointmentDtos)
+      throws ScheduleConflictException {
+
+    // Se obtienen todos los veterinarios, mascotas y clientes referenciados con una única consulta por tipo
+    Map<Long, Vet> vets = findAllById(vetRepository, appointmentDtos, dto -> dto.getVetDtoSimple(),
+        VetDtoSimple::getId, Vet::getId);
+    Map<Long, Pet> pets = findAllById(petRepository, appointmentDtos, dto -> dto.getPetDtoSimple(),
+        PetDtoSimple::getId, Pet::getId);
+    Map<Long, Client> clients = findAllById(clientRepository, appointmentDtos, dto -> dto.getClientDtoSimple(),
+        ClientDtoSimple::getId, Client::getId);
+
+    List<BulkAppointmentResultDto> results = new ArrayList<>(appointmentDtos.size());
+
+    for (int i = 0; i < appointmentDtos.size(); i++) {
+
+      AppointmentDto appointmentDto = appointmentDtos.get(i);
+      String error = validate(appointmentDto, vets, pets, clients);
+
+      if (error != null) {
+        results.add(new BulkAppointmentResultDto(i, null, error));
+        continue;
+      }
+
+      Appointment appointment = AppointmentDtoConversor.toAppointment(appointmentDto);
+
+      appointment.setId(null);
+      appointment.setVet(vets.get(appointmentDto.getVetDtoSimple().getId()));
+      appointment.setPet(pets.get(appointmentDto.getPetDtoSimple().getId()));
+      appointment.setClient(clients.get(appointmentDto.getClientDtoSimple().getId()));
+
+      // Las citas que se solapan con otra, incluidas las anteriores de la misma petición, se descartan de forma
+      // individual
+      if (!isAvailable(toSlot(appointment))) {
+        results.add(new BulkAppointmentResultDto(i, null, String
+            .format(ExceptionMessages.APPOINTMENT_SLOT_NOT_AVAILABLE, appointment.getVet().getId(),
+                appointment.getAppointmentDate())));
+        continue;
+      }
+
+      // El ID se obtiene de la secuencia sin insertar la fila. Las inserciones se envían en lotes al finalizar
+      Appointment savedAppointment = appointmentRepository.save(appointment);
+
+      Slot slot = reserveSlot(savedAppointment);
+      afterCompletion(null, slot);
+
+      changeFeed.publish(new AppointmentChange(savedAppointment.getId(), null, State.of(savedAppointment)));
+
+      results.add(new BulkAppointmentResultDto(i, AppointmentDtoConversor.toAppointmentDto(savedAppointment), null));
+    }
+
+    return results;
+  }
+
+  @Override
+  @Transactional(rollbackFor = ScheduleConflictException.class)
+  public AppointmentDto update(AppointmentDto appointmentDto, Long id)
+      throws ResourceNotFoundException, ScheduleConflictException {
 
     Optional<Appointment> optSavedAppointment = appointmentRepository.findById(id);
 
@@ -169,6 +403,8 @@ public class AppointmentServiceImpl implements IAppointmentService {
     if (optSavedAppointment.isPresent()) {
 
       Appointment foundAppointment = optSavedAppointment.get();
+      Slot previousSlot = toSlot(foundAppointment);
+      State previousState = State.of(foundAppointment);
 
       foundAppointment.setAppointmentDate(appointmentDto.getAppointmentDate());
 
@@ -190,15 +426,20 @@ public class AppointmentServiceImpl implements IAppointmentService {
           .orElseThrow(() -> new ResourceNotFoundException(
               String.format(ExceptionMessages.CLIENT_NOT_FOUND_BY_ID, appointmentDto.getClientDtoSimple().getId())));
 
-      // Se almacenan todos los atributos y se guardan los datos
-      pet.getAppointments().add(foundAppointment);
-
+      // Se almacenan todos los atributos y se guardan los datos. Sólo se mantiene el lado propietario de las relaciones
       foundAppointment.setVet(vet);
       foundAppointment.setPet(pet);
       foundAppointment.setClient(client);
 
       Appointment modifiedAppointment = appointmentRepository.save(foundAppointment);
 
+      // Se reserva el nuevo hueco. El anterior sólo se libera una vez confirmada la modificación
+      Slot slot = reserveSlot(modifiedAppointment);
+      afterCompletion(previousSlot, slot);
+
+      // Se notifican el estado anterior y el nuevo, que pueden corresponder a días o veterinarios distintos
+      changeFeed.publish(new AppointmentChange(id, previousState, State.of(modifiedAppointment)));
+
       return AppointmentDtoConversor.toAppointmentDto(modifiedAppointment);
 
       // Se lanza la excepción si no se encuentra la mascota
@@ -216,17 +457,14 @@ public class AppointmentServiceImpl implements IAppointmentService {
     // Se elimina si se encuentra la cita. Sino, se lanza excepción
     if (optSavedAppointment.isPresent()) {
 
-      // Se elimina la cita del resto de relaciones
       Appointment appointment = optSavedAppointment.get();
 
-      Pet pet = appointment.getPet();
-      pet.getAppointments().remove(appointment);
-
-      // Se almacenan de nuevo las entidades sin la cita
-      petRepository.save(pet);
+      // Se elimina la cita y se libera su hueco en la agenda una vez confirmada la eliminación. La relación reside en
+      // la cita, por lo que no es necesario cargar las citas de la mascota
+      appointmentRepository.delete(appointment);
+      afterCompletion(toSlot(appointment), null);
 
-      // Se elimina la cita
-      appointmentRepository.deleteById(id);
+      changeFeed.publish(new AppointmentChange(id, State.of(appointment), null));
 
     } else {
       throw new ResourceNotFoundException(String.format(ExceptionMessages.APPOINTMENT_NOT_FOUND_BY_ID, id));
@@ -234,4 +472,199 @@ public class AppointmentServiceImpl implements IAppointmentService {
 
   }
 
+  /**
+   * Obtiene la página solicitada de una agenda completa
+   * 
+   * @param agenda   Agenda completa del día
+   * @param pageable Sistema de paginación
+   * @return List(AppointmentDto) - Citas de la página solicitada
+   */
+  private List<AppointmentDto> page(List<AppointmentDto> agenda, Pageable pageable) {
+
+    if (pageable.isUnpaged()) {
+      return agenda;
+    }
+
+    int from = (int) Math.min(pageable.getOffset(), agenda.size());
+    int to = Math.min(from + pageable.getPageSize(), agenda.size());
+
+    return agenda.subList(from, to);
+  }
+
+  /**
+   * Reserva en el índice de agendas el hueco que ocupa la cita.<br/>
+   * El índice es local a cada instancia, por lo que la cita con la que se solapa puede haber sido eliminada o movida
+   * desde otra instancia. En ese caso, se comprueba contra la base de datos y se descarta la reserva obsoleta. Las
+   * reservas de transacciones aún en curso siempre se consideran válidas
+   * 
+   * @param appointment Cita ya almacenada
+   * @return Slot - Hueco reservado, o null si la cita no tiene veterinario o fecha
+   * @throws ScheduleConflictException Si el hueco se solapa con otra cita del mismo veterinario
+   */
+  private Slot reserveSlot(Appointment appointment) throws ScheduleConflictException {
+
+    Slot slot = toSlot(appointment);
+
+    if (slot != null) {
+
+      Slot conflict = scheduleIndex.reserve(slot.vetId(), slot.start(), slot.appointmentId());
+
+      while (conflict != null) {
+
+        if (scheduleIndex.isPending(conflict.appointmentId()) || !isStale(conflict)) {
+          throw new ScheduleConflictException(
+              String.format(ExceptionMessages.APPOINTMENT_SLOT_NOT_AVAILABLE, slot.vetId(), slot.start()));
+        }
+
+        scheduleIndex.release(conflict.vetId(), conflict.start(), conflict.appointmentId());
+        conflict = scheduleIndex.reserve(slot.vetId(), slot.start(), slot.appointmentId());
+      }
+    }
+
+    return slot;
+  }
+
+  /**
+   * Comprueba en el índice de agendas, sin reservarlo, si el hueco está libre. Las reservas obsoletas se descartan de
+   * la misma forma que en {@link #reserveSlot(Appointment)}
+   * 
+   * @param slot Hueco que ocupará la cita
+   * @return boolean - true si el hueco no se solapa con ninguna otra cita
+   */
+  private boolean isAvailable(Slot slot) {
+
+    Slot conflict = scheduleIndex.check(slot.vetId(), slot.start(), slot.appointmentId());
+
+    while (conflict != null) {
+
+      if (scheduleIndex.isPending(conflict.appointmentId()) || !isStale(conflict)) {
+        return false;
+      }
+
+      scheduleIndex.release(conflict.vetId(), conflict.start(), conflict.appointmentId());
+      conflict = scheduleIndex.check(slot.vetId(), slot.start(), slot.appointmentId());
+    }
+
+    return true;
+  }
+
+  /**
+   * Comprueba que la cita de una creación masiva indica todos sus datos y que los recursos referenciados existen
+   * 
+   * @param appointmentDto Cita en formato DTO
+   * @param vets           Veterinarios referenciados por la petición
+   * @param pets           Mascotas referenciadas por la petición
+   * @param clients        Clientes referenciados por la petición
+   * @return String - Mensaje de error, o null si la cita es válida
+   */
+  private String validate(AppointmentDto appointmentDto, Map<Long, Vet> vets, Map<Long, Pet> pets,
+      Map<Long, Client> clients) {
+
+    String error = null;
+
+    if (appointmentDto == null || appointmentDto.getAppointmentDate() == null
+        || appointmentDto.getVetDtoSimple() == null || appointmentDto.getVetDtoSimple().getId() == null
+        || appointmentDto.getPetDtoSimple() == null || appointmentDto.getPetDtoSimple().getId() == null
+        || appointmentDto.getClientDtoSimple() == null || appointmentDto.getClientDtoSimple().getId() == null) {
+      error = ExceptionMessages.APPOINTMENT_INCOMPLETE;
+
+    } else if (!vets.containsKey(appointmentDto.getVetDtoSimple().getId())) {
+      error = String.format(ExceptionMessages.VET_NOT_FOUND_BY_ID, appointmentDto.getVetDtoSimple().getId());
+
+    } else if (!pets.containsKey(appointmentDto.getPetDtoSimple().getId())) {
+      error = String.format(ExceptionMessages.PET_NOT_FOUND_BY_ID, appointmentDto.getPetDtoSimple().getId());
+
+    } else if (!clients.containsKey(appointmentDto.getClientDtoSimple().getId())) {
+      error = String.format(ExceptionMessages.CLIENT_NOT_FOUND_BY_ID, appointmentDto.getClientDtoSimple().getId());
+    }
+
+    return error;
+  }
+
+  /**
+   * Obtiene con una única consulta todas las entidades de un tipo referenciadas por las citas aportadas
+   * 
+   * @param <D>             Tipo del DTO simple que referencia a la entidad
+   * @param <E>             Tipo de la entidad
+   * @param repository      Repositorio de la entidad
+   * @param appointmentDtos Citas en formato DTO
+   * @param reference       Obtiene el DTO simple referenciado por la cita
+   * @param referenceId     Obtiene el ID del DTO simple
+   * @param entityId        Obtiene el ID de la entidad
+   * @return Map(Long, E) - Entidades encontradas, indexadas por su ID
+   */
+  private <D, E> Map<Long, E> findAllById(CrudRepository<E, Long> repository, List<AppointmentDto> appointmentDtos,
+      Function<AppointmentDto, D> reference, Function<D, Long> referenceId, Function<E, Long> entityId) {
+
+    Set<Long> ids = appointmentDtos
+        .stream()
+        .filter(Objects::nonNull)
+        .map(reference)
+        .filter(Objects::nonNull)
+        .map(referenceId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+
+    return ids.isEmpty()
+        ? Map.of()
+        : StreamSupport
+            .stream(repository.findAllById(ids).spliterator(), false)
+            .collect(Collectors.toMap(entityId, Function.identity()));
+  }
+
+  /**
+   * Comprueba si una reserva del índice ya no se corresponde con la cita almacenada en la base de datos
+   * 
+   * @param slot Hueco reservado en el índice
+   * @return boolean - true si la cita no existe o ha cambiado de veterinario o fecha
+   */
+  private boolean isStale(Slot slot) {
+
+    return appointmentRepository
+        .findById(slot.appointmentId())
+        .map(this::toSlot)
+        .map(stored -> !stored.equals(slot))
+        .orElse(true);
+  }
+
+  /**
+   * Registra la actualización del índice de agendas al finalizar la transacción actual. Si se confirma, se libera el
+   * hueco anterior. Si se deshace, se libera el nuevo. En ambos casos, la reserva deja de estar pendiente
+   * 
+   * @param previousSlot Hueco que ocupaba la cita antes de la operación. Puede ser null
+   * @param slot         Hueco que ocupa la cita tras la operación. Puede ser null
+   */
+  private void afterCompletion(Slot previousSlot, Slot slot) {
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+      @Override
+      public void afterCompletion(int status) {
+
+        Slot released = status == STATUS_COMMITTED ? previousSlot : slot;
+
+        if (released != null && !released.equals(status == STATUS_COMMITTED ? slot : previousSlot)) {
+          scheduleIndex.release(released.vetId(), released.start(), released.appointmentId());
+        }
+
+        if (slot != null) {
+          scheduleIndex.confirm(slot.appointmentId());
+        }
+      }
+    });
+  }
+
+  /**
+   * Obtiene el hueco de agenda que ocupa una cita
+   * 
+   * @param appointment Cita veterinaria
+   * @return Slot - Hueco ocupado, o null si la cita no tiene veterinario o fecha
+   */
+  private Slot toSlot(Appointment appointment) {
+
+    return appointment.getVet() == null || appointment.getAppointmentDate() == null
+        ? null
+        : new Slot(appointment.getVet().getId(), appointment.getAppointmentDate(), appointment.getId());
+  }
+
 }
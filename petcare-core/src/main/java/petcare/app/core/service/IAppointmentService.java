@@ -1,15 +1,22 @@
 package petcare.app.core.service;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import petcare.app.domain.dto.AppointmentDto;
+import petcare.app.domain.dto.BulkAppointmentResultDto;
+import petcare.app.domain.dto.FreeSlotDto;
 import petcare.app.domain.entity.Appointment;
+import petcare.app.domain.utils.cursor.AppointmentCursor;
 import petcare.app.domain.utils.exceptions.ResourceNotFoundException;
+import petcare.app.domain.utils.exceptions.ScheduleConflictException;
 
 /** Interfaz de servicio de citas veterinarias */
 @Service
@@ -36,15 +43,16 @@ public interface IAppointmentService {
   List<Appointment> findByVetId(Long vetId, Pageable pageable);
 
   /**
-   * Busca todas las citas asignadas a un veterinario en el día proporcionado
+   * Busca todas las citas asignadas a un veterinario en el día proporcionado. La agenda del día se obtiene de la caché
+   * de agendas, por lo que se devuelve directamente en formato DTO
    * 
    * @param vetId    ID del veterinario
    * @param date     Fecha en la que buscar las citas
    * @param pageable Sistema de paginación
-   * @return List(Appointment) - Lista con las citas solicitadas
+   * @return List(AppointmentDto) - Lista con las citas solicitadas en formato DTO
    */
   @Transactional(readOnly = true)
-  List<Appointment> findByVetIdAndDate(Long vetId, LocalDate date, Pageable pageable);
+  List<AppointmentDto> findByVetIdAndDate(Long vetId, LocalDate date, Pageable pageable);
 
   /**
    * Busca todas las citas próximas asignadas a una entidad veterinaria
@@ -57,15 +65,77 @@ public interface IAppointmentService {
   List<Appointment> findByVetEntityId(Long vetEntityId, Pageable pageable);
 
   /**
-   * Busca todas las citas próximas asignadas a una entidad veterinaria en el día proporcionado
+   * Busca todas las citas próximas asignadas a una entidad veterinaria en el día proporcionado. La agenda del día se
+   * obtiene de la caché de agendas, por lo que se devuelve directamente en formato DTO
    * 
    * @param vetEntityId ID de la entidad veterinaria
    * @param date        Fecha en la que buscar las citas
    * @param pageable    Sistema de paginación
+   * @return List(AppointmentDto) - Lista con las citas solicitadas en formato DTO
+   */
+  @Transactional(readOnly = true)
+  List<AppointmentDto> findByVetEntityIdAndDate(Long vetEntityId, LocalDate date, Pageable pageable);
+
+  /**
+   * Busca, mediante paginación por cursor, las citas próximas de mascotas asociadas con un cliente
+   * 
+   * @param clientId ID del cliente o usuario
+   * @param cursor   Cursor que apunta a la última cita de la página anterior
+   * @param size     Tamaño de la página
+   * @return List(Appointment) - Lista con las citas solicitadas
+   */
+  @Transactional(readOnly = true)
+  List<Appointment> findByClientIdAfter(Long clientId, AppointmentCursor cursor, int size);
+
+  /**
+   * Busca, mediante paginación por cursor, las citas próximas asignadas a un veterinario
+   * 
+   * @param vetId  ID del veterinario
+   * @param cursor Cursor que apunta a la última cita de la página anterior
+   * @param size   Tamaño de la página
+   * @return List(Appointment) - Lista con las citas solicitadas
+   */
+  @Transactional(readOnly = true)
+  List<Appointment> findByVetIdAfter(Long vetId, AppointmentCursor cursor, int size);
+
+  /**
+   * Busca, mediante paginación por cursor, las citas próximas asignadas a una entidad veterinaria
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param cursor      Cursor que apunta a la última cita de la página anterior
+   * @param size        Tamaño de la página
    * @return List(Appointment) - Lista con las citas solicitadas
    */
   @Transactional(readOnly = true)
-  List<Appointment> findByVetEntityIdAndDate(Long vetEntityId, LocalDate date, Pageable pageable);
+  List<Appointment> findByVetEntityIdAfter(Long vetEntityId, AppointmentCursor cursor, int size);
+
+  /**
+   * Exporta las citas no archivadas de una entidad veterinaria, ordenadas por fecha: las futuras y las de los meses
+   * pasados que todavía no se han trasladado a appointment_archive (petcare.appointments.archive.retention-months). Las
+   * citas se leen de la base de datos de forma incremental y se entregan una a una al consumidor ya convertidas a DTO,
+   * por lo que el consumo de memoria no depende del número de citas
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param consumer    Consumidor de cada cita en formato DTO
+   */
+  @Transactional(readOnly = true)
+  void exportByVetEntityId(Long vetEntityId, Consumer<AppointmentDto> consumer);
+
+  /**
+   * Busca los primeros huecos libres de una entidad veterinaria entre todos sus veterinarios
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param from        Fecha a partir de la cual se buscan huecos. Se ajusta al comienzo del primer hueco de la agenda
+   *                    a partir de ella
+   * @param to          Fecha en la que deben haber terminado los huecos
+   * @param duration    Duración de los huecos buscados. Si es null, se usa la duración de una cita
+   * @param limit       Número máximo de huecos a devolver
+   * @return List(FreeSlotDto) - Lista con los huecos libres ordenados por fecha
+   * @throws IllegalArgumentException Si la ventana de búsqueda o la duración no son válidas
+   */
+  @Transactional(readOnly = true)
+  List<FreeSlotDto> findFreeSlots(Long vetEntityId, LocalDateTime from, LocalDateTime to, Duration duration,
+      int limit);
 
   /**
    * Almacena una nueva cita en el sistema
@@ -73,9 +143,22 @@ public interface IAppointmentService {
    * @param appointmentDto Cita a almacenar en formato DTO
    * @return AppointmentDto
    * @throws ResourceNotFoundException Si no se encuentra alguno de los recursos necesarios
+   * @throws ScheduleConflictException Si la cita se solapa con otra del mismo veterinario
    */
-  @Transactional
-  AppointmentDto save(AppointmentDto appointmentDto) throws ResourceNotFoundException;
+  @Transactional(rollbackFor = ScheduleConflictException.class)
+  AppointmentDto save(AppointmentDto appointmentDto) throws ResourceNotFoundException, ScheduleConflictException;
+
+  /**
+   * Almacena un conjunto de citas en el sistema. Los veterinarios, mascotas y clientes se obtienen con una única
+   * consulta por tipo y las citas se insertan en lotes. Las citas que no pueden almacenarse se indican en el resultado
+   * sin afectar al resto
+   * 
+   * @param appointmentDtos Citas a almacenar en formato DTO
+   * @return List(BulkAppointmentResultDto) - Resultado de cada cita, en el mismo orden de la petición
+   * @throws ScheduleConflictException Si otra petición concurrente ocupa el hueco de alguna cita tras comprobarlo
+   */
+  @Transactional(rollbackFor = ScheduleConflictException.class)
+  List<BulkAppointmentResultDto> saveAll(List<AppointmentDto> appointmentDtos) throws ScheduleConflictException;
 
   /**
    * Modifica una cita del sistema
@@ -84,9 +167,11 @@ public interface IAppointmentService {
    * @param id             ID de la cita a modificar
    * @return AppointmentDto - Cita modificada
    * @throws ResourceNotFoundException Si no se encuentra alguno de los recursos necesarios
+   * @throws ScheduleConflictException Si la cita se solapa con otra del mismo veterinario
    */
-  @Transactional
-  AppointmentDto update(AppointmentDto appointmentDto, Long id) throws ResourceNotFoundException;
+  @Transactional(rollbackFor = ScheduleConflictException.class)
+  AppointmentDto update(AppointmentDto appointmentDto, Long id)
+      throws ResourceNotFoundException, ScheduleConflictException;
 
   /**
    * Elimina una cita del sistema
@@ -7,7 +7,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import petcare.app.domain.dto.TimelineEntryDto;
 import petcare.app.domain.entity.Pet;
+import petcare.app.domain.utils.cursor.TimelineCursor;
 import petcare.app.domain.utils.exceptions.ResourceNotFoundException;
 
 /** Interfaz de servicio de mascotas */
@@ -44,6 +46,19 @@ public interface IPetService {
   @Transactional(readOnly = true)
   List<Pet> findByClientNationalIdDocument(String clientNationalIdDocument, Pageable pageable);
 
+  /**
+   * Obtiene una página del historial clínico de una mascota: sus citas y sus informes de visita, ordenados por fecha de
+   * forma descendente. Cada página se obtiene mezclando dos consultas por índice que leen, como máximo, una página de
+   * cada tipo de entrada a partir del cursor, por lo que su coste no depende de la profundidad de la página
+   * 
+   * @param petId  ID de la mascota
+   * @param cursor Cursor con la última entrada de la página anterior
+   * @param size   Tamaño de la página
+   * @return List(TimelineEntryDto) - Entradas del historial posteriores al cursor
+   */
+  @Transactional(readOnly = true)
+  List<TimelineEntryDto> findTimeline(Long petId, TimelineCursor cursor, int size);
+
   /**
    * Almacena una nueva mascota en el sistema
    * 
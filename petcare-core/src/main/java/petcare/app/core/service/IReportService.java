@@ -2,12 +2,14 @@ package petcare.app.core.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import petcare.app.domain.dto.ReportDto;
+import petcare.app.domain.dto.ReportSummaryDto;
 import petcare.app.domain.entity.Report;
 import petcare.app.domain.utils.exceptions.ResourceNotFoundException;
 
@@ -77,6 +79,80 @@ public interface IReportService {
   @Transactional(readOnly = true)
   List<Report> findByVetEntityId(Long vetEntityId, Pageable pageable);
 
+  /**
+   * Busca los resúmenes de los informes referentes a una mascota. Los resúmenes no incluyen el texto completo de los
+   * informes
+   * 
+   * @param petId    ID de la mascota
+   * @param pageable Sistema de paginación
+   * @return Lista con los resúmenes de los informes encontrados
+   */
+  @Transactional(readOnly = true)
+  List<ReportSummaryDto> findSummariesByPetId(Long petId, Pageable pageable);
+
+  /**
+   * Busca los resúmenes de los informes de todas las mascotas de un cliente
+   * 
+   * @param clientId ID del cliente
+   * @param pageable Sistema de paginación
+   * @return Lista con los resúmenes de los informes encontrados
+   */
+  @Transactional(readOnly = true)
+  List<ReportSummaryDto> findSummariesByClientId(Long clientId, Pageable pageable);
+
+  /**
+   * Busca los resúmenes de los informes de todas las mascotas de un cliente dado su NIF/NIE
+   * 
+   * @param clientNationalIdDocument NIF/NIE del cliente
+   * @param pageable                 Sistema de paginación
+   * @return Lista con los resúmenes de los informes encontrados
+   */
+  @Transactional(readOnly = true)
+  List<ReportSummaryDto> findSummariesByClientNationalIdDocument(String clientNationalIdDocument, Pageable pageable);
+
+  /**
+   * Busca los resúmenes de los informes emitidos por un veterinario
+   * 
+   * @param vetId    ID del veterinario
+   * @param pageable Sistema de paginación
+   * @return Lista con los resúmenes de los informes encontrados
+   */
+  @Transactional(readOnly = true)
+  List<ReportSummaryDto> findSummariesByVetId(Long vetId, Pageable pageable);
+
+  /**
+   * Busca los resúmenes de los informes emitidos por los veterinarios de una entidad veterinaria
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param pageable    Sistema de paginación
+   * @return Lista con los resúmenes de los informes encontrados
+   */
+  @Transactional(readOnly = true)
+  List<ReportSummaryDto> findSummariesByVetEntityId(Long vetEntityId, Pageable pageable);
+
+  /**
+   * Busca, por relevancia, los informes de una entidad veterinaria cuyo motivo, diagnóstico o tratamiento contienen el
+   * texto aportado. Las palabras se comparan sin tildes y por su raíz en español
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param query       Texto a buscar
+   * @param pageable    Sistema de paginación
+   * @return Lista con los informes encontrados, o una lista vacía si el texto está vacío
+   */
+  @Transactional(readOnly = true)
+  List<Report> searchByVetEntityId(Long vetEntityId, String query, Pageable pageable);
+
+  /**
+   * Exporta todos los informes emitidos por los veterinarios de una entidad veterinaria, ordenados por fecha. Los
+   * informes se leen de la base de datos de forma incremental y se entregan uno a uno al consumidor ya convertidos a
+   * DTO, por lo que el consumo de memoria no depende del número de informes
+   * 
+   * @param vetEntityId ID de la entidad veterinaria
+   * @param consumer    Consumidor de cada informe en formato DTO
+   */
+  @Transactional(readOnly = true)
+  void exportByVetEntityId(Long vetEntityId, Consumer<ReportDto> consumer);
+
   /**
    * Almacena un nuevo informe en el sistema
    * 
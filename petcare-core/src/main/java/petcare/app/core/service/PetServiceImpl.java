@@ -1,18 +1,29 @@
 package petcare.app.core.service;
 
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import petcare.app.domain.dto.ReportSummaryDto;
+import petcare.app.domain.dto.TimelineEntryDto;
+import petcare.app.domain.entity.Appointment;
 import petcare.app.domain.entity.Client;
 import petcare.app.domain.entity.Pet;
+import petcare.app.domain.repository.AppointmentRepository;
 import petcare.app.domain.repository.ClientRepository;
 import petcare.app.domain.repository.PetRepository;
+import petcare.app.domain.repository.ReportRepository;
 import petcare.app.domain.utils.ExceptionMessages;
+import petcare.app.domain.utils.conversor.AppointmentDtoConversor;
+import petcare.app.domain.utils.cursor.TimelineCursor;
 import petcare.app.domain.utils.exceptions.ResourceNotFoundException;
 
 /** Implementación del servicio de mascotas */
@@ -25,6 +36,12 @@ public class PetServiceImpl implements IPetService {
   /** Repositorio de clientes */
   private ClientRepository clientRepository;
 
+  /** Repositorio de citas veterinarias */
+  private AppointmentRepository appointmentRepository;
+
+  /** Repositorio de informes veterinarios */
+  private ReportRepository reportRepository;
+
   /**
    * Setter - PetRepository. Inyección de dependencias
    * 
@@ -45,6 +62,26 @@ public class PetServiceImpl implements IPetService {
     this.clientRepository = clientRepository;
   }
 
+  /**
+   * Setter - AppointmentRepository. Inyección de dependencias
+   * 
+   * @param appointmentRepository Repositorio de citas veterinarias
+   */
+  @Autowired
+  public void setAppointmentRepository(AppointmentRepository appointmentRepository) {
+    this.appointmentRepository = appointmentRepository;
+  }
+
+  /**
+   * Setter - ReportRepository. Inyección de dependencias
+   * 
+   * @param reportRepository Repositorio de informes veterinarios
+   */
+  @Autowired
+  public void setReportRepository(ReportRepository reportRepository) {
+    this.reportRepository = reportRepository;
+  }
+
   @Override
   @Transactional(readOnly = true)
   public Optional<Pet> findById(Long id) {
@@ -63,6 +100,55 @@ public class PetServiceImpl implements IPetService {
     return petRepository.findByClientNationalIdDocument(clientNationalIdDocument, pageable);
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public List<TimelineEntryDto> findTimeline(Long petId, TimelineCursor cursor, int size) {
+
+    LocalDateTime date = cursor.getDate();
+    boolean afterAppointment = cursor.getType() == TimelineEntryDto.Type.APPOINTMENT;
+
+    // A igualdad de fecha, las citas preceden a los informes. Las citas de la fecha del cursor sólo se incluyen si el
+    // cursor es una cita con ID mayor, y los informes de esa fecha, si el cursor es una cita o un informe con ID mayor
+    Long appointmentBeforeId = afterAppointment ? cursor.getId() : Long.MIN_VALUE;
+    List<Appointment> appointments = appointmentRepository
+        .findByPetIdBefore(petId, date, appointmentBeforeId, PageRequest.ofSize(size));
+
+    // Los informes se sitúan al comienzo de su día, por lo que un cursor posterior incluye todos los informes del día
+    boolean startOfDay = date.toLocalTime().equals(LocalTime.MIDNIGHT);
+    Long reportBeforeId = startOfDay && !afterAppointment ? cursor.getId() : Long.MAX_VALUE;
+    List<ReportSummaryDto> reports = reportRepository
+        .findSummariesByPetIdBefore(petId, date.toLocalDate(), reportBeforeId, PageRequest.ofSize(size));
+
+    // Mezcla de ambas listas, ya ordenadas de forma descendente, hasta completar la página
+    List<TimelineEntryDto> timeline = new ArrayList<>(size);
+    int appointmentIndex = 0;
+    int reportIndex = 0;
+
+    while (timeline.size() < size && (appointmentIndex < appointments.size() || reportIndex < reports.size())) {
+
+      Appointment appointment = appointmentIndex < appointments.size() ? appointments.get(appointmentIndex) : null;
+      ReportSummaryDto report = reportIndex < reports.size() ? reports.get(reportIndex) : null;
+
+      boolean appointmentFirst = report == null
+          || (appointment != null && !appointment.getAppointmentDate().isBefore(report.getReportDate().atStartOfDay()));
+
+      if (appointmentFirst) {
+
+        timeline.add(new TimelineEntryDto(TimelineEntryDto.Type.APPOINTMENT, appointment.getAppointmentDate(),
+            appointment.getId(), AppointmentDtoConversor.toAppointmentDto(appointment), null));
+        appointmentIndex++;
+
+      } else {
+
+        timeline.add(new TimelineEntryDto(TimelineEntryDto.Type.REPORT, report.getReportDate().atStartOfDay(),
+            report.getId(), null, report));
+        reportIndex++;
+      }
+    }
+
+    return timeline;
+  }
+
   @Override
   @Transactional
   public Pet save(Pet pet) {
@@ -163,7 +249,8 @@ public class PetServiceImpl implements IPetService {
         clientRepository.save(client);
       });
 
-      // Se elimina la mascota
+      // Se eliminan sus citas archivadas y la mascota
+      appointmentRepository.deleteArchivedByPetId(id);
       petRepository.deleteById(id);
 
     } else {
@@ -1,14 +1,24 @@
 package petcare.app.core.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import petcare.app.domain.dto.ReportDto;
+import petcare.app.domain.dto.ReportSummaryDto;
 import petcare.app.domain.entity.Pet;
 import petcare.app.domain.entity.Report;
 import petcare.app.domain.entity.Vet;
@@ -23,6 +33,12 @@ import petcare.app.domain.utils.exceptions.ResourceNotFoundException;
 @Service
 public class ReportServiceImpl implements IReportService {
 
+  /** Número de informes exportados tras el que se vacía el contexto de persistencia */
+  private static final int EXPORT_CLEAR_INTERVAL = 500;
+
+  /** Contexto de persistencia */
+  private EntityManager entityManager;
+
   /** Repositorio de informes veterinarios */
   private ReportRepository reportRepository;
 
@@ -32,6 +48,16 @@ public class ReportServiceImpl implements IReportService {
   /** Repositorio de mascotas */
   private PetRepository petRepository;
 
+  /**
+   * Setter - EntityManager. Inyección de dependencias
+   * 
+   * @param entityManager Contexto de persistencia
+   */
+  @PersistenceContext
+  public void setEntityManager(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
   /**
    * Setter - ReportRepository. Inyección de dependencias
    * 
@@ -97,6 +123,79 @@ public class ReportServiceImpl implements IReportService {
     return reportRepository.findByVetId(vetEntityId, pageable);
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public List<ReportSummaryDto> findSummariesByPetId(Long petId, Pageable pageable) {
+    return reportRepository.findSummariesByPetId(petId, pageable);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<ReportSummaryDto> findSummariesByClientId(Long clientId, Pageable pageable) {
+    return reportRepository.findSummariesByClientId(clientId, pageable);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<ReportSummaryDto> findSummariesByClientNationalIdDocument(String clientNationalIdDocument,
+      Pageable pageable) {
+    return reportRepository.findSummariesByClientNationalIdDocument(clientNationalIdDocument, pageable);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<ReportSummaryDto> findSummariesByVetId(Long vetId, Pageable pageable) {
+    return reportRepository.findSummariesByVetId(vetId, pageable);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<ReportSummaryDto> findSummariesByVetEntityId(Long vetEntityId, Pageable pageable) {
+    return reportRepository.findSummariesByVetEntityId(vetEntityId, pageable);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Report> searchByVetEntityId(Long vetEntityId, String query, Pageable pageable) {
+
+    if (query == null || query.isBlank()) {
+      return List.of();
+    }
+
+    // La consulta ya ordena por relevancia, por lo que se descarta cualquier otra ordenación solicitada
+    List<Long> ids = reportRepository.searchIdsByVetEntityId(vetEntityId, query,
+        PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    // Los informes se cargan con sus asociaciones en una única consulta y se devuelven en el orden de relevancia
+    Map<Long, Report> reports = reportRepository.findWithAssociationsByIdIn(ids).stream()
+        .collect(Collectors.toMap(Report::getId, Function.identity()));
+
+    return ids.stream().map(reports::get).filter(Objects::nonNull).toList();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public void exportByVetEntityId(Long vetEntityId, Consumer<ReportDto> consumer) {
+
+    try (Stream<Report> reports = reportRepository.streamByVetEntityId(vetEntityId)) {
+
+      int count = 0;
+      for (Report report : (Iterable<Report>) reports::iterator) {
+
+        consumer.accept(ReportDtoConversor.toReportDto(report));
+
+        // Se vacía periódicamente el contexto de persistencia para que no retenga los informes ya exportados
+        if (++count % EXPORT_CLEAR_INTERVAL == 0) {
+          entityManager.clear();
+        }
+      }
+    }
+  }
+
   @Override
   @Transactional
   public ReportDto save(ReportDto reportDto) throws ResourceNotFoundException {
@@ -0,0 +1,105 @@
+package petcare.app.core.service.archive;
+
+import java.time.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantenimiento de las particiones mensuales de la tabla de citas.<br/>
+ * Crea con antelación las particiones de los próximos meses y traslada a la tabla appointment_archive las particiones
+ * de los meses pasados, de forma que las consultas habituales sólo recorren las particiones de los meses recientes y
+ * futuros. El traslado no copia filas: cada partición se desvincula de appointment y se vincula al archivo, sin sus
+ * claves ajenas.<br/>
+ * Las citas archivadas se conservan sólo como histórico: las operaciones de citas, agendas, exportaciones e historiales
+ * de las mascotas no las obtienen, por lo que se mantienen por defecto los dos últimos años completos
+ * (petcare.appointments.archive.retention-months).<br/>
+ * Las funciones de base de datos que realizan el mantenimiento se bloquean entre sí, por lo que varias instancias de
+ * petcare-core pueden ejecutarlo a la vez
+ */
+@Component
+public class AppointmentArchiver {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentArchiver.class);
+
+  /** Acceso JDBC a la base de datos */
+  private JdbcTemplate jdbcTemplate;
+
+  /** Número de meses futuros con partición creada */
+  private int monthsAhead;
+
+  /** Número de meses pasados completos que se mantienen en la tabla de citas antes de archivarlos */
+  private int retentionMonths;
+
+  /**
+   * Setter - JdbcTemplate. Inyección de dependencias
+   * 
+   * @param jdbcTemplate Acceso JDBC a la base de datos
+   */
+  @Autowired
+  public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Setter - Número de meses futuros con partición creada
+   * 
+   * @param monthsAhead Número de meses
+   */
+  @Value("${petcare.appointments.archive.months-ahead:12}")
+  public void setMonthsAhead(int monthsAhead) {
+    this.monthsAhead = monthsAhead;
+  }
+
+  /**
+   * Setter - Número de meses pasados completos que se mantienen en la tabla de citas
+   * 
+   * @param retentionMonths Número de meses
+   */
+  @Value("${petcare.appointments.archive.retention-months:24}")
+  public void setRetentionMonths(int retentionMonths) {
+    this.retentionMonths = retentionMonths;
+  }
+
+  /** Realiza el mantenimiento al arrancar la aplicación */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onStartup() {
+    maintain();
+  }
+
+  /** Crea las particiones de los próximos meses y archiva las de los meses pasados */
+  @Scheduled(cron = "${petcare.appointments.archive.cron:0 30 3 * * *}")
+  public void maintain() {
+
+    LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+
+    try {
+      int created = 0;
+
+      for (int i = 0; i <= monthsAhead; i++) {
+
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT appointment_ensure_partition(?)", Boolean.class,
+            currentMonth.plusMonths(i)))) {
+          created++;
+        }
+      }
+
+      Integer archived = jdbcTemplate.queryForObject("SELECT appointment_archive_partitions(?)", Integer.class,
+          currentMonth.minusMonths(retentionMonths));
+
+      LOGGER.info("Particiones de citas creadas: {}. Particiones de citas archivadas: {}", created, archived);
+
+    } catch (RuntimeException e) {
+      LOGGER.error("Error en el mantenimiento de las particiones de citas: {}", e.getMessage());
+    }
+  }
+
+}
@@ -0,0 +1,188 @@
+package petcare.app.core.service.cache;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import petcare.app.core.service.change.AppointmentChange;
+import petcare.app.core.service.change.AppointmentChange.State;
+import petcare.app.core.service.change.AppointmentChangeResync;
+import petcare.app.domain.dto.AppointmentDto;
+
+/**
+ * Caché de las agendas diarias de veterinarios y entidades veterinarias. Está limitada en número de agendas y en tiempo
+ * de vida de cada una, y expone sus estadísticas (aciertos, fallos, expulsiones) como métricas bajo el nombre
+ * "appointment-agenda".<br/>
+ * Las agendas afectadas por un cambio de cita se invalidan al recibir el evento {@link AppointmentChange}, tanto para
+ * el día y veterinario anteriores como para los nuevos. Los eventos llegan tanto de esta instancia como del resto de
+ * instancias de petcare-core
+ */
+@Component
+public class AgendaCache {
+
+  /** Nombre de la caché en las métricas */
+  private static final String CACHE_NAME = "appointment-agenda";
+
+  /** Agendas almacenadas */
+  private Cache<AgendaKey, List<AppointmentDto>> cache;
+
+  /** Número máximo de agendas almacenadas */
+  private long maximumSize;
+
+  /** Tiempo de vida de cada agenda desde que se carga */
+  private Duration expireAfterWrite;
+
+  /** Registro de métricas */
+  private MeterRegistry meterRegistry;
+
+  /**
+   * Setter - Número máximo de agendas almacenadas
+   * 
+   * @param maximumSize Número máximo de agendas
+   */
+  @Value("${petcare.appointments.agenda-cache.maximum-size:10000}")
+  public void setMaximumSize(long maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Setter - Tiempo de vida de cada agenda
+   * 
+   * @param expireAfterWrite Tiempo de vida
+   */
+  @Value("${petcare.appointments.agenda-cache.expire-after-write:5m}")
+  public void setExpireAfterWrite(Duration expireAfterWrite) {
+    this.expireAfterWrite = expireAfterWrite;
+  }
+
+  /**
+   * Setter - MeterRegistry. Inyección de dependencias
+   * 
+   * @param meterRegistry Registro de métricas
+   */
+  @Autowired
+  public void setMeterRegistry(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /** Crea la caché y registra sus métricas */
+  @PostConstruct
+  public void init() {
+
+    cache = Caffeine
+        .newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite)
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  /**
+   * Obtiene una agenda, cargándola si no se encuentra almacenada. Una invalidación concurrente con la carga espera a
+   * que ésta finalice, por lo que nunca se conserva una agenda cargada antes de un cambio ya invalidado
+   * 
+   * @param key    Clave de la agenda
+   * @param loader Carga la agenda completa del día
+   * @return List(AppointmentDto) - Agenda del día ordenada por fecha
+   */
+  public List<AppointmentDto> get(AgendaKey key, Function<AgendaKey, List<AppointmentDto>> loader) {
+    return cache.get(key, loader);
+  }
+
+  /**
+   * Invalida las agendas afectadas por un cambio de cita
+   * 
+   * @param change Cambio de la cita
+   */
+  @EventListener
+  public void onChange(AppointmentChange change) {
+
+    invalidate(change.previous());
+    invalidate(change.current());
+  }
+
+  /**
+   * Invalida todas las agendas al poder haberse perdido cambios
+   * 
+   * @param resync Evento de resincronización
+   */
+  @EventListener
+  public void onResync(AppointmentChangeResync resync) {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Invalida las agendas del veterinario y de la entidad veterinaria del día de la cita
+   * 
+   * @param state Estado de la cita. Puede ser null
+   */
+  private void invalidate(State state) {
+
+    if (state != null) {
+
+      LocalDate day = state.appointmentDate().toLocalDate();
+      cache.invalidate(AgendaKey.ofVet(state.vetId(), day));
+
+      if (state.vetEntityId() != null) {
+        cache.invalidate(AgendaKey.ofVetEntity(state.vetEntityId(), day));
+      }
+    }
+  }
+
+  /** Tipo de agenda */
+  public enum Scope {
+
+    /** Agenda de un veterinario */
+    VET,
+
+    /** Agenda de una entidad veterinaria */
+    VET_ENTITY
+  }
+
+  /**
+   * Clave de una agenda diaria
+   * 
+   * @param scope Tipo de agenda
+   * @param id    ID del veterinario o de la entidad veterinaria
+   * @param day   Día de la agenda
+   */
+  public record AgendaKey(Scope scope, Long id, LocalDate day) {
+
+    /**
+     * Clave de la agenda diaria de un veterinario
+     * 
+     * @param vetId ID del veterinario
+     * @param day   Día de la agenda
+     * @return AgendaKey
+     */
+    public static AgendaKey ofVet(Long vetId, LocalDate day) {
+      return new AgendaKey(Scope.VET, vetId, day);
+    }
+
+    /**
+     * Clave de la agenda diaria de una entidad veterinaria
+     * 
+     * @param vetEntityId ID de la entidad veterinaria
+     * @param day         Día de la agenda
+     * @return AgendaKey
+     */
+    public static AgendaKey ofVetEntity(Long vetEntityId, LocalDate day) {
+      return new AgendaKey(Scope.VET_ENTITY, vetEntityId, day);
+    }
+  }
+
+}
@@ -0,0 +1,46 @@
+package petcare.app.core.service.change;
+
+import java.time.LocalDateTime;
+
+import petcare.app.domain.entity.Appointment;
+
+/**
+ * Cambio confirmado sobre una cita veterinaria. Contiene el estado de la cita antes y después del cambio, de forma que
+ * los consumidores pueden actuar tanto sobre el día y veterinario anteriores como sobre los nuevos
+ * 
+ * @param appointmentId ID de la cita
+ * @param previous      Estado anterior de la cita. Será null si la cita se ha creado
+ * @param current       Estado actual de la cita. Será null si la cita se ha eliminado
+ */
+public record AppointmentChange(Long appointmentId, State previous, State current) {
+
+  /**
+   * Estado de una cita relevante para los consumidores de cambios
+   * 
+   * @param vetId           ID del veterinario
+   * @param vetEntityId     ID de la entidad veterinaria del veterinario
+   * @param appointmentDate Fecha de la cita
+   */
+  public record State(Long vetId, Long vetEntityId, LocalDateTime appointmentDate) {
+
+    /**
+     * Obtiene el estado actual de una cita
+     * 
+     * @param appointment Cita veterinaria
+     * @return State - Estado de la cita, o null si no tiene veterinario o fecha
+     */
+    public static State of(Appointment appointment) {
+
+      if (appointment.getVet() == null || appointment.getAppointmentDate() == null) {
+        return null;
+      }
+
+      Long vetEntityId = appointment.getVet().getVetEntity() == null
+          ? null
+          : appointment.getVet().getVetEntity().getId();
+
+      return new State(appointment.getVet().getId(), vetEntityId, appointment.getAppointmentDate());
+    }
+  }
+
+}
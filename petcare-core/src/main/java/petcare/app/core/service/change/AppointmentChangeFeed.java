@@ -0,0 +1,172 @@
+package petcare.app.core.service.change;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Canal de cambios de citas veterinarias.<br/>
+ * Los cambios registrados durante una transacción se publican como eventos de aplicación en esta instancia una vez
+ * confirmada la transacción. Además, se envían al resto de instancias de petcare-core mediante NOTIFY de PostgreSQL
+ * dentro de la propia transacción, de forma que sólo se entregan si se confirma. Las notificaciones recibidas se
+ * publican en cada instancia mediante {@link AppointmentChangeListener}
+ */
+@Component
+public class AppointmentChangeFeed {
+
+  /** Canal de PostgreSQL por el que se envían los cambios */
+  public static final String CHANNEL = "appointment_changes";
+
+  /** Número máximo de cambios por notificación. PostgreSQL limita el tamaño de cada notificación a 8000 bytes */
+  private static final int CHANGES_PER_NOTIFICATION = 30;
+
+  /** Identificador de esta instancia. Permite descartar las notificaciones enviadas por ella misma */
+  private final String instanceId = UUID.randomUUID().toString();
+
+  /** Acceso JDBC a la base de datos. Participa en la transacción JPA en curso */
+  private JdbcTemplate jdbcTemplate;
+
+  /** Mapper JSON */
+  private ObjectMapper objectMapper;
+
+  /** Publicador de eventos de aplicación */
+  private ApplicationEventPublisher eventPublisher;
+
+  /**
+   * Setter - JdbcTemplate. Inyección de dependencias
+   * 
+   * @param jdbcTemplate Acceso JDBC a la base de datos
+   */
+  @Autowired
+  public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Setter - ObjectMapper. Inyección de dependencias
+   * 
+   * @param objectMapper Mapper JSON
+   */
+  @Autowired
+  public void setObjectMapper(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Setter - ApplicationEventPublisher. Inyección de dependencias
+   * 
+   * @param eventPublisher Publicador de eventos de aplicación
+   */
+  @Autowired
+  public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Getter - Identificador de esta instancia
+   * 
+   * @return String
+   */
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  /**
+   * Registra un cambio de cita en la transacción actual. Si no existe ninguna transacción activa, el cambio se publica
+   * de forma inmediata
+   * 
+   * @param change Cambio de la cita
+   */
+  public void publish(AppointmentChange change) {
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      pendingChanges().add(change);
+
+    } else {
+      notifyInstances(List.of(change));
+      eventPublisher.publishEvent(change);
+    }
+  }
+
+  /**
+   * Obtiene los cambios registrados en la transacción actual. La primera vez, registra la sincronización que los
+   * envía al finalizar la transacción
+   * 
+   * @return List(AppointmentChange) - Cambios registrados
+   */
+  @SuppressWarnings("unchecked")
+  private List<AppointmentChange> pendingChanges() {
+
+    List<AppointmentChange> changes = (List<AppointmentChange>) TransactionSynchronizationManager.getResource(this);
+
+    if (changes == null) {
+
+      List<AppointmentChange> newChanges = new ArrayList<>();
+      changes = newChanges;
+
+      TransactionSynchronizationManager.bindResource(this, newChanges);
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+          notifyInstances(newChanges);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+
+          TransactionSynchronizationManager.unbindResource(AppointmentChangeFeed.this);
+
+          if (status == STATUS_COMMITTED) {
+            newChanges.forEach(eventPublisher::publishEvent);
+          }
+        }
+      });
+    }
+
+    return changes;
+  }
+
+  /**
+   * Envía los cambios al resto de instancias mediante NOTIFY, agrupados para respetar el tamaño máximo de cada
+   * notificación
+   * 
+   * @param changes Cambios a enviar
+   */
+  private void notifyInstances(List<AppointmentChange> changes) {
+
+    for (int from = 0; from < changes.size(); from += CHANGES_PER_NOTIFICATION) {
+
+      List<AppointmentChange> chunk = changes.subList(from, Math.min(from + CHANGES_PER_NOTIFICATION, changes.size()));
+
+      try {
+        String payload = objectMapper.writeValueAsString(new Message(instanceId, chunk));
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+
+      } catch (JsonProcessingException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Contenido de una notificación de cambios
+   * 
+   * @param origin  Identificador de la instancia que realizó los cambios
+   * @param changes Cambios realizados
+   */
+  public record Message(String origin, List<AppointmentChange> changes) {
+  }
+
+}
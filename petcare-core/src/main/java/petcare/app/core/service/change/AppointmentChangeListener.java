@@ -0,0 +1,186 @@
+package petcare.app.core.service.change;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import petcare.app.core.service.change.AppointmentChangeFeed.Message;
+import petcare.app.domain.utils.ListenConnections;
+
+/**
+ * Escucha las notificaciones de cambios de citas enviadas por el resto de instancias de petcare-core y las publica como
+ * eventos de aplicación en esta instancia.<br/>
+ * Mantiene una conexión dedicada a la base de datos, fuera del pool ({@link ListenConnections}). Cada vez que se
+ * (re)establece, se publica un evento {@link AppointmentChangeResync}, puesto que las notificaciones enviadas mientras
+ * no existía conexión se han perdido
+ */
+@Component
+public class AppointmentChangeListener implements SmartLifecycle {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentChangeListener.class);
+
+  /** Tiempo máximo de espera de nuevas notificaciones, en milisegundos */
+  private static final int POLL_TIMEOUT_MILLIS = 1000;
+
+  /** Tiempo de espera antes de volver a conectar tras un error, en milisegundos */
+  private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+  /** Configuración del origen de datos, con la que se abre la conexión de escucha */
+  private DataSourceProperties dataSourceProperties;
+
+  /** Mapper JSON */
+  private ObjectMapper objectMapper;
+
+  /** Publicador de eventos de aplicación */
+  private ApplicationEventPublisher eventPublisher;
+
+  /** Canal de cambios de citas */
+  private AppointmentChangeFeed changeFeed;
+
+  /** Hilo de escucha */
+  private Thread thread;
+
+  /** Indica si la escucha está activa */
+  private volatile boolean running;
+
+  /**
+   * Setter - DataSourceProperties. Inyección de dependencias
+   * 
+   * @param dataSourceProperties Configuración del origen de datos
+   */
+  @Autowired
+  public void setDataSourceProperties(DataSourceProperties dataSourceProperties) {
+    this.dataSourceProperties = dataSourceProperties;
+  }
+
+  /**
+   * Setter - ObjectMapper. Inyección de dependencias
+   * 
+   * @param objectMapper Mapper JSON
+   */
+  @Autowired
+  public void setObjectMapper(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Setter - ApplicationEventPublisher. Inyección de dependencias
+   * 
+   * @param eventPublisher Publicador de eventos de aplicación
+   */
+  @Autowired
+  public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Setter - AppointmentChangeFeed. Inyección de dependencias
+   * 
+   * @param changeFeed Canal de cambios de citas
+   */
+  @Autowired
+  public void setChangeFeed(AppointmentChangeFeed changeFeed) {
+    this.changeFeed = changeFeed;
+  }
+
+  @Override
+  public void start() {
+
+    running = true;
+
+    thread = new Thread(this::listen, "appointment-change-listener");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public void stop() {
+
+    running = false;
+    thread.interrupt();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /** Bucle de escucha. Vuelve a conectar mientras la escucha siga activa */
+  private void listen() {
+
+    while (running) {
+
+      try (Connection connection = ListenConnections.open(dataSourceProperties, AppointmentChangeFeed.CHANNEL)) {
+
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+        eventPublisher.publishEvent(new AppointmentChangeResync());
+
+        while (running) {
+
+          PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              handle(notification.getParameter());
+            }
+          }
+        }
+
+      } catch (SQLException e) {
+
+        LOGGER.error("Se ha perdido la escucha de cambios de citas: {}", e.getMessage());
+        pause();
+      }
+    }
+  }
+
+  /**
+   * Publica los cambios de una notificación, salvo que hayan sido enviados por esta misma instancia, que ya los ha
+   * publicado al confirmar su transacción
+   * 
+   * @param payload Contenido de la notificación
+   */
+  private void handle(String payload) {
+
+    try {
+      Message message = objectMapper.readValue(payload, Message.class);
+
+      if (!changeFeed.getInstanceId().equals(message.origin())) {
+        message.changes().forEach(eventPublisher::publishEvent);
+      }
+
+    } catch (JsonProcessingException e) {
+      LOGGER.error("Notificación de cambios de citas no válida: {}", e.getMessage());
+
+    } catch (RuntimeException e) {
+      LOGGER.error("Error al procesar un cambio de cita: {}", e.getMessage());
+    }
+  }
+
+  /** Espera antes de volver a conectar */
+  private void pause() {
+
+    try {
+      Thread.sleep(RECONNECT_DELAY_MILLIS);
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+}
@@ -0,0 +1,9 @@
+package petcare.app.core.service.change;
+
+/**
+ * Evento que indica que pueden haberse perdido cambios de citas realizados desde otras instancias, por ejemplo tras
+ * perder la conexión con la base de datos. Los consumidores deben descartar cualquier información derivada de las citas
+ */
+public record AppointmentChangeResync() {
+
+}
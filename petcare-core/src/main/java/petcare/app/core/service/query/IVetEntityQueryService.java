@@ -7,6 +7,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import petcare.app.domain.dto.NameSuggestionDto;
 import petcare.app.domain.entity.VetEntity;
 
 /**
@@ -36,4 +37,15 @@ public interface IVetEntityQueryService {
   @Transactional(readOnly = true)
   List<VetEntity> findByNameContaining(String name, Pageable pageable);
 
+  /**
+   * Autocompletado de entidades veterinarias por nombre, sin distinguir tildes ni mayúsculas y tolerando pequeñas
+   * erratas. Las entidades cuyo nombre comienza por el texto buscado aparecen primero
+   * 
+   * @param query Texto escrito por el usuario
+   * @param size  Número máximo de sugerencias
+   * @return List(NameSuggestionDto) - Sugerencias ordenadas por relevancia. Vacía si el texto está en blanco
+   */
+  @Transactional(readOnly = true)
+  List<NameSuggestionDto> autocompleteByName(String query, int size);
+
 }
@@ -7,6 +7,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import petcare.app.domain.dto.NameSuggestionDto;
 import petcare.app.domain.entity.Vet;
 
 /** Interfaz del Servicio de acceso a los datos referentes a un veterinario */
@@ -46,4 +47,16 @@ public interface IVetQueryService {
   @Transactional(readOnly = true)
   List<Vet> findByVetEntityId(Long vetEntityId, Pageable pageable);
 
+  /**
+   * Autocompletado de veterinarios por nombre, sin distinguir tildes ni mayúsculas y tolerando pequeñas erratas. Los
+   * veterinarios cuyo nombre comienza por el texto buscado aparecen primero
+   * 
+   * @param query       Texto escrito por el usuario
+   * @param vetEntityId ID de la entidad veterinaria a la que deben pertenecer. Si es null, se buscan en todas
+   * @param size        Número máximo de sugerencias
+   * @return List(NameSuggestionDto) - Sugerencias ordenadas por relevancia. Vacía si el texto está en blanco
+   */
+  @Transactional(readOnly = true)
+  List<NameSuggestionDto> autocompleteByName(String query, Long vetEntityId, int size);
+
 }
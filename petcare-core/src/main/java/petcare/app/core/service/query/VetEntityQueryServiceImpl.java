@@ -4,12 +4,15 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import petcare.app.domain.dto.NameSuggestionDto;
 import petcare.app.domain.entity.VetEntity;
 import petcare.app.domain.repository.VetEntityRepository;
+import petcare.app.domain.utils.LikePatterns;
 
 /** Implementación del servicio de acceso a datos referentes a una entidad veterinaria */
 @Service
@@ -43,4 +46,22 @@ public class VetEntityQueryServiceImpl implements IVetEntityQueryService {
 
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public List<NameSuggestionDto> autocompleteByName(String query, int size) {
+
+    if (query == null || query.isBlank()) {
+      return List.of();
+    }
+
+    // La consulta ya ordena por relevancia
+    String text = query.strip();
+
+    return vetEntityRepository
+        .autocompleteByName(text, LikePatterns.escape(text), PageRequest.of(0, size))
+        .stream()
+        .map(match -> new NameSuggestionDto(match.getId(), match.getName()))
+        .toList();
+  }
+
 }
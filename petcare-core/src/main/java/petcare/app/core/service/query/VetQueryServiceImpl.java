@@ -4,12 +4,16 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import petcare.app.domain.dto.NameSuggestionDto;
 import petcare.app.domain.entity.Vet;
 import petcare.app.domain.repository.VetRepository;
+import petcare.app.domain.repository.projection.NameMatch;
+import petcare.app.domain.utils.LikePatterns;
 
 /** Implementación del servicio de acceso a datos referentes al veterinario */
 @Service
@@ -46,4 +50,23 @@ public class VetQueryServiceImpl implements IVetQueryService {
     return vetRepository.findByVetEntityId(vetEntityId, pageable);
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public List<NameSuggestionDto> autocompleteByName(String query, Long vetEntityId, int size) {
+
+    if (query == null || query.isBlank()) {
+      return List.of();
+    }
+
+    // La consulta ya ordena por relevancia
+    String text = query.strip();
+    String prefix = LikePatterns.escape(text);
+    Pageable pageable = PageRequest.of(0, size);
+    List<NameMatch> matches = vetEntityId == null
+        ? vetRepository.autocompleteByName(text, prefix, pageable)
+        : vetRepository.autocompleteByNameAndVetEntityId(text, prefix, vetEntityId, pageable);
+
+    return matches.stream().map(match -> new NameSuggestionDto(match.getId(), match.getName())).toList();
+  }
+
 }
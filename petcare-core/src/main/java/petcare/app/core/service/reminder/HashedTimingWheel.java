@@ -0,0 +1,208 @@
+package petcare.app.core.service.reminder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Rueda de temporización (hashed timing wheel) de recordatorios.<br/>
+ * El tiempo se divide en intervalos (ticks) de duración fija, repartidos circularmente entre un número fijo de
+ * posiciones. Cada recordatorio se guarda en la posición de su intervalo de vencimiento, de forma que programarlo tiene
+ * coste constante y cada avance sólo recorre las posiciones de los intervalos transcurridos.<br/>
+ * Cada posición guarda sus recordatorios en arrays de tipos primitivos (unos 17 bytes por recordatorio), para poder
+ * mantener millones de recordatorios pendientes con un consumo de memoria reducido.<br/>
+ * No es segura para uso concurrente: debe utilizarse siempre desde un mismo hilo
+ */
+public class HashedTimingWheel {
+
+  /** Duración de cada intervalo, en milisegundos */
+  private final long tickMillis;
+
+  /** Máscara para obtener la posición de un intervalo. El número de posiciones es potencia de 2 */
+  private final int mask;
+
+  /** Posiciones de la rueda */
+  private final Bucket[] buckets;
+
+  /** Último intervalo procesado */
+  private long lastTick;
+
+  /** Número de recordatorios pendientes */
+  private int size;
+
+  /**
+   * Constructor
+   * 
+   * @param tick        Duración de cada intervalo
+   * @param wheelSize   Número de posiciones de la rueda. Debe ser potencia de 2
+   * @param startMillis Instante inicial de la rueda, en milisegundos desde epoch
+   */
+  public HashedTimingWheel(Duration tick, int wheelSize, long startMillis) {
+
+    if (tick.toMillis() <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+      throw new IllegalArgumentException("El intervalo debe ser positivo y el número de posiciones potencia de 2");
+    }
+
+    this.tickMillis = tick.toMillis();
+    this.mask = wheelSize - 1;
+    this.buckets = new Bucket[wheelSize];
+    this.lastTick = startMillis / tickMillis;
+
+    for (int i = 0; i < wheelSize; i++) {
+      buckets[i] = new Bucket();
+    }
+  }
+
+  /**
+   * Getter - Número de recordatorios pendientes
+   * 
+   * @return int
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Programa un recordatorio. Si su vencimiento ya ha pasado, vencerá en el siguiente avance
+   * 
+   * @param appointmentId  ID de la cita
+   * @param leadIndex      Índice de la antelación del recordatorio
+   * @param deadlineMillis Vencimiento del recordatorio, en milisegundos desde epoch
+   */
+  public void schedule(long appointmentId, int leadIndex, long deadlineMillis) {
+
+    long tick = Math.max(deadlineMillis / tickMillis, lastTick + 1);
+
+    buckets[(int) (tick & mask)].add(appointmentId, (byte) leadIndex, deadlineMillis);
+    size++;
+  }
+
+  /**
+   * Avanza la rueda hasta el instante aportado, entregando todos los recordatorios vencidos
+   * 
+   * @param nowMillis Instante actual, en milisegundos desde epoch
+   * @param consumer  Receptor de los recordatorios vencidos
+   */
+  public void advance(long nowMillis, Expiration consumer) {
+
+    long nowTick = nowMillis / tickMillis;
+
+    // Tras una pausa mayor que una vuelta completa, basta con recorrer cada posición una única vez
+    if (nowTick - lastTick >= buckets.length) {
+
+      for (Bucket bucket : buckets) {
+        size -= bucket.expire((nowTick + 1) * tickMillis, consumer);
+      }
+
+      lastTick = nowTick;
+      return;
+    }
+
+    for (long tick = lastTick + 1; tick <= nowTick; tick++) {
+
+      size -= buckets[(int) (tick & mask)].expire((tick + 1) * tickMillis, consumer);
+      lastTick = tick;
+    }
+  }
+
+  /**
+   * Receptor de los recordatorios vencidos
+   */
+  @FunctionalInterface
+  public interface Expiration {
+
+    /**
+     * Recibe un recordatorio vencido
+     * 
+     * @param appointmentId  ID de la cita
+     * @param leadIndex      Índice de la antelación del recordatorio
+     * @param deadlineMillis Vencimiento del recordatorio, en milisegundos desde epoch
+     */
+    void expired(long appointmentId, int leadIndex, long deadlineMillis);
+  }
+
+  /** Recordatorios de una posición de la rueda, de este intervalo o de vueltas posteriores */
+  private static final class Bucket {
+
+    /** Capacidad inicial de cada posición */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** IDs de las citas */
+    private long[] appointmentIds = new long[0];
+
+    /** Vencimientos, en milisegundos desde epoch */
+    private long[] deadlines = new long[0];
+
+    /** Índices de las antelaciones */
+    private byte[] leadIndexes = new byte[0];
+
+    /** Número de recordatorios de la posición */
+    private int count;
+
+    /**
+     * Añade un recordatorio
+     * 
+     * @param appointmentId  ID de la cita
+     * @param leadIndex      Índice de la antelación
+     * @param deadlineMillis Vencimiento
+     */
+    private void add(long appointmentId, byte leadIndex, long deadlineMillis) {
+
+      if (count == appointmentIds.length) {
+        resize(Math.max(INITIAL_CAPACITY, count + (count >> 1)));
+      }
+
+      appointmentIds[count] = appointmentId;
+      deadlines[count] = deadlineMillis;
+      leadIndexes[count] = leadIndex;
+      count++;
+    }
+
+    /**
+     * Entrega y elimina los recordatorios que vencen antes del límite aportado, conservando el resto
+     * 
+     * @param limitMillis Límite de vencimiento (excluido)
+     * @param consumer    Receptor de los recordatorios vencidos
+     * @return int - Número de recordatorios entregados
+     */
+    private int expire(long limitMillis, Expiration consumer) {
+
+      int kept = 0;
+
+      for (int i = 0; i < count; i++) {
+
+        if (deadlines[i] < limitMillis) {
+          consumer.expired(appointmentIds[i], leadIndexes[i], deadlines[i]);
+
+        } else {
+          appointmentIds[kept] = appointmentIds[i];
+          deadlines[kept] = deadlines[i];
+          leadIndexes[kept] = leadIndexes[i];
+          kept++;
+        }
+      }
+
+      int expired = count - kept;
+      count = kept;
+
+      // Libera la memoria de las posiciones que han crecido durante un pico de recordatorios
+      if (appointmentIds.length > INITIAL_CAPACITY && count < appointmentIds.length >> 2) {
+        resize(count == 0 ? 0 : Math.max(INITIAL_CAPACITY, count << 1));
+      }
+
+      return expired;
+    }
+
+    /**
+     * Cambia la capacidad de la posición
+     * 
+     * @param capacity Nueva capacidad
+     */
+    private void resize(int capacity) {
+
+      appointmentIds = Arrays.copyOf(appointmentIds, capacity);
+      deadlines = Arrays.copyOf(deadlines, capacity);
+      leadIndexes = Arrays.copyOf(leadIndexes, capacity);
+    }
+  }
+
+}
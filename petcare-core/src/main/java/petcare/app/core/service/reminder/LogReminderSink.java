@@ -0,0 +1,25 @@
+package petcare.app.core.service.reminder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Destino de recordatorios que se limita a registrarlos en el log. Útil en entornos locales y de pruebas
+ */
+@Component
+@ConditionalOnProperty(name = "petcare.appointments.reminders.log-sink.enabled", havingValue = "true",
+    matchIfMissing = true)
+public class LogReminderSink implements ReminderSink {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogReminderSink.class);
+
+  @Override
+  public void send(Reminder reminder) {
+    LOGGER.info("Recordatorio de la cita {} del veterinario {} el {} ({} de antelación)", reminder.appointmentId(),
+        reminder.vetId(), reminder.appointmentDate(), reminder.lead());
+  }
+
+}
@@ -0,0 +1,16 @@
+package petcare.app.core.service.reminder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Recordatorio de una cita veterinaria
+ * 
+ * @param appointmentId   ID de la cita
+ * @param vetId           ID del veterinario
+ * @param appointmentDate Fecha de la cita
+ * @param lead            Antelación con la que se envía el recordatorio respecto a la fecha de la cita
+ */
+public record Reminder(Long appointmentId, Long vetId, LocalDateTime appointmentDate, Duration lead) {
+
+}
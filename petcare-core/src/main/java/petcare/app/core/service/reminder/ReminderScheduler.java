@@ -0,0 +1,643 @@
+package petcare.app.core.service.reminder;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import petcare.app.core.service.change.AppointmentChange;
+import petcare.app.core.service.change.AppointmentChangeFeed;
+import petcare.app.core.service.change.AppointmentChangeResync;
+import petcare.app.domain.repository.AppointmentRepository;
+import petcare.app.domain.repository.projection.AppointmentSlot;
+
+/**
+ * Planificador de recordatorios de citas veterinarias.<br/>
+ * Los recordatorios se envían con cada una de las antelaciones configuradas respecto a la fecha de la cita (por
+ * defecto, 24 horas y 1 hora antes). En lugar de consultar periódicamente las citas próximas, los recordatorios que
+ * vencen dentro de un horizonte limitado se cargan por bloques en una {@link HashedTimingWheel}, que se avanza desde un
+ * único hilo. Los cambios de citas confirmados se aplican sobre la rueda según llegan, y cada recordatorio vencido se
+ * comprueba contra el estado actual de su cita antes de enviarse, de forma que los recordatorios de citas modificadas o
+ * eliminadas se descartan sin necesidad de buscarlos en la rueda.<br/>
+ * Sólo la instancia que posee la concesión {@value #LEASE_NAME} mantiene la rueda y envía recordatorios. Además, cada
+ * recordatorio se reclama en la tabla appointment_reminder_sent antes de enviarse, por lo que nunca se envía dos veces,
+ * ni siquiera durante un cambio de propietario de la concesión
+ */
+@Component
+public class ReminderScheduler implements SmartLifecycle {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReminderScheduler.class);
+
+  /** Nombre de la concesión del planificador */
+  public static final String LEASE_NAME = "appointment-reminders";
+
+  /** Número máximo de recordatorios vencidos que se comprueban y reclaman en una misma consulta */
+  private static final int FIRE_BATCH_SIZE = 1000;
+
+  /** Reclama los recordatorios aún no enviados, devolviendo únicamente los reclamados */
+  private static final String CLAIM_SQL = """
+      INSERT INTO appointment_reminder_sent (appointment_id, lead_minutes, appointment_date)
+        SELECT * FROM unnest(?, ?, ?)
+        ON CONFLICT DO NOTHING
+        RETURNING appointment_id, lead_minutes
+      """;
+
+  /** Elimina los recordatorios enviados de citas ya pasadas, que no pueden volver a vencer */
+  private static final String PURGE_SQL = "DELETE FROM appointment_reminder_sent WHERE appointment_date < ?";
+
+  /** Zona horaria de las fechas de las citas */
+  private static final ZoneId ZONE = ZoneId.systemDefault();
+
+  /** Repositorio de citas */
+  private AppointmentRepository appointmentRepository;
+
+  /** Acceso JDBC a la base de datos */
+  private JdbcTemplate jdbcTemplate;
+
+  /** Concesiones de tareas */
+  private SchedulerLease lease;
+
+  /** Canal de cambios de citas. Proporciona el identificador de esta instancia */
+  private AppointmentChangeFeed changeFeed;
+
+  /** Destinos de los recordatorios */
+  private List<ReminderSink> sinks = List.of();
+
+  /** Indica si el planificador está habilitado */
+  private boolean enabled;
+
+  /** Antelaciones de los recordatorios */
+  private List<Duration> leads;
+
+  /** Duración de cada intervalo de la rueda */
+  private Duration tick;
+
+  /** Número de posiciones de la rueda */
+  private int wheelSize;
+
+  /** Horizonte de carga. Sólo se mantienen en memoria los recordatorios que vencen dentro de él */
+  private Duration horizon;
+
+  /** Número máximo orientativo de recordatorios en memoria. Al alcanzarlo, se detiene la carga hasta que venzan */
+  private int maxPending;
+
+  /** Número de citas cargadas por consulta */
+  private int loadBatchSize;
+
+  /** Duración de la concesión del planificador */
+  private Duration leaseDuration;
+
+  /** Cambios de citas pendientes de aplicar sobre la rueda */
+  private final Queue<AppointmentChange> changes = new ConcurrentLinkedQueue<>();
+
+  /** Indica si deben volver a cargarse todos los recordatorios */
+  private final AtomicBoolean resync = new AtomicBoolean();
+
+  /** Hilo del planificador */
+  private ScheduledExecutorService executor;
+
+  /** Indica si el planificador está activo */
+  private volatile boolean running;
+
+  // Estado accedido únicamente desde el hilo del planificador
+
+  /** Rueda de recordatorios. Será null mientras esta instancia no posea la concesión */
+  private HashedTimingWheel wheel;
+
+  /** Fecha de la última cita cargada para cada antelación */
+  private LocalDateTime[] loadedDates;
+
+  /** ID de la última cita cargada para cada antelación */
+  private long[] loadedIds;
+
+  /** Instante de expiración de la concesión, según System.nanoTime() */
+  private long leaseExpiresNanos;
+
+  /** Instante de la próxima renovación de la concesión, según System.nanoTime() */
+  private long nextRenewalNanos;
+
+  /** Instante de la próxima carga de recordatorios, en milisegundos desde epoch */
+  private long nextLoadMillis;
+
+  /**
+   * Setter - AppointmentRepository. Inyección de dependencias
+   * 
+   * @param appointmentRepository Repositorio de citas
+   */
+  @Autowired
+  public void setAppointmentRepository(AppointmentRepository appointmentRepository) {
+    this.appointmentRepository = appointmentRepository;
+  }
+
+  /**
+   * Setter - JdbcTemplate. Inyección de dependencias
+   * 
+   * @param jdbcTemplate Acceso JDBC a la base de datos
+   */
+  @Autowired
+  public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Setter - SchedulerLease. Inyección de dependencias
+   * 
+   * @param lease Concesiones de tareas
+   */
+  @Autowired
+  public void setLease(SchedulerLease lease) {
+    this.lease = lease;
+  }
+
+  /**
+   * Setter - AppointmentChangeFeed. Inyección de dependencias
+   * 
+   * @param changeFeed Canal de cambios de citas
+   */
+  @Autowired
+  public void setChangeFeed(AppointmentChangeFeed changeFeed) {
+    this.changeFeed = changeFeed;
+  }
+
+  /**
+   * Setter - Destinos de los recordatorios. Inyección de dependencias
+   * 
+   * @param sinks Destinos de los recordatorios
+   */
+  @Autowired(required = false)
+  public void setSinks(List<ReminderSink> sinks) {
+    this.sinks = sinks;
+  }
+
+  /**
+   * Setter - Indica si el planificador está habilitado
+   * 
+   * @param enabled True si debe enviar recordatorios
+   */
+  @Value("${petcare.appointments.reminders.enabled:true}")
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Setter - Antelaciones de los recordatorios
+   * 
+   * @param leads Antelaciones respecto a la fecha de la cita
+   */
+  @Value("${petcare.appointments.reminders.leads:24h,1h}")
+  public void setLeads(List<Duration> leads) {
+
+    if (leads.size() > Byte.MAX_VALUE) {
+      throw new IllegalArgumentException("Demasiadas antelaciones de recordatorios");
+    }
+
+    this.leads = List.copyOf(leads);
+  }
+
+  /**
+   * Setter - Duración de cada intervalo de la rueda
+   * 
+   * @param tick Duración del intervalo
+   */
+  @Value("${petcare.appointments.reminders.tick:1s}")
+  public void setTick(Duration tick) {
+    this.tick = tick;
+  }
+
+  /**
+   * Setter - Número de posiciones de la rueda
+   * 
+   * @param wheelSize Número de posiciones. Debe ser potencia de 2
+   */
+  @Value("${petcare.appointments.reminders.wheel-size:4096}")
+  public void setWheelSize(int wheelSize) {
+    this.wheelSize = wheelSize;
+  }
+
+  /**
+   * Setter - Horizonte de carga de recordatorios
+   * 
+   * @param horizon Horizonte de carga
+   */
+  @Value("${petcare.appointments.reminders.horizon:2h}")
+  public void setHorizon(Duration horizon) {
+    this.horizon = horizon;
+  }
+
+  /**
+   * Setter - Número máximo de recordatorios en memoria
+   * 
+   * @param maxPending Número máximo de recordatorios
+   */
+  @Value("${petcare.appointments.reminders.max-pending:1000000}")
+  public void setMaxPending(int maxPending) {
+    this.maxPending = maxPending;
+  }
+
+  /**
+   * Setter - Número de citas cargadas por consulta
+   * 
+   * @param loadBatchSize Número de citas
+   */
+  @Value("${petcare.appointments.reminders.load-batch-size:10000}")
+  public void setLoadBatchSize(int loadBatchSize) {
+    this.loadBatchSize = loadBatchSize;
+  }
+
+  /**
+   * Setter - Duración de la concesión del planificador
+   * 
+   * @param leaseDuration Duración de la concesión
+   */
+  @Value("${petcare.appointments.reminders.lease-duration:30s}")
+  public void setLeaseDuration(Duration leaseDuration) {
+    this.leaseDuration = leaseDuration;
+  }
+
+  @Override
+  public void start() {
+
+    if (!enabled) {
+      return;
+    }
+
+    running = true;
+
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "appointment-reminders");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    executor.scheduleWithFixedDelay(this::tick, 0, tick.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+
+    if (!running) {
+      return;
+    }
+
+    running = false;
+    executor.shutdownNow();
+
+    try {
+      if (executor.awaitTermination(5, TimeUnit.SECONDS) && wheel != null) {
+        lease.release(LEASE_NAME, changeFeed.getInstanceId());
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+
+    } catch (RuntimeException e) {
+      LOGGER.error("No se ha podido liberar la concesión de recordatorios: {}", e.getMessage());
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Registra un cambio de cita para aplicarlo sobre la rueda
+   * 
+   * @param change Cambio de la cita
+   */
+  @EventListener
+  public void onChange(AppointmentChange change) {
+
+    if (running && change.current() != null) {
+      changes.add(change);
+    }
+  }
+
+  /**
+   * Solicita volver a cargar todos los recordatorios, al poder haberse perdido cambios de citas
+   * 
+   * @param resyncEvent Evento de resincronización
+   */
+  @EventListener
+  public void onResync(AppointmentChangeResync resyncEvent) {
+    resync.set(true);
+  }
+
+  /** Ejecución periódica del planificador: concesión, carga de recordatorios y envío de los vencidos */
+  private void tick() {
+
+    try {
+      long now = System.currentTimeMillis();
+
+      if (!holdLease()) {
+        changes.clear();
+        return;
+      }
+
+      if (resync.getAndSet(false)) {
+        reset(now);
+      }
+
+      applyChanges(now);
+
+      if (now >= nextLoadMillis) {
+        load(now);
+      }
+
+      fire(now);
+
+    } catch (RuntimeException e) {
+      LOGGER.error("Error en el planificador de recordatorios: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Renueva la concesión del planificador cuando corresponde. Al tomarla, carga los recordatorios; al perderla, los
+   * descarta
+   * 
+   * @return boolean - True si esta instancia posee la concesión
+   */
+  private boolean holdLease() {
+
+    long nanos = System.nanoTime();
+
+    if (nanos >= nextRenewalNanos) {
+
+      boolean acquired = false;
+
+      try {
+        acquired = lease.acquire(LEASE_NAME, changeFeed.getInstanceId(), leaseDuration);
+
+      } catch (RuntimeException e) {
+        LOGGER.error("No se ha podido renovar la concesión de recordatorios: {}", e.getMessage());
+      }
+
+      if (acquired) {
+
+        // El margen cubre el tiempo transcurrido desde que la base de datos calculó la expiración
+        leaseExpiresNanos = nanos + leaseDuration.toNanos() * 9 / 10;
+        nextRenewalNanos = nanos + leaseDuration.toNanos() / 3;
+
+        if (wheel == null) {
+          LOGGER.info("Esta instancia pasa a enviar los recordatorios de citas");
+          reset(System.currentTimeMillis());
+        }
+
+      } else {
+        nextRenewalNanos = nanos + tick.toNanos();
+      }
+    }
+
+    if (wheel != null && nanos >= leaseExpiresNanos) {
+
+      LOGGER.info("Esta instancia deja de enviar los recordatorios de citas");
+      wheel = null;
+    }
+
+    return wheel != null;
+  }
+
+  /**
+   * Descarta todos los recordatorios en memoria y vuelve a cargarlos desde el instante aportado
+   * 
+   * @param now Instante actual, en milisegundos desde epoch
+   */
+  private void reset(long now) {
+
+    wheel = new HashedTimingWheel(tick, wheelSize, now);
+    loadedDates = new LocalDateTime[leads.size()];
+    loadedIds = new long[leads.size()];
+
+    LocalDateTime start = toDate(now);
+
+    for (int i = 0; i < leads.size(); i++) {
+      loadedDates[i] = start.plus(leads.get(i));
+    }
+
+    changes.clear();
+    nextLoadMillis = now;
+  }
+
+  /**
+   * Carga por bloques los recordatorios que vencen dentro del horizonte y aún no se han cargado, sin superar el número
+   * máximo de recordatorios en memoria
+   * 
+   * @param now Instante actual, en milisegundos desde epoch
+   */
+  private void load(long now) {
+
+    LocalDateTime limit = toDate(now + horizon.toMillis());
+
+    for (int i = 0; i < leads.size(); i++) {
+
+      Duration lead = leads.get(i);
+      LocalDateTime to = limit.plus(lead);
+      boolean complete = false;
+
+      while (!complete && wheel.size() < maxPending) {
+
+        int size = Math.min(loadBatchSize, maxPending - wheel.size());
+        List<AppointmentSlot> slots = appointmentRepository.findSlotsAfter(loadedDates[i], loadedIds[i], to,
+            PageRequest.ofSize(size));
+
+        for (AppointmentSlot slot : slots) {
+          wheel.schedule(slot.getId(), i, toMillis(slot.getAppointmentDate().minus(lead)));
+        }
+
+        complete = slots.size() < size;
+
+        if (complete) {
+          loadedDates[i] = to;
+          loadedIds[i] = Long.MAX_VALUE;
+
+        } else {
+          AppointmentSlot last = slots.get(slots.size() - 1);
+          loadedDates[i] = last.getAppointmentDate();
+          loadedIds[i] = last.getId();
+        }
+      }
+    }
+
+    jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(toDate(now)));
+    nextLoadMillis = now + horizon.toMillis() / 4;
+  }
+
+  /**
+   * Programa los recordatorios de las citas creadas o modificadas cuyo vencimiento ya ha cubierto la carga. Los
+   * recordatorios posteriores se programarán al cargarlos. Los recordatorios anteriores al cambio se descartarán al
+   * vencer
+   * 
+   * @param now Instante actual, en milisegundos desde epoch
+   */
+  private void applyChanges(long now) {
+
+    AppointmentChange change;
+
+    while ((change = changes.poll()) != null) {
+
+      LocalDateTime date = change.current().appointmentDate();
+      long id = change.appointmentId();
+
+      for (int i = 0; i < leads.size(); i++) {
+
+        long deadline = toMillis(date.minus(leads.get(i)));
+        boolean loaded = date.isBefore(loadedDates[i]) || (date.isEqual(loadedDates[i]) && id <= loadedIds[i]);
+
+        if (loaded && deadline > now) {
+          wheel.schedule(id, i, deadline);
+        }
+      }
+    }
+  }
+
+  /**
+   * Envía los recordatorios vencidos que siguen correspondiendo a la fecha actual de su cita y que ninguna instancia ha
+   * enviado todavía
+   * 
+   * @param now Instante actual, en milisegundos desde epoch
+   */
+  private void fire(long now) {
+
+    List<long[]> expired = new ArrayList<>();
+    wheel.advance(now, (appointmentId, leadIndex, deadline) -> expired
+        .add(new long[] { appointmentId, leadIndex, deadline }));
+
+    for (int from = 0; from < expired.size(); from += FIRE_BATCH_SIZE) {
+      fire(expired.subList(from, Math.min(from + FIRE_BATCH_SIZE, expired.size())));
+    }
+  }
+
+  /**
+   * Comprueba, reclama y envía un bloque de recordatorios vencidos
+   * 
+   * @param expired Recordatorios vencidos (ID de la cita, índice de la antelación, vencimiento)
+   */
+  private void fire(List<long[]> expired) {
+
+    Map<Long, AppointmentSlot> slots = new HashMap<>();
+    appointmentRepository.findSlotsByIdIn(expired.stream().map(reminder -> reminder[0]).distinct().toList())
+        .forEach(slot -> slots.put(slot.getId(), slot));
+
+    List<Reminder> valid = new ArrayList<>();
+
+    for (long[] reminder : expired) {
+
+      AppointmentSlot slot = slots.get(reminder[0]);
+      Duration lead = leads.get((int) reminder[1]);
+
+      if (slot != null && toMillis(slot.getAppointmentDate().minus(lead)) == reminder[2]) {
+        valid.add(new Reminder(slot.getId(), slot.getVetId(), slot.getAppointmentDate(), lead));
+      }
+    }
+
+    if (!valid.isEmpty() && System.nanoTime() < leaseExpiresNanos) {
+      claim(valid).forEach(this::send);
+    }
+  }
+
+  /**
+   * Reclama los recordatorios aportados en la tabla de recordatorios enviados
+   * 
+   * @param reminders Recordatorios a reclamar
+   * @return List(Reminder) - Recordatorios reclamados por esta instancia, que nadie ha enviado todavía
+   */
+  private List<Reminder> claim(List<Reminder> reminders) {
+
+    Map<String, Reminder> byKey = new HashMap<>();
+    reminders.forEach(reminder -> byKey.put(reminder.appointmentId() + ":" + reminder.lead().toMinutes(), reminder));
+
+    List<String> claimed = jdbcTemplate.query((Connection connection) -> {
+
+      PreparedStatement statement = connection.prepareStatement(CLAIM_SQL);
+      statement.setArray(1, toArray(connection, "int8", reminders.stream().map(Reminder::appointmentId)));
+      statement.setArray(2, toArray(connection, "int4", reminders.stream().map(r -> (int) r.lead().toMinutes())));
+      statement.setArray(3, toArray(connection, "timestamp",
+          reminders.stream().map(reminder -> Timestamp.valueOf(reminder.appointmentDate()))));
+
+      return statement;
+
+    }, (resultSet, rowNum) -> resultSet.getLong(1) + ":" + resultSet.getInt(2));
+
+    return claimed.stream().map(byKey::get).toList();
+  }
+
+  /**
+   * Entrega un recordatorio a todos los destinos. Un error en un destino no impide la entrega al resto
+   * 
+   * @param reminder Recordatorio
+   */
+  private void send(Reminder reminder) {
+
+    for (ReminderSink sink : sinks) {
+
+      try {
+        sink.send(reminder);
+
+      } catch (RuntimeException e) {
+        LOGGER.error("Error al enviar el recordatorio de la cita {}: {}", reminder.appointmentId(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Crea un array SQL
+   * 
+   * @param connection Conexión con la base de datos
+   * @param type       Tipo de los elementos
+   * @param values     Elementos
+   * @return Array - Array SQL
+   * @throws SQLException Si no se puede crear el array
+   */
+  private static Array toArray(Connection connection, String type, Stream<?> values)
+      throws SQLException {
+    return connection.createArrayOf(type, values.toArray());
+  }
+
+  /**
+   * Convierte una fecha en milisegundos desde epoch
+   * 
+   * @param date Fecha
+   * @return long
+   */
+  private static long toMillis(LocalDateTime date) {
+    return date.atZone(ZONE).toInstant().toEpochMilli();
+  }
+
+  /**
+   * Convierte milisegundos desde epoch en una fecha
+   * 
+   * @param millis Milisegundos desde epoch
+   * @return LocalDateTime
+   */
+  private static LocalDateTime toDate(long millis) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZONE);
+  }
+
+}
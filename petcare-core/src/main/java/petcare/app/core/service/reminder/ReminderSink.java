@@ -0,0 +1,17 @@
+package petcare.app.core.service.reminder;
+
+/**
+ * Destino de los recordatorios de citas. Cada recordatorio se entrega a todos los destinos registrados, una única vez
+ * entre todas las instancias de petcare-core
+ */
+public interface ReminderSink {
+
+  /**
+   * Entrega un recordatorio. Se invoca desde el hilo del planificador de recordatorios, por lo que las
+   * implementaciones lentas deben delegar el envío en otro hilo
+   * 
+   * @param reminder Recordatorio a entregar
+   */
+  void send(Reminder reminder);
+
+}
@@ -0,0 +1,63 @@
+package petcare.app.core.service.reminder;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Concesiones (leases) de tareas que sólo debe ejecutar una instancia de petcare-core a la vez.<br/>
+ * Cada concesión pertenece a una única instancia hasta su expiración. El propietario debe renovarla antes de que
+ * expire; en otro caso, cualquier otra instancia puede tomarla. Las fechas se calculan en la base de datos, de forma
+ * que no influyen las diferencias de reloj entre instancias
+ */
+@Component
+public class SchedulerLease {
+
+  /** Toma o renueva una concesión si no existe, ha expirado o ya pertenece al solicitante */
+  private static final String ACQUIRE_SQL = """
+      INSERT INTO scheduler_lease (name, owner, expires_at) VALUES (?, ?, now() + make_interval(secs => ?))
+        ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at
+          WHERE scheduler_lease.owner = EXCLUDED.owner OR scheduler_lease.expires_at < now()
+      """;
+
+  /** Libera una concesión del solicitante */
+  private static final String RELEASE_SQL = "DELETE FROM scheduler_lease WHERE name = ? AND owner = ?";
+
+  /** Acceso JDBC a la base de datos */
+  private JdbcTemplate jdbcTemplate;
+
+  /**
+   * Setter - JdbcTemplate. Inyección de dependencias
+   * 
+   * @param jdbcTemplate Acceso JDBC a la base de datos
+   */
+  @Autowired
+  public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Toma o renueva una concesión
+   * 
+   * @param name     Nombre de la concesión
+   * @param owner    Identificador del solicitante
+   * @param duration Duración de la concesión
+   * @return boolean - True si el solicitante es el propietario de la concesión hasta que transcurra la duración
+   */
+  public boolean acquire(String name, String owner, Duration duration) {
+    return jdbcTemplate.update(ACQUIRE_SQL, name, owner, duration.toMillis() / 1000.0) == 1;
+  }
+
+  /**
+   * Libera una concesión, si pertenece al solicitante, de forma que otra instancia puede tomarla inmediatamente
+   * 
+   * @param name  Nombre de la concesión
+   * @param owner Identificador del solicitante
+   */
+  public void release(String name, String owner) {
+    jdbcTemplate.update(RELEASE_SQL, name, owner);
+  }
+
+}
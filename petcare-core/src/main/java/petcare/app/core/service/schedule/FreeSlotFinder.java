@@ -0,0 +1,163 @@
+package petcare.app.core.service.schedule;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import petcare.app.domain.dto.FreeSlotDto;
+
+/**
+ * Clase de utilidad que busca los primeros huecos libres de una clínica veterinaria.<br/>
+ * Cada veterinario aporta la lista de sus citas ordenada por fecha, a partir de la cual se recorren de forma perezosa
+ * sus huecos libres. Los recorridos de todos los veterinarios se mezclan mediante una cola de prioridad (k-way merge),
+ * por lo que sólo se calculan los huecos necesarios para completar el resultado
+ */
+public class FreeSlotFinder {
+
+  /** Constructor privado para evitar inicialización */
+  private FreeSlotFinder() {
+
+  }
+
+  /**
+   * Busca los primeros huecos libres de la duración indicada entre todos los veterinarios aportados
+   * 
+   * @param busyByVet    Fechas de comienzo de las citas de cada veterinario, ordenadas de forma ascendente
+   * @param from         Fecha a partir de la cual se buscan huecos. Se ajusta al comienzo del primer hueco de la agenda
+   *                     a partir de ella ({@link #alignToSlot(LocalDateTime, Duration)})
+   * @param to           Fecha en la que deben haber terminado los huecos
+   * @param slotDuration Duración del hueco que ocupa cada cita
+   * @param duration     Duración de los huecos buscados
+   * @param limit        Número máximo de huecos a devolver
+   * @return List(FreeSlotDto) - Huecos libres ordenados por fecha de comienzo y, a igual fecha, por ID de veterinario
+   */
+  public static List<FreeSlotDto> findFirst(Map<Long, List<LocalDateTime>> busyByVet, LocalDateTime from,
+      LocalDateTime to, Duration slotDuration, Duration duration, int limit) {
+
+    PriorityQueue<VetCursor> queue = new PriorityQueue<>(
+        Comparator.comparing((VetCursor cursor) -> cursor.candidate).thenComparing(cursor -> cursor.vetId));
+
+    LocalDateTime start = alignToSlot(from, slotDuration);
+
+    // Se posiciona cada veterinario en su primer hueco libre
+    busyByVet.forEach((vetId, busy) -> {
+
+      VetCursor cursor = new VetCursor(vetId, busy, start, to, slotDuration, duration);
+
+      if (cursor.advance()) {
+        queue.add(cursor);
+      }
+    });
+
+    List<FreeSlotDto> freeSlots = new ArrayList<>(limit);
+
+    // Se extrae siempre el hueco más temprano y se reinserta el veterinario en su siguiente hueco
+    while (freeSlots.size() < limit && !queue.isEmpty()) {
+
+      VetCursor cursor = queue.poll();
+      freeSlots.add(new FreeSlotDto(cursor.vetId, cursor.candidate, cursor.candidate.plus(duration)));
+
+      cursor.candidate = cursor.candidate.plus(duration);
+
+      if (cursor.advance()) {
+        queue.add(cursor);
+      }
+    }
+
+    return freeSlots;
+  }
+
+  /**
+   * Ajusta una fecha al comienzo del primer hueco de la agenda a partir de ella. Los huecos de cada día comienzan a
+   * medianoche y se suceden cada slotDuration, por lo que, por ejemplo, las 10:07:13 pasan a las 10:30 con huecos de 30
+   * minutos
+   * 
+   * @param from         Fecha a ajustar
+   * @param slotDuration Duración del hueco que ocupa cada cita
+   * @return LocalDateTime - Comienzo del primer hueco que no es anterior a la fecha aportada
+   */
+  static LocalDateTime alignToSlot(LocalDateTime from, Duration slotDuration) {
+
+    LocalDateTime dayStart = from.toLocalDate().atStartOfDay();
+    long slotNanos = slotDuration.toNanos();
+
+    return dayStart.plusNanos(Math.ceilDiv(Duration.between(dayStart, from).toNanos(), slotNanos) * slotNanos);
+  }
+
+  /** Recorrido de los huecos libres de la agenda de un veterinario */
+  private static final class VetCursor {
+
+    /** ID del veterinario */
+    private final Long vetId;
+
+    /** Fechas de comienzo de las citas del veterinario, ordenadas de forma ascendente */
+    private final List<LocalDateTime> busy;
+
+    /** Fecha en la que deben haber terminado los huecos */
+    private final LocalDateTime to;
+
+    /** Duración del hueco que ocupa cada cita */
+    private final Duration slotDuration;
+
+    /** Duración de los huecos buscados */
+    private final Duration duration;
+
+    /** Posición de la primera cita que aún puede solaparse con el hueco candidato */
+    private int index;
+
+    /** Fecha de comienzo del hueco candidato */
+    private LocalDateTime candidate;
+
+    /**
+     * Constructor
+     * 
+     * @param vetId        ID del veterinario
+     * @param busy         Fechas de comienzo de las citas del veterinario
+     * @param from         Fecha a partir de la cual se buscan huecos
+     * @param to           Fecha en la que deben haber terminado los huecos
+     * @param slotDuration Duración del hueco que ocupa cada cita
+     * @param duration     Duración de los huecos buscados
+     */
+    private VetCursor(Long vetId, List<LocalDateTime> busy, LocalDateTime from, LocalDateTime to,
+        Duration slotDuration, Duration duration) {
+
+      this.vetId = vetId;
+      this.busy = busy;
+      this.to = to;
+      this.slotDuration = slotDuration;
+      this.duration = duration;
+      this.candidate = from;
+    }
+
+    /**
+     * Desplaza el hueco candidato hasta el primer hueco libre a partir de su posición actual
+     * 
+     * @return boolean - true si existe un hueco libre que termina dentro de la ventana de búsqueda
+     */
+    private boolean advance() {
+
+      while (!candidate.plus(duration).isAfter(to)) {
+
+        // Se descartan las citas que terminan antes del comienzo del candidato
+        while (index < busy.size() && !busy.get(index).plus(slotDuration).isAfter(candidate)) {
+          index++;
+        }
+
+        // Si la siguiente cita comienza antes de que termine el candidato, se salta al final de la cita
+        if (index < busy.size() && busy.get(index).isBefore(candidate.plus(duration))) {
+          candidate = busy.get(index).plus(slotDuration);
+
+        } else {
+          return true;
+        }
+      }
+
+      return false;
+    }
+  }
+
+}
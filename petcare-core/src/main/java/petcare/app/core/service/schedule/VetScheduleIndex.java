@@ -0,0 +1,365 @@
+package petcare.app.core.service.schedule;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import petcare.app.domain.repository.AppointmentRepository;
+import petcare.app.domain.repository.projection.AppointmentSlot;
+import petcare.app.domain.utils.ExceptionMessages;
+
+/**
+ * Índice en memoria de las agendas de los veterinarios. Para cada veterinario mantiene sus citas próximas ordenadas por
+ * fecha, de forma que comprobar si un nuevo hueco se solapa con otro ya ocupado es una operación O(log n).<br/>
+ * Cada cita ocupa un hueco de duración fija, configurable mediante la propiedad petcare.appointments.slot-duration,
+ * que debe coincidir con la de las restricciones de exclusión de la base de datos. Se comprueba al arrancar.<br/>
+ * El acceso a la agenda de un veterinario se sincroniza mediante un conjunto fijo de cerrojos repartidos por ID de
+ * veterinario, de forma que las reservas de veterinarios distintos no compiten entre sí.<br/>
+ * Las citas cuyo hueco ya ha terminado se descartan periódicamente, de forma que el índice no crece sin límite.<br/>
+ * El índice es local a cada instancia de petcare-core. El árbitro final ante reservas concurrentes desde distintas
+ * instancias son las restricciones de exclusión de cada partición mensual de citas, junto con el trigger
+ * appointment_month_boundary_overlap para las citas a ambos lados de un cambio de mes
+ */
+@Component
+public class VetScheduleIndex {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(VetScheduleIndex.class);
+
+  /**
+   * Duraciones, en segundos, de los huecos de las restricciones de exclusión de citas solapadas y del trigger que las
+   * completa en los cambios de mes
+   */
+  private static final String DATABASE_SLOT_DURATIONS_SQL = """
+      SELECT EXTRACT(EPOCH FROM substring(pg_get_constraintdef(oid) FROM '''([^'']+)''::interval')::interval)
+        FROM pg_constraint
+        WHERE contype = 'x' AND conname LIKE '%vet_no_overlap'
+      UNION
+      SELECT EXTRACT(EPOCH FROM substring(prosrc FROM 'slot\\s+interval\\s+:=\\s+interval ''([^'']+)''')::interval)
+        FROM pg_proc
+        WHERE proname = 'appointment_check_month_boundary'
+      """;
+
+  /** Número de cerrojos entre los que se reparten los veterinarios */
+  private static final int STRIPES = 64;
+
+  /** Cerrojos de acceso a las agendas */
+  private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+  /** Agendas de los veterinarios. Fecha de comienzo de cada cita - ID de la cita */
+  private final Map<Long, TreeMap<LocalDateTime, Long>> schedules = new ConcurrentHashMap<>();
+
+  /** IDs de las citas cuya reserva aún no ha sido confirmada por su transacción */
+  private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+  /** Duración del hueco que ocupa cada cita */
+  private Duration slotDuration;
+
+  /** Repositorio de citas veterinarias */
+  private AppointmentRepository appointmentRepository;
+
+  /** Acceso JDBC a la base de datos */
+  private JdbcTemplate jdbcTemplate;
+
+  /** Constructor. Inicializa los cerrojos */
+  public VetScheduleIndex() {
+
+    for (int i = 0; i < STRIPES; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Setter - Duración del hueco que ocupa cada cita
+   * 
+   * @param slotDuration Duración del hueco
+   */
+  @Value("${petcare.appointments.slot-duration:30m}")
+  public void setSlotDuration(Duration slotDuration) {
+    this.slotDuration = slotDuration;
+  }
+
+  /**
+   * Setter - AppointmentRepository. Inyección de dependencias
+   * 
+   * @param appointmentRepository Repositorio de citas veterinarias
+   */
+  @Autowired
+  public void setAppointmentRepository(AppointmentRepository appointmentRepository) {
+    this.appointmentRepository = appointmentRepository;
+  }
+
+  /**
+   * Setter - JdbcTemplate. Inyección de dependencias
+   * 
+   * @param jdbcTemplate Acceso JDBC a la base de datos
+   */
+  @Autowired
+  public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Getter - Duración del hueco que ocupa cada cita
+   * 
+   * @return Duration
+   */
+  public Duration getSlotDuration() {
+    return slotDuration;
+  }
+
+  /**
+   * Comprueba la duración del hueco y construye el índice al arrancar
+   * 
+   * @throws IllegalStateException Si la duración del hueco no coincide con la de la base de datos
+   */
+  @PostConstruct
+  public void initialize() {
+
+    verifySlotDuration();
+    rebuild();
+  }
+
+  /** Reconstruye el índice con todas las citas próximas almacenadas en el sistema */
+  public void rebuild() {
+
+    schedules.clear();
+    pending.clear();
+
+    int count = 0;
+    for (AppointmentSlot slot : appointmentRepository.findSlotsAfter(LocalDateTime.now().minus(slotDuration))) {
+
+      if (slot.getVetId() != null && slot.getAppointmentDate() != null) {
+        schedules.computeIfAbsent(slot.getVetId(), id -> new TreeMap<>()).put(slot.getAppointmentDate(), slot.getId());
+        count++;
+      }
+    }
+
+    LOGGER.info("Índice de agendas reconstruido con {} citas", count);
+  }
+
+  /** Descarta del índice las citas cuyo hueco ya ha terminado, que no pueden solaparse con ninguna reserva nueva */
+  @Scheduled(fixedDelayString = "${petcare.appointments.schedule-index.prune-interval:PT10M}")
+  public void prune() {
+
+    LocalDateTime cutoff = LocalDateTime.now().minus(slotDuration);
+    int count = 0;
+
+    for (Long vetId : schedules.keySet()) {
+
+      ReentrantLock lock = lockFor(vetId);
+      lock.lock();
+
+      try {
+        TreeMap<LocalDateTime, Long> schedule = schedules.get(vetId);
+
+        if (schedule != null) {
+
+          SortedMap<LocalDateTime, Long> past = schedule.headMap(cutoff);
+          count += past.size();
+          past.clear();
+
+          if (schedule.isEmpty()) {
+            schedules.remove(vetId);
+          }
+        }
+
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    LOGGER.debug("Citas pasadas descartadas del índice de agendas: {}", count);
+  }
+
+  /**
+   * Reserva el hueco que comienza en la fecha aportada en la agenda del veterinario, siempre que no se solape con otra
+   * cita. La comprobación y la reserva se realizan de forma atómica. La reserva queda pendiente hasta que se llame a
+   * {@link #confirm(Long)}
+   * 
+   * @param vetId         ID del veterinario
+   * @param start         Fecha de comienzo de la cita
+   * @param appointmentId ID de la cita. Sus propias reservas previas no se consideran solapamientos
+   * @return Slot - La cita con la que se solapa, o null si se ha realizado la reserva
+   */
+  public Slot reserve(Long vetId, LocalDateTime start, Long appointmentId) {
+
+    ReentrantLock lock = lockFor(vetId);
+    lock.lock();
+
+    try {
+      TreeMap<LocalDateTime, Long> schedule = schedules.computeIfAbsent(vetId, id -> new TreeMap<>());
+      Slot conflict = findConflict(vetId, schedule, start, appointmentId);
+
+      if (conflict == null) {
+        schedule.put(start, appointmentId);
+        pending.add(appointmentId);
+      }
+
+      return conflict;
+
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Comprueba, sin reservarlo, si el hueco que comienza en la fecha aportada se solapa con otra cita de la agenda del
+   * veterinario
+   * 
+   * @param vetId         ID del veterinario
+   * @param start         Fecha de comienzo de la cita
+   * @param appointmentId ID de la cita. Puede ser null si aún no se ha almacenado
+   * @return Slot - La cita con la que se solapa, o null si el hueco está libre
+   */
+  public Slot check(Long vetId, LocalDateTime start, Long appointmentId) {
+
+    ReentrantLock lock = lockFor(vetId);
+    lock.lock();
+
+    try {
+      TreeMap<LocalDateTime, Long> schedule = schedules.get(vetId);
+      return schedule == null ? null : findConflict(vetId, schedule, start, appointmentId);
+
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Confirma las reservas de la cita, una vez finalizada la transacción que las realizó
+   * 
+   * @param appointmentId ID de la cita
+   */
+  public void confirm(Long appointmentId) {
+    pending.remove(appointmentId);
+  }
+
+  /**
+   * Indica si la reserva de la cita pertenece a una transacción aún no finalizada
+   * 
+   * @param appointmentId ID de la cita
+   * @return boolean
+   */
+  public boolean isPending(Long appointmentId) {
+    return pending.contains(appointmentId);
+  }
+
+  /**
+   * Libera el hueco que comienza en la fecha aportada, siempre que siga reservado por la cita indicada
+   * 
+   * @param vetId         ID del veterinario
+   * @param start         Fecha de comienzo de la cita
+   * @param appointmentId ID de la cita
+   */
+  public void release(Long vetId, LocalDateTime start, Long appointmentId) {
+
+    ReentrantLock lock = lockFor(vetId);
+    lock.lock();
+
+    try {
+      TreeMap<LocalDateTime, Long> schedule = schedules.get(vetId);
+
+      if (schedule != null) {
+        schedule.remove(start, appointmentId);
+
+        if (schedule.isEmpty()) {
+          schedules.remove(vetId);
+        }
+      }
+
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Busca la cita de la agenda que se solapa con el hueco que comienza en la fecha aportada. Al tener todos los huecos
+   * la misma duración y no solaparse entre sí, basta con comprobar la cita inmediatamente anterior y la inmediatamente
+   * posterior
+   * 
+   * @param vetId         ID del veterinario
+   * @param schedule      Agenda del veterinario
+   * @param start         Fecha de comienzo del hueco
+   * @param appointmentId ID de la cita que solicita el hueco
+   * @return Slot - La cita con la que se solapa, o null si el hueco está libre
+   */
+  private Slot findConflict(Long vetId, TreeMap<LocalDateTime, Long> schedule, LocalDateTime start,
+      Long appointmentId) {
+
+    Entry<LocalDateTime, Long> previous = schedule.floorEntry(start);
+
+    if (previous != null && !previous.getValue().equals(appointmentId)
+        && previous.getKey().plus(slotDuration).isAfter(start)) {
+      return new Slot(vetId, previous.getKey(), previous.getValue());
+    }
+
+    Entry<LocalDateTime, Long> next = schedule.ceilingEntry(start);
+
+    if (next != null && !next.getValue().equals(appointmentId) && start.plus(slotDuration).isAfter(next.getKey())) {
+      return new Slot(vetId, next.getKey(), next.getValue());
+    }
+
+    return null;
+  }
+
+  /**
+   * Comprueba que la duración del hueco configurada coincide con la de la base de datos. Si no coinciden, el índice y
+   * la base de datos considerarían solapadas citas distintas
+   * 
+   * @throws IllegalStateException Si alguna duración de la base de datos es distinta de la configurada
+   */
+  private void verifySlotDuration() {
+
+    List<Double> databaseSeconds = jdbcTemplate.queryForList(DATABASE_SLOT_DURATIONS_SQL, Double.class);
+
+    if (databaseSeconds.isEmpty() || databaseSeconds.contains(null)) {
+      LOGGER.warn("No se ha podido obtener de la base de datos la duración del hueco de las citas");
+    }
+
+    for (Double seconds : databaseSeconds) {
+
+      if (seconds != null && seconds.longValue() != slotDuration.toSeconds()) {
+        throw new IllegalStateException(String.format(ExceptionMessages.SLOT_DURATION_MISMATCH, slotDuration,
+            Duration.ofSeconds(seconds.longValue())));
+      }
+    }
+  }
+
+  /**
+   * Obtiene el cerrojo que protege la agenda del veterinario
+   * 
+   * @param vetId ID del veterinario
+   * @return ReentrantLock
+   */
+  private ReentrantLock lockFor(Long vetId) {
+    return locks[Math.floorMod(vetId.hashCode(), STRIPES)];
+  }
+
+  /**
+   * Hueco ocupado en la agenda de un veterinario
+   * 
+   * @param vetId         ID del veterinario
+   * @param start         Fecha de comienzo de la cita
+   * @param appointmentId ID de la cita
+   */
+  public record Slot(Long vetId, LocalDateTime start, Long appointmentId) {
+  }
+
+}
@@ -0,0 +1,4 @@
+-- Los hashes de contraseña se almacenan precedidos del identificador de su algoritmo ("{bcrypt}$2a$12$..."), por lo que
+-- ya no caben en 60 caracteres. Los hashes existentes, sin prefijo, siguen siendo válidos y se actualizan al formato
+-- nuevo en el siguiente login correcto de cada usuario (petcare-security)
+ALTER TABLE app_user ALTER COLUMN password TYPE varchar(100);
@@ -0,0 +1,48 @@
+-- Comprobación de citas solapadas de un veterinario en distintos meses.
+-- Las restricciones de exclusión de citas solapadas son propias de cada partición mensual (V6), por lo que dos citas
+-- del mismo veterinario a ambos lados de un cambio de mes, como las 23:45 del 31 de enero y las 00:00 del 1 de
+-- febrero, no se comprueban entre sí. Este trigger completa la restricción en ese caso: las citas cuyo hueco de
+-- 30 minutos (propiedad petcare.appointments.slot-duration) está a menos de un hueco de un cambio de mes se comprueban
+-- contra las del mes vecino.
+-- Las transacciones que reservan junto al mismo cambio de mes para el mismo veterinario se serializan mediante un
+-- cerrojo consultivo, de forma que la segunda ve la cita de la primera una vez confirmada. El resto de citas no
+-- adquieren el cerrojo ni realizan la consulta.
+CREATE OR REPLACE FUNCTION appointment_check_month_boundary() RETURNS trigger AS $$
+DECLARE
+  slot        interval  := interval '30 minutes';
+  month_start timestamp := date_trunc('month', NEW.appointment_date);
+  boundary    timestamp;
+BEGIN
+  IF NEW.vet_id IS NULL THEN
+    RETURN NULL;
+  END IF;
+
+  IF date_trunc('month', NEW.appointment_date + slot) > month_start THEN
+    boundary := date_trunc('month', NEW.appointment_date + slot);
+  ELSIF NEW.appointment_date - slot < month_start THEN
+    boundary := month_start;
+  ELSE
+    RETURN NULL;
+  END IF;
+
+  PERFORM pg_advisory_xact_lock(hashtext('appointment_month_boundary'), hashtext(NEW.vet_id || '@' || boundary));
+
+  IF EXISTS (
+    SELECT 1 FROM appointment
+      WHERE vet_id = NEW.vet_id
+        AND id <> NEW.id
+        AND appointment_date > NEW.appointment_date - slot
+        AND appointment_date < NEW.appointment_date + slot
+        AND date_trunc('month', appointment_date) <> month_start
+  ) THEN
+    RAISE EXCEPTION 'La cita % se solapa con otra del veterinario % en el mes vecino', NEW.id, NEW.vet_id
+      USING ERRCODE = 'exclusion_violation', CONSTRAINT = 'appointment_vet_no_overlap';
+  END IF;
+
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER appointment_month_boundary_overlap
+  AFTER INSERT OR UPDATE OF vet_id, appointment_date ON appointment
+  FOR EACH ROW EXECUTE FUNCTION appointment_check_month_boundary();
@@ -0,0 +1,60 @@
+-- Una partición desvinculada de appointment conserva las claves ajenas heredadas hacia client, pet y vet, también tras
+-- vincularla a appointment_archive, que no tiene claves ajenas. Las citas archivadas impedirían entonces eliminar
+-- mascotas, clientes o veterinarios. Las claves ajenas se eliminan de cada partición al archivarla.
+
+-- Elimina las claves ajenas de una partición archivada
+CREATE OR REPLACE FUNCTION appointment_drop_partition_foreign_keys(partition_name text) RETURNS void AS $$
+DECLARE
+  constraint_name name;
+BEGIN
+  FOR constraint_name IN
+    SELECT conname FROM pg_constraint
+      WHERE conrelid = partition_name::regclass
+        AND contype = 'f'
+  LOOP
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, constraint_name);
+  END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Traslada a appointment_archive las particiones de los meses que terminan antes de la fecha aportada.
+-- Devuelve el número de particiones archivadas
+CREATE OR REPLACE FUNCTION appointment_archive_partitions(archive_before date) RETURNS integer AS $$
+DECLARE
+  partition_name text;
+  month_start    timestamp;
+  archived       integer := 0;
+BEGIN
+  PERFORM pg_advisory_xact_lock(hashtext('appointment_partitions'));
+
+  FOR partition_name IN
+    SELECT child.relname FROM pg_inherits
+      JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+      JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+      WHERE parent.oid = 'appointment'::regclass
+        AND child.relname ~ '^appointment_p[0-9]{6}$'
+      ORDER BY child.relname
+  LOOP
+    month_start := to_date(substring(partition_name FROM 14), 'YYYYMM')::timestamp;
+
+    IF month_start + interval '1 month' <= archive_before THEN
+
+      EXECUTE format('ALTER TABLE appointment DETACH PARTITION %I', partition_name);
+      PERFORM appointment_drop_partition_foreign_keys(partition_name);
+      EXECUTE format('ALTER TABLE appointment_archive ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+          partition_name, month_start, month_start + interval '1 month');
+
+      archived := archived + 1;
+    END IF;
+  END LOOP;
+
+  RETURN archived;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Particiones ya archivadas
+SELECT appointment_drop_partition_foreign_keys(child.relname)
+  FROM pg_inherits
+  JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+  JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+  WHERE parent.oid = 'appointment_archive'::regclass;
@@ -0,0 +1,88 @@
+-- Esquema inicial, previo a las migraciones. Sólo se ejecuta en una base de datos vacía: en una base de datos con el
+-- esquema ya creado, Flyway la toma como versión 1 (spring.flyway.baseline-on-migrate) y no ejecuta este script.
+-- Reproduce las tablas que generaba Hibernate a partir de las entidades de domain-model-commons.
+
+-- Usuarios y roles (petcare-security)
+CREATE TABLE role (
+  id   bigint      GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  name varchar(30) UNIQUE
+);
+
+CREATE TABLE app_user (
+  id       bigint      GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  username varchar(20) UNIQUE,
+  password varchar(60),
+  enabled  boolean     NOT NULL,
+  email    varchar(80)
+);
+
+CREATE TABLE users_roles (
+  app_user_id bigint NOT NULL REFERENCES app_user (id),
+  role_id     bigint NOT NULL REFERENCES role (id),
+  UNIQUE (app_user_id, role_id)
+);
+
+-- Clientes, veterinarios y entidades veterinarias. Cada uno amplía su fila de app_user (herencia JOINED)
+CREATE TABLE client (
+  id                   bigint       PRIMARY KEY REFERENCES app_user (id),
+  national_id_document varchar(9)   UNIQUE,
+  name                 varchar(100),
+  birthdate            date,
+  address              varchar(100),
+  phone_number         varchar(9)
+);
+
+CREATE TABLE vet_entity (
+  id           bigint       PRIMARY KEY REFERENCES app_user (id),
+  cif          varchar(9)   UNIQUE,
+  name         varchar(100),
+  address      varchar(255),
+  phone_number varchar(9)   UNIQUE
+);
+
+CREATE TABLE vet (
+  id                   bigint       PRIMARY KEY REFERENCES app_user (id),
+  national_id_document varchar(9)   UNIQUE,
+  registration_number  varchar(20)  UNIQUE,
+  name                 varchar(100),
+  vet_entity_id        bigint       REFERENCES vet_entity (id)
+);
+
+-- Mascotas, informes y citas
+CREATE TABLE pet (
+  id          bigint      GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  chip_number varchar(15),
+  type        varchar(20) CHECK (type IN ('dog', 'cat', 'horse', 'ferret', 'bird', 'rabbit')),
+  breed       varchar(50),
+  name        varchar(50),
+  birthdate   date,
+  alive       boolean     DEFAULT true,
+  castrated   boolean
+);
+
+CREATE TABLE client_pets (
+  client_id bigint NOT NULL REFERENCES client (id),
+  pet_id    bigint NOT NULL REFERENCES pet (id),
+  UNIQUE (pet_id, client_id)
+);
+
+CREATE TABLE report (
+  id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  reason      text,
+  diagnosis   text,
+  treatment   text,
+  report_date date,
+  vet_id      bigint REFERENCES vet (id),
+  pet_id      bigint REFERENCES pet (id)
+);
+
+CREATE TABLE appointment (
+  id               bigint       GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  client_id        bigint       REFERENCES client (id),
+  pet_id           bigint       REFERENCES pet (id),
+  vet_id           bigint       REFERENCES vet (id),
+  appointment_date timestamp(6)
+);
+
+-- Roles que se asignan en el registro de usuarios
+INSERT INTO role (name) VALUES ('ROLE_CLIENT'), ('ROLE_VET'), ('ROLE_VET_ENTITY'), ('ROLE_ROOT');
@@ -0,0 +1,6 @@
+-- Índices que soportan la paginación por cursor (keyset) de las citas próximas.
+-- Con ellos, cada página se obtiene buscando directamente el par (fecha, id) en el índice,
+-- en lugar de recorrer y descartar todas las filas anteriores con un offset.
+CREATE INDEX IF NOT EXISTS appointment_vet_date_idx ON appointment (vet_id, appointment_date, id);
+CREATE INDEX IF NOT EXISTS appointment_pet_date_idx ON appointment (pet_id, appointment_date, id);
+CREATE INDEX IF NOT EXISTS vet_vet_entity_idx ON vet (vet_entity_id);
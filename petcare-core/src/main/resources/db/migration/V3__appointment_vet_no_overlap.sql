@@ -0,0 +1,12 @@
+-- Restricción de exclusión que impide que un veterinario tenga dos citas solapadas.
+-- Cada cita ocupa un hueco de 30 minutos (propiedad petcare.appointments.slot-duration).
+-- Es el árbitro final cuando varias instancias de petcare-core reservan a la vez, ya que
+-- el índice de agendas en memoria es local a cada instancia.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE appointment
+  ADD CONSTRAINT appointment_vet_no_overlap
+  EXCLUDE USING gist (
+    vet_id WITH =,
+    tsrange(appointment_date, appointment_date + interval '30 minutes') WITH &&
+  );
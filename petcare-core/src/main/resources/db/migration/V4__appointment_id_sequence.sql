@@ -0,0 +1,9 @@
+-- Los IDs de las citas pasan a obtenerse de una secuencia con incremento 50, que Hibernate reparte en bloques
+-- (optimizador pooled). A diferencia de IDENTITY, el ID se conoce antes de insertar, por lo que las inserciones
+-- pueden agruparse en lotes JDBC.
+ALTER TABLE appointment ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS appointment_seq INCREMENT BY 50;
+
+-- El primer bloque comienza tras el mayor ID existente
+SELECT setval('appointment_seq', COALESCE((SELECT MAX(id) FROM appointment), 0) + 50, false);
@@ -0,0 +1,18 @@
+-- Concesiones (leases) de tareas que sólo debe ejecutar una instancia de petcare-core a la vez. La instancia que
+-- posee la concesión debe renovarla antes de que expire; en otro caso, cualquier otra instancia puede tomarla.
+CREATE TABLE IF NOT EXISTS scheduler_lease (
+  name       varchar(64) PRIMARY KEY,
+  owner      varchar(64) NOT NULL,
+  expires_at timestamp   NOT NULL
+);
+
+-- Recordatorios de citas ya enviados. Cada recordatorio se reclama insertando su fila antes de enviarlo, de forma
+-- que nunca se envía dos veces, aunque dos instancias lleguen a disparar el mismo recordatorio durante un cambio de
+-- propietario de la concesión.
+CREATE TABLE IF NOT EXISTS appointment_reminder_sent (
+  appointment_id   bigint    NOT NULL,
+  lead_minutes     integer   NOT NULL,
+  appointment_date timestamp NOT NULL,
+  sent_at          timestamp NOT NULL DEFAULT now(),
+  PRIMARY KEY (appointment_id, lead_minutes, appointment_date)
+);
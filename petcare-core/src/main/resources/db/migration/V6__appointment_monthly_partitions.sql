@@ -0,0 +1,126 @@
+-- La tabla de citas pasa a estar particionada por meses según appointment_date. Las consultas de citas próximas o de un
+-- día concreto sólo recorren las particiones de los meses afectados. Las particiones de meses pasados se trasladan a la
+-- tabla appointment_archive (petcare.app.core.service.archive.AppointmentArchiver) sin copiar filas: se desvinculan de
+-- appointment y se vinculan al archivo.
+-- Cada partición tiene su propia restricción de exclusión de citas solapadas, ya que PostgreSQL no admite restricciones
+-- de exclusión sobre tablas particionadas. Una cita que comienza en los últimos 30 minutos de un mes sólo se comprueba
+-- contra las de su propio mes; el índice de agendas en memoria cubre ese caso.
+
+-- Se libera el nombre de la tabla y de sus restricciones e índices, que deben ser únicos en el esquema
+ALTER TABLE appointment RENAME TO appointment_legacy;
+ALTER TABLE appointment_legacy RENAME CONSTRAINT appointment_pkey TO appointment_legacy_pkey;
+ALTER TABLE appointment_legacy DROP CONSTRAINT IF EXISTS appointment_vet_no_overlap;
+DROP INDEX IF EXISTS appointment_vet_date_idx;
+DROP INDEX IF EXISTS appointment_pet_date_idx;
+
+-- La clave primaria de una tabla particionada debe incluir la clave de particionado
+CREATE TABLE appointment (
+  id               bigint       NOT NULL,
+  client_id        bigint       REFERENCES client (id),
+  pet_id           bigint       REFERENCES pet (id),
+  vet_id           bigint       REFERENCES vet (id),
+  appointment_date timestamp(6) NOT NULL,
+  PRIMARY KEY (id, appointment_date)
+) PARTITION BY RANGE (appointment_date);
+
+CREATE INDEX appointment_vet_date_idx ON appointment (vet_id, appointment_date, id);
+CREATE INDEX appointment_pet_date_idx ON appointment (pet_id, appointment_date, id);
+
+-- Recoge las citas de meses para los que todavía no existe partición
+CREATE TABLE appointment_default PARTITION OF appointment DEFAULT;
+
+ALTER TABLE appointment_default
+  ADD CONSTRAINT appointment_default_vet_no_overlap
+  EXCLUDE USING gist (
+    vet_id WITH =,
+    tsrange(appointment_date, appointment_date + interval '30 minutes') WITH &&
+  );
+
+-- Citas archivadas. Cada partición de un mes pasado se traslada completa desde appointment
+CREATE TABLE appointment_archive (
+  id               bigint       NOT NULL,
+  client_id        bigint,
+  pet_id           bigint,
+  vet_id           bigint,
+  appointment_date timestamp(6) NOT NULL,
+  PRIMARY KEY (id, appointment_date)
+) PARTITION BY RANGE (appointment_date);
+
+-- Crea la partición de un mes, si no existe, trasladando a ella las citas de ese mes guardadas en appointment_default.
+-- Devuelve true si se ha creado la partición
+CREATE OR REPLACE FUNCTION appointment_ensure_partition(for_month date) RETURNS boolean AS $$
+DECLARE
+  month_start    timestamp := date_trunc('month', for_month::timestamp);
+  month_end      timestamp := date_trunc('month', for_month::timestamp) + interval '1 month';
+  partition_name text      := 'appointment_p' || to_char(month_start, 'YYYYMM');
+BEGIN
+  PERFORM pg_advisory_xact_lock(hashtext('appointment_partitions'));
+
+  IF to_regclass(partition_name) IS NOT NULL THEN
+    RETURN false;
+  END IF;
+
+  EXECUTE format('CREATE TABLE %I (LIKE appointment INCLUDING DEFAULTS)', partition_name);
+
+  EXECUTE format('WITH moved AS (DELETE FROM appointment_default WHERE appointment_date >= $1 AND appointment_date < $2 '
+      || 'RETURNING id, client_id, pet_id, vet_id, appointment_date) INSERT INTO %I SELECT * FROM moved', partition_name)
+    USING month_start, month_end;
+
+  EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist (vet_id WITH =, '
+      || 'tsrange(appointment_date, appointment_date + interval ''30 minutes'') WITH &&)',
+      partition_name, partition_name || '_vet_no_overlap');
+
+  EXECUTE format('ALTER TABLE appointment ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+      partition_name, month_start, month_end);
+
+  RETURN true;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Traslada a appointment_archive las particiones de los meses que terminan antes de la fecha aportada.
+-- Devuelve el número de particiones archivadas
+CREATE OR REPLACE FUNCTION appointment_archive_partitions(archive_before date) RETURNS integer AS $$
+DECLARE
+  partition_name text;
+  month_start    timestamp;
+  archived       integer := 0;
+BEGIN
+  PERFORM pg_advisory_xact_lock(hashtext('appointment_partitions'));
+
+  FOR partition_name IN
+    SELECT child.relname FROM pg_inherits
+      JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+      JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+      WHERE parent.oid = 'appointment'::regclass
+        AND child.relname ~ '^appointment_p[0-9]{6}$'
+      ORDER BY child.relname
+  LOOP
+    month_start := to_date(substring(partition_name FROM 14), 'YYYYMM')::timestamp;
+
+    IF month_start + interval '1 month' <= archive_before THEN
+
+      EXECUTE format('ALTER TABLE appointment DETACH PARTITION %I', partition_name);
+      EXECUTE format('ALTER TABLE appointment_archive ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+          partition_name, month_start, month_start + interval '1 month');
+
+      archived := archived + 1;
+    END IF;
+  END LOOP;
+
+  RETURN archived;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Particiones de todos los meses con citas y de los próximos 24 meses
+SELECT appointment_ensure_partition(month::date)
+  FROM generate_series(
+    date_trunc('month', LEAST((SELECT MIN(appointment_date) FROM appointment_legacy), localtimestamp)),
+    date_trunc('month', localtimestamp) + interval '24 months',
+    interval '1 month') AS month;
+
+INSERT INTO appointment (id, client_id, pet_id, vet_id, appointment_date)
+  SELECT id, client_id, pet_id, vet_id, appointment_date FROM appointment_legacy;
+
+DROP TABLE appointment_legacy;
+
+ANALYZE appointment;
@@ -0,0 +1,21 @@
+-- Búsqueda de texto completo sobre los informes clínicos.
+-- La configuración petcare_es aplica la lematización del español tras eliminar tildes, de forma que "otitis",
+-- "Otítis" u "otitis." encuentran los mismos informes.
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+CREATE TEXT SEARCH CONFIGURATION petcare_es (COPY = spanish);
+
+ALTER TEXT SEARCH CONFIGURATION petcare_es
+  ALTER MAPPING FOR hword, hword_part, word WITH unaccent, spanish_stem;
+
+-- Columna generada por la base de datos en cada inserción o modificación del informe, por lo que el índice nunca
+-- queda desactualizado. El diagnóstico pesa más que el motivo de la visita, y éste más que el tratamiento
+ALTER TABLE report
+  ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('petcare_es'::regconfig, coalesce(diagnosis, '')), 'A') ||
+    setweight(to_tsvector('petcare_es'::regconfig, coalesce(reason, '')), 'B') ||
+    setweight(to_tsvector('petcare_es'::regconfig, coalesce(treatment, '')), 'C')
+  ) STORED;
+
+CREATE INDEX IF NOT EXISTS report_search_idx ON report USING gin (search_vector);
+CREATE INDEX IF NOT EXISTS report_vet_idx ON report (vet_id);
@@ -0,0 +1,2 @@
+-- Índice que soporta la paginación por cursor (keyset) de los informes de una mascota en el historial clínico
+CREATE INDEX IF NOT EXISTS report_pet_date_idx ON report (pet_id, report_date, id);
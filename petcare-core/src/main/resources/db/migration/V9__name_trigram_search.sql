@@ -0,0 +1,27 @@
+-- Búsqueda por nombre y autocompletado de veterinarios y entidades veterinarias mediante trigramas.
+-- Cada nombre se guarda también sin tildes y en minúsculas en la columna search_name, generada por la base de datos en
+-- cada inserción o modificación, e indexada por trigramas. Las búsquedas por parte de una palabra o con pequeñas
+-- erratas utilizan el índice en lugar de recorrer la tabla completa.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- unaccent no se declara IMMUTABLE, ya que depende del diccionario y del search_path. Las columnas generadas y los
+-- índices sólo admiten funciones IMMUTABLE, por lo que se fijan ambos
+CREATE OR REPLACE FUNCTION petcare_search_name(name text) RETURNS text AS $$
+  SELECT lower(unaccent('unaccent'::regdictionary, name))
+$$ LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE SET search_path FROM CURRENT;
+
+ALTER TABLE vet
+  ADD COLUMN search_name text GENERATED ALWAYS AS (petcare_search_name(name)) STORED;
+
+ALTER TABLE vet_entity
+  ADD COLUMN search_name text GENERATED ALWAYS AS (petcare_search_name(name)) STORED;
+
+CREATE INDEX IF NOT EXISTS vet_search_name_trgm_idx ON vet USING gin (search_name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS vet_entity_search_name_trgm_idx ON vet_entity USING gin (search_name gin_trgm_ops);
+
+-- Búsquedas por nombre existentes (LIKE '%...%'), que tampoco pueden utilizar un índice B-tree
+CREATE INDEX IF NOT EXISTS vet_name_trgm_idx ON vet USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS vet_entity_name_trgm_idx ON vet_entity USING gin (name gin_trgm_ops);
+
+ANALYZE vet;
+ANALYZE vet_entity;
@@ -0,0 +1,122 @@
+package petcare.app.core.controller.support;
+
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Un cliente que deja de leer bloquea su envío con el monitor del emisor adquirido. El hilo que publica los eventos
+ * nunca debe esperar por ese monitor: la suscripción se da de baja y su hilo de envío cierra la conexión
+ */
+class AgendaSubscriptionsTest {
+
+  private static final long WAIT_SECONDS = 5;
+
+  private CountDownLatch stalledSending;
+
+  private CountDownLatch stalledRelease;
+
+  private CountDownLatch stalledCompleted;
+
+  private Semaphore healthyReceived;
+
+  private SseEmitter next;
+
+  private AgendaSubscriptions subscriptions;
+
+  @BeforeEach
+  void setUp() {
+
+    stalledSending = new CountDownLatch(1);
+    stalledRelease = new CountDownLatch(1);
+    stalledCompleted = new CountDownLatch(1);
+    healthyReceived = new Semaphore(0);
+
+    subscriptions = new AgendaSubscriptions() {
+
+      @Override
+      SseEmitter createEmitter(long timeoutMillis) {
+        return next;
+      }
+    };
+
+    subscriptions.setMaxSubscribers(10);
+    subscriptions.setQueueCapacity(1);
+    subscriptions.setTimeout(Duration.ofMinutes(1));
+  }
+
+  @AfterEach
+  void tearDown() {
+
+    stalledRelease.countDown();
+    subscriptions.shutdown();
+  }
+
+  @Test
+  void stalledSubscriberDoesNotBlockPublisher() throws Exception {
+
+    next = new StalledEmitter();
+    subscriptions.subscribe(1L);
+
+    next = new HealthyEmitter();
+    subscriptions.subscribe(2L);
+
+    subscriptions.heartbeat();
+    assertTrue(stalledSending.await(WAIT_SECONDS, TimeUnit.SECONDS));
+    assertTrue(healthyReceived.tryAcquire(WAIT_SECONDS, TimeUnit.SECONDS));
+
+    // El primer evento ocupa la cola del cliente bloqueado y el segundo la desborda. Cada evento se entrega al cliente
+    // que lee antes de publicar el siguiente, de forma que su cola, también de un único evento, nunca se desborda
+    for (int i = 0; i < 3; i++) {
+      assertTimeoutPreemptively(Duration.ofSeconds(WAIT_SECONDS), subscriptions::heartbeat);
+      assertTrue(healthyReceived.tryAcquire(WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    stalledRelease.countDown();
+    assertTrue(stalledCompleted.await(WAIT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  /** Emisor de un cliente que deja de leer: el envío se bloquea con el monitor del emisor adquirido */
+  private final class StalledEmitter extends SseEmitter {
+
+    @Override
+    public synchronized void send(SseEventBuilder builder) throws IOException {
+
+      stalledSending.countDown();
+
+      try {
+        stalledRelease.await();
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public synchronized void complete() {
+
+      super.complete();
+      stalledCompleted.countDown();
+    }
+  }
+
+  /** Emisor de un cliente que lee al ritmo necesario */
+  private final class HealthyEmitter extends SseEmitter {
+
+    @Override
+    public void send(SseEventBuilder builder) {
+      healthyReceived.release();
+    }
+  }
+
+}
@@ -0,0 +1,163 @@
+package petcare.app.core.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import petcare.app.core.service.change.AppointmentChangeFeed;
+import petcare.app.core.service.schedule.VetScheduleIndex;
+import petcare.app.domain.dto.AppointmentDto;
+import petcare.app.domain.dto.simple.ClientDtoSimple;
+import petcare.app.domain.dto.simple.PetDtoSimple;
+import petcare.app.domain.dto.simple.VetDtoSimple;
+import petcare.app.domain.entity.Appointment;
+import petcare.app.domain.entity.Client;
+import petcare.app.domain.entity.Pet;
+import petcare.app.domain.entity.Vet;
+import petcare.app.domain.repository.AppointmentRepository;
+import petcare.app.domain.repository.ClientRepository;
+import petcare.app.domain.repository.PetRepository;
+import petcare.app.domain.repository.VetRepository;
+
+/**
+ * Las operaciones de escritura de citas sólo deben mantener el lado propietario de las relaciones. Las citas de la
+ * mascota se sustituyen por un mock, de forma que cualquier acceso a la colección hace fallar la prueba
+ */
+class AppointmentServiceImplTest {
+
+  private AppointmentServiceImpl appointmentService;
+
+  private AppointmentRepository appointmentRepository;
+
+  private VetScheduleIndex scheduleIndex;
+
+  private List<Appointment> petAppointments;
+
+  private Vet vet;
+
+  private Pet pet;
+
+  private Client client;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+
+    appointmentRepository = mock(AppointmentRepository.class);
+    scheduleIndex = mock(VetScheduleIndex.class);
+    petAppointments = mock(List.class);
+
+    vet = new Vet();
+    vet.setId(1L);
+
+    pet = new Pet();
+    pet.setId(2L);
+    pet.setAppointments(petAppointments);
+
+    client = new Client();
+    client.setId(3L);
+
+    VetRepository vetRepository = mock(VetRepository.class);
+    PetRepository petRepository = mock(PetRepository.class);
+    ClientRepository clientRepository = mock(ClientRepository.class);
+
+    when(vetRepository.findById(vet.getId())).thenReturn(Optional.of(vet));
+    when(petRepository.findById(pet.getId())).thenReturn(Optional.of(pet));
+    when(clientRepository.findById(client.getId())).thenReturn(Optional.of(client));
+    when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
+
+      Appointment appointment = invocation.getArgument(0);
+      appointment.setId(appointment.getId() == null ? 10L : appointment.getId());
+      return appointment;
+    });
+
+    appointmentService = new AppointmentServiceImpl();
+    appointmentService.setAppointmentRepository(appointmentRepository);
+    appointmentService.setVetRepository(vetRepository);
+    appointmentService.setPetRepository(petRepository);
+    appointmentService.setClientRepository(clientRepository);
+    appointmentService.setScheduleIndex(scheduleIndex);
+    appointmentService.setChangeFeed(mock(AppointmentChangeFeed.class));
+
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  @Test
+  void saveDoesNotLoadPetAppointments() throws Exception {
+
+    appointmentService.save(appointmentDto());
+
+    verifyNoInteractions(petAppointments);
+  }
+
+  @Test
+  void updateDoesNotLoadPetAppointments() throws Exception {
+
+    when(appointmentRepository.findById(10L)).thenReturn(Optional.of(storedAppointment()));
+
+    appointmentService.update(appointmentDto(), 10L);
+
+    verifyNoInteractions(petAppointments);
+  }
+
+  @Test
+  void deleteDoesNotLoadPetAppointments() throws Exception {
+
+    Appointment appointment = storedAppointment();
+    when(appointmentRepository.findById(10L)).thenReturn(Optional.of(appointment));
+
+    appointmentService.delete(10L);
+
+    verify(appointmentRepository).delete(appointment);
+    verifyNoInteractions(petAppointments);
+  }
+
+  private AppointmentDto appointmentDto() {
+
+    VetDtoSimple vetDto = new VetDtoSimple();
+    vetDto.setId(vet.getId());
+
+    PetDtoSimple petDto = new PetDtoSimple();
+    petDto.setId(pet.getId());
+
+    ClientDtoSimple clientDto = new ClientDtoSimple();
+    clientDto.setId(client.getId());
+
+    AppointmentDto appointmentDto = new AppointmentDto();
+    appointmentDto.setAppointmentDate(LocalDateTime.of(2030, 1, 1, 10, 0));
+    appointmentDto.setVetDtoSimple(vetDto);
+    appointmentDto.setPetDtoSimple(petDto);
+    appointmentDto.setClientDtoSimple(clientDto);
+
+    return appointmentDto;
+  }
+
+  private Appointment storedAppointment() {
+
+    Appointment appointment = new Appointment();
+    appointment.setId(10L);
+    appointment.setAppointmentDate(LocalDateTime.of(2030, 1, 1, 9, 0));
+    appointment.setVet(vet);
+    appointment.setPet(pet);
+    appointment.setClient(client);
+
+    return appointment;
+  }
+
+}
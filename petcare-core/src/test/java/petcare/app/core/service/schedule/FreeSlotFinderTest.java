@@ -0,0 +1,50 @@
+package petcare.app.core.service.schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import petcare.app.domain.dto.FreeSlotDto;
+
+/** Los huecos libres comienzan siempre en la rejilla de huecos de la agenda, sea cual sea la fecha de búsqueda */
+class FreeSlotFinderTest {
+
+  private static final Duration SLOT = Duration.ofMinutes(30);
+
+  @Test
+  void alignsFromToTheNextSlot() {
+
+    assertEquals(LocalDateTime.of(2026, 3, 2, 10, 30),
+        FreeSlotFinder.alignToSlot(LocalDateTime.of(2026, 3, 2, 10, 7, 13, 482_000_000), SLOT));
+    assertEquals(LocalDateTime.of(2026, 3, 2, 10, 30),
+        FreeSlotFinder.alignToSlot(LocalDateTime.of(2026, 3, 2, 10, 0, 0, 1), SLOT));
+    assertEquals(LocalDateTime.of(2026, 3, 3, 0, 0),
+        FreeSlotFinder.alignToSlot(LocalDateTime.of(2026, 3, 2, 23, 45), SLOT));
+  }
+
+  @Test
+  void keepsFromAlreadyOnTheGrid() {
+
+    LocalDateTime from = LocalDateTime.of(2026, 3, 2, 10, 30);
+
+    assertEquals(from, FreeSlotFinder.alignToSlot(from, SLOT));
+  }
+
+  @Test
+  void findsSlotsOnTheGrid() {
+
+    LocalDateTime from = LocalDateTime.of(2026, 3, 2, 10, 7, 13);
+    Map<Long, List<LocalDateTime>> busyByVet = Map.of(1L, List.of(LocalDateTime.of(2026, 3, 2, 10, 30)));
+
+    List<FreeSlotDto> freeSlots = FreeSlotFinder.findFirst(busyByVet, from, from.plusHours(2), SLOT, SLOT, 2);
+
+    assertEquals(List.of(LocalDateTime.of(2026, 3, 2, 11, 0), LocalDateTime.of(2026, 3, 2, 11, 30)),
+        freeSlots.stream().map(FreeSlotDto::getStart).toList());
+  }
+
+}
@@ -3,10 +3,14 @@ package petcare.app.gateway;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+
+import petcare.app.gateway.loadbalancer.PeakEwmaLoadBalancerConfiguration;
 
 /** Clase principal */
 @SpringBootApplication
 @EnableDiscoveryClient
+@LoadBalancerClient(name = "petcare-core", configuration = PeakEwmaLoadBalancerConfiguration.class)
 public class PetcareGatewayApplication {
 
   /**
@@ -0,0 +1,14 @@
+package petcare.app.gateway.coalescing;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * Respuesta completa de un servicio, compartida entre peticiones idénticas
+ * 
+ * @param status  Código de estado
+ * @param headers Cabeceras
+ * @param body    Cuerpo
+ */
+record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+}
@@ -0,0 +1,278 @@
+package petcare.app.gateway.coalescing;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Filtro RequestCoalescing: agrupa las peticiones GET idénticas simultáneas en una única petición al servicio, cuya
+ * respuesta se envía a todas ellas (single-flight).<br/>
+ * Dos peticiones son idénticas si coinciden la ruta, el path, los parámetros, las cabeceras Accept y Accept-Encoding y
+ * la cabecera Authorization completa, de forma que nunca se comparte una respuesta entre usuarios ni entre tokens con
+ * distintos permisos. Las peticiones sin cabecera Authorization no se agrupan.<br/>
+ * Sólo se comparten las respuestas 200 completas, sin Set-Cookie y de tamaño no mayor que max-body-size. Si la
+ * respuesta no puede compartirse, falla o se cancela, cada petición en espera se envía por su cuenta al servicio.<br/>
+ * Opcionalmente, una respuesta compartible se sigue entregando durante micro-cache tras completarse. Por defecto (0)
+ * sólo se agrupan las peticiones simultáneas.<br/>
+ * Las peticiones atendidas con la respuesta de otra se cuentan en la métrica petcare.gateway.coalescing.shared, con la
+ * etiqueta route. Se configura en cada ruta, antes de AdaptiveConcurrencyLimit para que las peticiones agrupadas no
+ * ocupen el límite de peticiones en curso:
+ * 
+ * <pre>
+ * - name: RequestCoalescing
+ *   args:
+ *     micro-cache: 200ms
+ *     max-body-size: 1MB
+ * </pre>
+ */
+@Component
+public class RequestCoalescingGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<RequestCoalescingGatewayFilterFactory.Config> {
+
+  /** Peticiones en curso y respuestas en la ventana de micro-caché */
+  private final Map<RequestKey, Flight> flights = new ConcurrentHashMap<>();
+
+  /** Registro de métricas */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Constructor
+   * 
+   * @param meterRegistry Registro de métricas
+   */
+  public RequestCoalescingGatewayFilterFactory(MeterRegistry meterRegistry) {
+
+    super(Config.class);
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+
+    Counter shared = Counter
+        .builder("petcare.gateway.coalescing.shared")
+        .description("Peticiones atendidas con la respuesta de otra petición idéntica")
+        .tag("route", config.getRouteId())
+        .register(meterRegistry);
+
+    return (exchange, chain) -> {
+
+      RequestKey key = key(config.getRouteId(), exchange.getRequest());
+
+      if (key == null) {
+        return chain.filter(exchange);
+      }
+
+      Flight flight = new Flight();
+      Flight existing = flights.putIfAbsent(key, flight);
+
+      if (existing != null) {
+
+        return existing.response().flatMap(response -> {
+
+          if (response.isEmpty()) {
+            return chain.filter(exchange);
+          }
+
+          shared.increment();
+          return write(exchange.getResponse(), response.get());
+        });
+      }
+
+      return lead(exchange, chain, config, key, flight);
+    };
+  }
+
+  /**
+   * Envía al servicio la petición que encabeza un grupo y comparte su respuesta con el resto al completarse
+   * 
+   * @param exchange Petición
+   * @param chain    Cadena de filtros
+   * @param config   Configuración de la ruta
+   * @param key      Clave de la petición
+   * @param flight   Grupo de peticiones
+   * @return Mono(Void)
+   */
+  private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, Config config, RequestKey key,
+      Flight flight) {
+
+    ResponseCapture capture = new ResponseCapture(exchange.getResponse(), config.getMaxBodySize().toBytes());
+
+    return chain.filter(exchange.mutate().response(capture).build()).doFinally(signal -> {
+
+      Optional<CachedResponse> response = signal == SignalType.ON_COMPLETE ? capture.result() : Optional.empty();
+
+      flight.sink().tryEmitValue(response);
+
+      if (response.isPresent() && !config.getMicroCache().isZero()) {
+        Schedulers
+            .parallel()
+            .schedule(() -> flights.remove(key, flight), config.getMicroCache().toMillis(), TimeUnit.MILLISECONDS);
+
+      } else {
+        flights.remove(key, flight);
+      }
+    });
+  }
+
+  /**
+   * Escribe una respuesta compartida. Se conservan las cabeceras propias de la petición, como las de limitación de
+   * peticiones
+   * 
+   * @param response Respuesta de la petición
+   * @param cached   Respuesta compartida
+   * @return Mono(Void)
+   */
+  private static Mono<Void> write(ServerHttpResponse response, CachedResponse cached) {
+
+    HttpHeaders headers = response.getHeaders();
+
+    response.setStatusCode(cached.status());
+    cached.headers().forEach((name, values) -> {
+
+      if (!headers.containsKey(name)) {
+        headers.put(name, values);
+      }
+    });
+
+    return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+  }
+
+  /**
+   * Clave de una petición
+   * 
+   * @param routeId ID de la ruta
+   * @param request Petición
+   * @return RequestKey - Clave, o null si la petición no puede agruparse
+   */
+  static RequestKey key(String routeId, ServerHttpRequest request) {
+
+    HttpHeaders headers = request.getHeaders();
+    String authorization = headers.getFirst(HttpHeaders.AUTHORIZATION);
+
+    if (!HttpMethod.GET.equals(request.getMethod()) || authorization == null) {
+      return null;
+    }
+
+    return new RequestKey(routeId, authorization, request.getURI().getRawPath(), request.getURI().getRawQuery(),
+        headers.get(HttpHeaders.ACCEPT), headers.get(HttpHeaders.ACCEPT_ENCODING));
+  }
+
+  /**
+   * Clave de una petición. Las peticiones con la misma clave reciben la misma respuesta
+   * 
+   * @param routeId        ID de la ruta
+   * @param authorization  Cabecera Authorization
+   * @param path           Path
+   * @param query          Parámetros
+   * @param accept         Cabeceras Accept
+   * @param acceptEncoding Cabeceras Accept-Encoding
+   */
+  record RequestKey(String routeId, String authorization, String path, String query, List<String> accept,
+      List<String> acceptEncoding) {
+  }
+
+  /**
+   * Grupo de peticiones idénticas. Su respuesta vacía indica que cada petición debe enviarse por su cuenta
+   * 
+   * @param sink Respuesta compartida
+   */
+  private record Flight(Sinks.One<Optional<CachedResponse>> sink) {
+
+    /** Constructor */
+    private Flight() {
+      this(Sinks.one());
+    }
+
+    /**
+     * Respuesta compartida, también para las peticiones que se unen al grupo tras completarse
+     * 
+     * @return Mono(Optional(CachedResponse))
+     */
+    private Mono<Optional<CachedResponse>> response() {
+      return sink.asMono();
+    }
+  }
+
+  /** Configuración de una ruta */
+  public static class Config implements HasRouteId {
+
+    /** ID de la ruta */
+    private String routeId;
+
+    /** Tiempo durante el que se sigue entregando una respuesta tras completarse */
+    private Duration microCache = Duration.ZERO;
+
+    /** Tamaño máximo de una respuesta compartida */
+    private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+    @Override
+    public String getRouteId() {
+      return routeId;
+    }
+
+    @Override
+    public void setRouteId(String routeId) {
+      this.routeId = routeId;
+    }
+
+    /**
+     * Getter - Tiempo durante el que se sigue entregando una respuesta tras completarse
+     * 
+     * @return Duration
+     */
+    public Duration getMicroCache() {
+      return microCache;
+    }
+
+    /**
+     * Setter - Tiempo durante el que se sigue entregando una respuesta tras completarse
+     * 
+     * @param microCache Tiempo. 0 para agrupar sólo las peticiones simultáneas
+     */
+    public void setMicroCache(Duration microCache) {
+      this.microCache = microCache;
+    }
+
+    /**
+     * Getter - Tamaño máximo de una respuesta compartida
+     * 
+     * @return DataSize
+     */
+    public DataSize getMaxBodySize() {
+      return maxBodySize;
+    }
+
+    /**
+     * Setter - Tamaño máximo de una respuesta compartida
+     * 
+     * @param maxBodySize Tamaño máximo
+     */
+    public void setMaxBodySize(DataSize maxBodySize) {
+      this.maxBodySize = maxBodySize;
+    }
+  }
+
+}
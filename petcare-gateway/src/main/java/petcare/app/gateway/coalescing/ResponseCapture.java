@@ -0,0 +1,115 @@
+package petcare.app.gateway.coalescing;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Respuesta que copia el cuerpo mientras se envía al cliente, sin retrasarlo, para poder compartirlo con otras
+ * peticiones. Deja de copiar en cuanto el cuerpo supera el tamaño máximo o la respuesta se envía por partes
+ * (streaming)
+ */
+class ResponseCapture extends ServerHttpResponseDecorator {
+
+  /** Tamaño máximo del cuerpo copiado */
+  private final long maxBodySize;
+
+  /** Cuerpo copiado */
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+  /** Indica si la respuesta no puede compartirse */
+  private volatile boolean discarded;
+
+  /**
+   * Constructor
+   * 
+   * @param delegate    Respuesta original
+   * @param maxBodySize Tamaño máximo del cuerpo copiado
+   */
+  ResponseCapture(ServerHttpResponse delegate, long maxBodySize) {
+
+    super(delegate);
+    this.maxBodySize = maxBodySize;
+  }
+
+  @Override
+  public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+    return super.writeWith(Flux.from(body).doOnNext(this::copy));
+  }
+
+  @Override
+  public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+
+    discarded = true;
+    return super.writeAndFlushWith(body);
+  }
+
+  /**
+   * Respuesta compartible, una vez completada
+   * 
+   * @return Optional(CachedResponse) - Respuesta, o vacío si no puede compartirse
+   */
+  Optional<CachedResponse> result() {
+
+    HttpStatusCode status = getStatusCode();
+    HttpHeaders headers = getHeaders();
+
+    if (discarded || !HttpStatus.OK.equals(status) || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+      return Optional.empty();
+    }
+
+    HttpHeaders copy = new HttpHeaders();
+    copy.addAll(headers);
+    copy.remove(HttpHeaders.TRANSFER_ENCODING);
+
+    synchronized (body) {
+      return Optional.of(new CachedResponse(status, copy, body.toByteArray()));
+    }
+  }
+
+  /**
+   * Copia un fragmento del cuerpo
+   * 
+   * @param buffer Fragmento
+   */
+  private void copy(DataBuffer buffer) {
+
+    if (discarded) {
+      return;
+    }
+
+    synchronized (body) {
+
+      if (body.size() + (long) buffer.readableByteCount() > maxBodySize) {
+
+        discarded = true;
+        body.reset();
+        return;
+      }
+
+      try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+
+        while (iterator.hasNext()) {
+
+          ByteBuffer byteBuffer = iterator.next();
+          byte[] bytes = new byte[byteBuffer.remaining()];
+
+          byteBuffer.get(bytes);
+          body.write(bytes, 0, bytes.length);
+        }
+      }
+    }
+  }
+
+}
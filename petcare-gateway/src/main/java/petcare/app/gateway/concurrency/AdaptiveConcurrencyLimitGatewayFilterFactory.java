@@ -0,0 +1,312 @@
+package petcare.app.gateway.concurrency;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Filtro AdaptiveConcurrencyLimit: limita las peticiones en curso de cada ruta con un límite adaptativo
+ * ({@link AdaptiveConcurrencyLimiter}) y rechaza de inmediato con 503 las que lo superan, antes de que se saturen los
+ * pools de hilos y de conexiones de los servicios.<br/>
+ * El límite, las peticiones en curso y las peticiones rechazadas de cada ruta se publican en /actuator/metrics:
+ * petcare.gateway.concurrency.limit, petcare.gateway.concurrency.in-flight y petcare.gateway.concurrency.shed, con
+ * la etiqueta route.<br/>
+ * Se configura en cada ruta, antes del CircuitBreaker, para que sus timeouts cuenten como errores:
+ * 
+ * <pre>
+ * - name: AdaptiveConcurrencyLimit
+ *   args:
+ *     initial-limit: 20
+ *     min-limit: 5
+ *     max-limit: 200
+ * </pre>
+ */
+@Component
+public class AdaptiveConcurrencyLimitGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<AdaptiveConcurrencyLimitGatewayFilterFactory.Config> {
+
+  /** Segundos tras los que se sugiere repetir una petición rechazada */
+  private static final String RETRY_AFTER_SECONDS = "1";
+
+  /** Límites de cada ruta. Se conservan al volver a cargar las rutas */
+  private final Map<String, RouteLimiter> limiters = new ConcurrentHashMap<>();
+
+  /** Registro de métricas */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Constructor
+   * 
+   * @param meterRegistry Registro de métricas
+   */
+  public AdaptiveConcurrencyLimitGatewayFilterFactory(MeterRegistry meterRegistry) {
+
+    super(Config.class);
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+
+    RouteLimiter routeLimiter = limiters.compute(config.getRouteId(), (routeId, existing) -> {
+
+      if (existing == null) {
+        return register(routeId, new AdaptiveConcurrencyLimiter(config));
+      }
+
+      existing.limiter().configure(config);
+      return existing;
+    });
+
+    AdaptiveConcurrencyLimiter limiter = routeLimiter.limiter();
+
+    return (exchange, chain) -> {
+
+      if (!limiter.tryAcquire()) {
+
+        routeLimiter.shed().increment();
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+
+        return response.setComplete();
+      }
+
+      long start = System.nanoTime();
+
+      return chain.filter(exchange).doFinally(signal -> {
+
+        if (signal == SignalType.CANCEL) {
+          limiter.release();
+          return;
+        }
+
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        boolean dropped = signal == SignalType.ON_ERROR || status != null
+            && (status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value());
+
+        limiter.release(System.nanoTime() - start, dropped);
+      });
+    };
+  }
+
+  /**
+   * Registra las métricas del límite de una ruta
+   * 
+   * @param routeId ID de la ruta
+   * @param limiter Límite de la ruta
+   * @return RouteLimiter
+   */
+  private RouteLimiter register(String routeId, AdaptiveConcurrencyLimiter limiter) {
+
+    Gauge
+        .builder("petcare.gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+        .description("Límite adaptativo de peticiones en curso")
+        .tag("route", routeId)
+        .register(meterRegistry);
+
+    Gauge
+        .builder("petcare.gateway.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+        .description("Peticiones en curso")
+        .tag("route", routeId)
+        .register(meterRegistry);
+
+    Counter shed = Counter
+        .builder("petcare.gateway.concurrency.shed")
+        .description("Peticiones rechazadas por superar el límite de peticiones en curso")
+        .tag("route", routeId)
+        .register(meterRegistry);
+
+    return new RouteLimiter(limiter, shed);
+  }
+
+  /**
+   * Límite de una ruta y su contador de peticiones rechazadas
+   * 
+   * @param limiter Límite
+   * @param shed    Contador de peticiones rechazadas
+   */
+  private record RouteLimiter(AdaptiveConcurrencyLimiter limiter, Counter shed) {
+  }
+
+  /** Configuración de una ruta */
+  public static class Config implements HasRouteId {
+
+    /** ID de la ruta */
+    private String routeId;
+
+    /** Límite inicial */
+    private int initialLimit = 20;
+
+    /** Límite mínimo */
+    private int minLimit = 5;
+
+    /** Límite máximo */
+    private int maxLimit = 200;
+
+    /** Aumento de la latencia tolerado antes de reducir el límite */
+    private double tolerance = 1.5;
+
+    /** Peso de cada nueva ventana en el límite */
+    private double smoothing = 0.2;
+
+    /** Duración mínima de cada ventana de latencias */
+    private Duration window = Duration.ofSeconds(1);
+
+    /** Número mínimo de latencias de cada ventana */
+    private int minWindowSamples = 10;
+
+    @Override
+    public String getRouteId() {
+      return routeId;
+    }
+
+    @Override
+    public void setRouteId(String routeId) {
+      this.routeId = routeId;
+    }
+
+    /**
+     * Getter - Límite inicial
+     * 
+     * @return int
+     */
+    public int getInitialLimit() {
+      return initialLimit;
+    }
+
+    /**
+     * Setter - Límite inicial
+     * 
+     * @param initialLimit Límite inicial
+     */
+    public void setInitialLimit(int initialLimit) {
+      this.initialLimit = initialLimit;
+    }
+
+    /**
+     * Getter - Límite mínimo
+     * 
+     * @return int
+     */
+    public int getMinLimit() {
+      return minLimit;
+    }
+
+    /**
+     * Setter - Límite mínimo
+     * 
+     * @param minLimit Límite mínimo
+     */
+    public void setMinLimit(int minLimit) {
+      this.minLimit = minLimit;
+    }
+
+    /**
+     * Getter - Límite máximo
+     * 
+     * @return int
+     */
+    public int getMaxLimit() {
+      return maxLimit;
+    }
+
+    /**
+     * Setter - Límite máximo
+     * 
+     * @param maxLimit Límite máximo
+     */
+    public void setMaxLimit(int maxLimit) {
+      this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Getter - Aumento de la latencia tolerado
+     * 
+     * @return double
+     */
+    public double getTolerance() {
+      return tolerance;
+    }
+
+    /**
+     * Setter - Aumento de la latencia tolerado
+     * 
+     * @param tolerance Aumento tolerado, como cociente sobre la latencia de largo plazo
+     */
+    public void setTolerance(double tolerance) {
+      this.tolerance = tolerance;
+    }
+
+    /**
+     * Getter - Peso de cada nueva ventana en el límite
+     * 
+     * @return double
+     */
+    public double getSmoothing() {
+      return smoothing;
+    }
+
+    /**
+     * Setter - Peso de cada nueva ventana en el límite
+     * 
+     * @param smoothing Peso, entre 0 y 1
+     */
+    public void setSmoothing(double smoothing) {
+      this.smoothing = smoothing;
+    }
+
+    /**
+     * Getter - Duración mínima de cada ventana
+     * 
+     * @return Duration
+     */
+    public Duration getWindow() {
+      return window;
+    }
+
+    /**
+     * Setter - Duración mínima de cada ventana
+     * 
+     * @param window Duración mínima
+     */
+    public void setWindow(Duration window) {
+      this.window = window;
+    }
+
+    /**
+     * Getter - Número mínimo de latencias de cada ventana
+     * 
+     * @return int
+     */
+    public int getMinWindowSamples() {
+      return minWindowSamples;
+    }
+
+    /**
+     * Setter - Número mínimo de latencias de cada ventana
+     * 
+     * @param minWindowSamples Número mínimo de latencias
+     */
+    public void setMinWindowSamples(int minWindowSamples) {
+      this.minWindowSamples = minWindowSamples;
+    }
+  }
+
+}
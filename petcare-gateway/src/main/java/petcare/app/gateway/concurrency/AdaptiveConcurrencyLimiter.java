@@ -0,0 +1,208 @@
+package petcare.app.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Límite adaptativo de peticiones en curso de una ruta, calculado a partir de la latencia medida (algoritmo de
+ * gradiente, similar a TCP Vegas).<br/>
+ * Las latencias se agrupan en ventanas. Al cerrar cada ventana se compara su latencia media (corta) con una media de
+ * largo plazo: si la latencia corta crece, el servicio está encolando peticiones y el límite se reduce en proporción;
+ * si se mantiene, el límite crece en la raíz cuadrada del límite actual. Si en la ventana hay errores o respuestas
+ * 503/504 el límite se reduce un 10%. El límite sólo crece si en la ventana se ha utilizado al menos la mitad, para que
+ * no crezca sin límite con poco tráfico
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  /** Reducción del límite en una ventana con errores */
+  private static final double BACKOFF_RATIO = 0.9;
+
+  /** Peso de cada ventana en la latencia media de largo plazo */
+  private static final double LONG_RTT_WEIGHT = 0.05;
+
+  /** Gradiente mínimo. Como mucho se reduce el límite a la mitad en cada ventana */
+  private static final double MIN_GRADIENT = 0.5;
+
+  /** Peticiones en curso */
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  /** Reloj de las ventanas, en nanosegundos */
+  private final LongSupplier nanoClock;
+
+  /** Límite actual de peticiones en curso */
+  private volatile int limit;
+
+  /** Configuración */
+  private AdaptiveConcurrencyLimitGatewayFilterFactory.Config config;
+
+  /** Límite estimado, sin redondear */
+  private double estimatedLimit;
+
+  /** Latencia media de largo plazo, en nanosegundos. 0 si todavía no hay ventanas */
+  private double longRtt;
+
+  /** Inicio de la ventana actual, en nanosegundos */
+  private long windowStart;
+
+  /** Suma de las latencias de la ventana actual, en nanosegundos */
+  private long windowRttSum;
+
+  /** Número de latencias de la ventana actual */
+  private int windowSamples;
+
+  /** Máximo de peticiones en curso en la ventana actual */
+  private int windowMaxInFlight;
+
+  /** Indica si en la ventana actual ha habido errores */
+  private boolean windowDropped;
+
+  /**
+   * Constructor
+   * 
+   * @param config Configuración
+   */
+  public AdaptiveConcurrencyLimiter(AdaptiveConcurrencyLimitGatewayFilterFactory.Config config) {
+    this(config, System::nanoTime);
+  }
+
+  /**
+   * Constructor con un reloj propio
+   * 
+   * @param config    Configuración
+   * @param nanoClock Reloj de las ventanas, en nanosegundos
+   */
+  AdaptiveConcurrencyLimiter(AdaptiveConcurrencyLimitGatewayFilterFactory.Config config, LongSupplier nanoClock) {
+
+    this.config = config;
+    this.nanoClock = nanoClock;
+    this.estimatedLimit = config.getInitialLimit();
+    this.limit = config.getInitialLimit();
+    this.windowStart = nanoClock.getAsLong();
+  }
+
+  /**
+   * Getter - Límite actual de peticiones en curso
+   * 
+   * @return int
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Getter - Peticiones en curso
+   * 
+   * @return int
+   */
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * Actualiza la configuración, al volver a cargar las rutas. Se conservan el límite y la latencia aprendidos
+   * 
+   * @param config Nueva configuración
+   */
+  public synchronized void configure(AdaptiveConcurrencyLimitGatewayFilterFactory.Config config) {
+
+    this.config = config;
+    this.estimatedLimit = Math.clamp(estimatedLimit, config.getMinLimit(), config.getMaxLimit());
+    this.limit = (int) estimatedLimit;
+  }
+
+  /**
+   * Reserva una petición en curso
+   * 
+   * @return boolean - false si se ha alcanzado el límite y la petición debe rechazarse
+   */
+  public boolean tryAcquire() {
+
+    int current = inFlight.incrementAndGet();
+
+    if (current > limit) {
+      inFlight.decrementAndGet();
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Libera una petición sin registrar su latencia, por ejemplo si el cliente la ha cancelado
+   */
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  /**
+   * Libera una petición y registra su resultado
+   * 
+   * @param rttNanos Latencia de la petición, en nanosegundos
+   * @param dropped  true si la petición ha fallado por error, timeout o sobrecarga del servicio
+   */
+  public void release(long rttNanos, boolean dropped) {
+
+    int current = inFlight.getAndDecrement();
+
+    synchronized (this) {
+
+      windowMaxInFlight = Math.max(windowMaxInFlight, current);
+
+      if (dropped) {
+        windowDropped = true;
+
+      } else {
+        windowRttSum += rttNanos;
+        windowSamples++;
+      }
+
+      long now = nanoClock.getAsLong();
+
+      if (now - windowStart >= config.getWindow().toNanos()
+          && (windowDropped || windowSamples >= config.getMinWindowSamples())) {
+
+        updateLimit();
+
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+      }
+    }
+  }
+
+  /** Recalcula el límite al cerrar una ventana */
+  private void updateLimit() {
+
+    double newLimit;
+
+    if (windowDropped) {
+      newLimit = estimatedLimit * BACKOFF_RATIO;
+
+    } else {
+      double shortRtt = (double) windowRttSum / windowSamples;
+
+      longRtt = longRtt == 0 ? shortRtt : longRtt * (1 - LONG_RTT_WEIGHT) + shortRtt * LONG_RTT_WEIGHT;
+
+      // Tras un periodo de latencias altas, la media de largo plazo se acerca más rápido a la latencia actual
+      if (longRtt / shortRtt > 2) {
+        longRtt *= 0.95;
+      }
+
+      double gradient = Math.clamp(config.getTolerance() * longRtt / shortRtt, MIN_GRADIENT, 1.0);
+      double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+
+      // Con poco tráfico la latencia no refleja la capacidad del servicio
+      if (target > estimatedLimit && windowMaxInFlight < estimatedLimit / 2) {
+        return;
+      }
+
+      newLimit = estimatedLimit * (1 - config.getSmoothing()) + target * config.getSmoothing();
+    }
+
+    estimatedLimit = Math.clamp(newLimit, config.getMinLimit(), config.getMaxLimit());
+    limit = (int) estimatedLimit;
+  }
+
+}
@@ -0,0 +1,51 @@
+package petcare.app.gateway.hedging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Presupuesto de peticiones de cobertura de una ruta. Cada petición aporta budget-percent centésimas de cobertura, y
+ * cada cobertura consume una unidad completa, de forma que las coberturas nunca superan ese porcentaje de las
+ * peticiones. Se acumulan como máximo {@link #MAX_HEDGES} coberturas, para absorber picos de latencia breves
+ */
+class HedgeBudget {
+
+  /** Centésimas que consume cada cobertura */
+  private static final long HEDGE_COST = 100;
+
+  /** Coberturas acumulables como máximo */
+  private static final long MAX_HEDGES = 10;
+
+  /** Centésimas de cobertura disponibles */
+  private final AtomicLong balance = new AtomicLong();
+
+  /**
+   * Aporta al presupuesto la parte de una nueva petición
+   * 
+   * @param budgetPercent Porcentaje máximo de peticiones de cobertura
+   */
+  void deposit(int budgetPercent) {
+    balance.accumulateAndGet(budgetPercent, (current, amount) -> Math.min(current + amount, MAX_HEDGES * HEDGE_COST));
+  }
+
+  /**
+   * Consume una cobertura, si el presupuesto lo permite
+   * 
+   * @return boolean - true si puede enviarse la cobertura
+   */
+  boolean tryWithdraw() {
+
+    long current;
+
+    do {
+      current = balance.get();
+
+      if (current < HEDGE_COST) {
+        return false;
+      }
+
+    } while (!balance.compareAndSet(current, current - HEDGE_COST));
+
+    return true;
+  }
+
+}
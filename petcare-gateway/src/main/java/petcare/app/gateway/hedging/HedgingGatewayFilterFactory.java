@@ -0,0 +1,587 @@
+package petcare.app.gateway.hedging;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import petcare.app.gateway.loadbalancer.InstanceLoadTracker;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Filtro Hedging: reduce la latencia de cola de las peticiones GET, que son idempotentes. Si la instancia elegida por
+ * el balanceador no ha respondido cuando se alcanza el umbral de la ruta (un percentil de su latencia reciente, p95 por
+ * defecto), se envía una segunda petición a otra instancia del servicio, la de menor carga según
+ * {@link InstanceLoadTracker}. Se entrega la primera respuesta completa y se cancela la otra petición.<br/>
+ * Las coberturas están limitadas por un presupuesto: como mucho budget-percent de las peticiones de la ruta.<br/>
+ * Sólo se cubren los GET cuya ruta de la pasarela (antes de StripPrefix) coincide con alguno de los patrones de paths:
+ * lecturas de respuesta JSON acotada, que se reciben completas antes de entregarlas. Sin paths el filtro no cubre
+ * ninguna petición. Las peticiones que aceptan respuestas en streaming (text/event-stream o application/x-ndjson) se
+ * enrutan siempre sin cobertura.<br/>
+ * En las peticiones cubiertas el filtro sustituye al enrutado de Netty. Si la respuesta supera max-body-size, la
+ * petición se vuelve a enrutar sin cobertura y la respuesta se transmite sin acumularla. Se ejecuta tras el
+ * balanceador, dentro del CircuitBreaker y de AdaptiveConcurrencyLimit.<br/>
+ * Métricas, con la etiqueta route: petcare.gateway.hedging.hedges (coberturas enviadas),
+ * petcare.gateway.hedging.wins (coberturas que responden antes), petcare.gateway.hedging.budget-exhausted (coberturas
+ * descartadas por el presupuesto) y petcare.gateway.hedging.delay (umbral actual, en milisegundos).<br/>
+ * Puede probarse en local con servidores de prueba que añaden latencia, registrados como instancias fijas (ver
+ * PeakEwmaLoadBalancer). Se activa en cada ruta:
+ * 
+ * <pre>
+ * - name: Hedging
+ *   args:
+ *     percentile: 95
+ *     budget-percent: 10
+ *     paths:
+ *       - /api/pets/find/**
+ * </pre>
+ */
+@Component
+public class HedgingGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgingGatewayFilterFactory.Config> {
+
+  /** Orden del filtro: tras el balanceador y el registro de carga de las instancias */
+  private static final int ORDER = InstanceLoadTracker.ORDER + 1;
+
+  /** Tipos de las respuestas en streaming, que no se acumulan */
+  private static final List<MediaType> STREAMING_TYPES = List.of(MediaType.TEXT_EVENT_STREAM,
+      MediaType.APPLICATION_NDJSON);
+
+  /** Estado de cada ruta. Se conserva al volver a cargar las rutas */
+  private final Map<String, RouteHedging> routes = new ConcurrentHashMap<>();
+
+  /** Cliente HTTP de la pasarela */
+  private final HttpClient httpClient;
+
+  /** Filtros de cabeceras de las peticiones y respuestas enrutadas */
+  private final ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider;
+
+  /** Factoría de los contextos del balanceador de cada servicio */
+  private final LoadBalancerClientFactory loadBalancerClientFactory;
+
+  /** Carga de las instancias */
+  private final InstanceLoadTracker tracker;
+
+  /** Registro de métricas */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Constructor
+   * 
+   * @param httpClient                Cliente HTTP de la pasarela
+   * @param headersFiltersProvider    Filtros de cabeceras de las peticiones y respuestas enrutadas
+   * @param loadBalancerClientFactory Factoría de los contextos del balanceador de cada servicio
+   * @param tracker                   Carga de las instancias
+   * @param meterRegistry             Registro de métricas
+   */
+  public HedgingGatewayFilterFactory(HttpClient httpClient,
+      ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+      LoadBalancerClientFactory loadBalancerClientFactory, InstanceLoadTracker tracker, MeterRegistry meterRegistry) {
+
+    super(Config.class);
+    this.httpClient = httpClient;
+    this.headersFiltersProvider = headersFiltersProvider;
+    this.loadBalancerClientFactory = loadBalancerClientFactory;
+    this.tracker = tracker;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+
+    RouteHedging route = routes.computeIfAbsent(config.getRouteId(), routeId -> register(routeId, config));
+    List<PathPattern> paths = config.getPaths().stream().map(PathPatternParser.defaultInstance::parse).toList();
+
+    WebClient webClient = WebClient
+        .builder()
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
+        .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) config.getMaxBodySize().toBytes()))
+        .build();
+
+    return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, config, route, paths, webClient),
+        ORDER);
+  }
+
+  /**
+   * Envía la petición, con cobertura si no responde a tiempo
+   * 
+   * @param exchange  Petición
+   * @param chain     Cadena de filtros
+   * @param config    Configuración de la ruta
+   * @param route     Estado de la ruta
+   * @param paths     Patrones de las rutas cubiertas
+   * @param webClient Cliente HTTP de la ruta
+   * @return Mono(Void)
+   */
+  private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Config config, RouteHedging route,
+      List<PathPattern> paths, WebClient webClient) {
+
+    Response<ServiceInstance> selected = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+    URI primaryUri = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+
+    if (!HttpMethod.GET.equals(exchange.getRequest().getMethod()) || selected == null || !selected.hasServer()
+        || primaryUri == null || ServerWebExchangeUtils.isAlreadyRouted(exchange) || !hedgeable(exchange, paths)) {
+      return chain.filter(exchange);
+    }
+
+    ServiceInstance primary = selected.getServer();
+    HttpHeaders headers = new HttpHeaders();
+    headers.addAll(HttpHeadersFilter.filterRequest(headersFiltersProvider.getIfAvailable(), exchange));
+    headers.remove(HttpHeaders.HOST);
+
+    route.budget().deposit(config.getBudgetPercent());
+    ServerWebExchangeUtils.setAlreadyRouted(exchange);
+
+    Mono<ResponseEntity<byte[]>> hedge = Mono
+        .fromSupplier(() -> {
+
+          if (route.budget().tryWithdraw()) {
+            return true;
+          }
+
+          route.budgetExhausted().increment();
+          return false;
+        })
+        .filter(allowed -> allowed)
+        .flatMap(allowed -> alternative(primary))
+        .flatMap(instance -> {
+
+          route.hedges().increment();
+
+          URI uri = LoadBalancerUriTools.reconstructURI(instance, primaryUri);
+
+          return tracker.track(instance, call(webClient, uri, headers, route));
+        });
+
+    // Una respuesta mayor que max-body-size no se entrega: la petición se vuelve a enrutar sin cobertura
+    return race(call(webClient, primaryUri, headers, route), hedge, Duration.ofNanos(route.threshold().get(config)))
+        .flatMap(attempt -> {
+
+          if (attempt.hedged()) {
+            route.wins().increment();
+          }
+
+          return write(exchange, attempt.entity());
+        })
+        .onErrorResume(DataBufferLimitException.class, error -> {
+
+          ServerWebExchangeUtils.removeAlreadyRouted(exchange);
+          return chain.filter(exchange);
+        });
+  }
+
+  /**
+   * Envía la primera petición y, si no ha respondido tras el umbral, la petición de cobertura. Se entrega la primera
+   * respuesta y se cancela la otra petición.<br/>
+   * Si la primera petición falla antes del umbral, su error se propaga de inmediato. Tras el umbral se espera a la
+   * cobertura, y si también falla, o no llega a enviarse, se propaga el error de la primera petición
+   * 
+   * @param primary Primera petición
+   * @param hedge   Petición de cobertura, vacía si no se envía
+   * @param delay   Umbral de cobertura
+   * @return Mono(Attempt) - Primera respuesta
+   */
+  static Mono<Attempt> race(Mono<ResponseEntity<byte[]>> primary, Mono<ResponseEntity<byte[]>> hedge,
+      Duration delay) {
+
+    AtomicBoolean hedging = new AtomicBoolean();
+    AtomicReference<Throwable> primaryError = new AtomicReference<>();
+
+    Mono<Attempt> first = primary
+        .map(entity -> new Attempt(entity, false))
+        .onErrorResume(error -> {
+
+          if (!hedging.get()) {
+            return Mono.error(error);
+          }
+
+          primaryError.set(error);
+          return Mono.empty();
+        });
+
+    Mono<Attempt> second = Mono
+        .delay(delay)
+        .doOnNext(tick -> hedging.set(true))
+        .flatMap(tick -> hedge)
+        .map(entity -> new Attempt(entity, true))
+        .onErrorResume(error -> Mono.empty());
+
+    return Flux.merge(first, second).next().switchIfEmpty(Mono.defer(() -> Mono.error(primaryError.get())));
+  }
+
+  /**
+   * Indica si la petición admite cobertura: su ruta de la pasarela coincide con alguno de los patrones y no acepta
+   * respuestas en streaming
+   * 
+   * @param exchange Petición
+   * @param paths    Patrones de las rutas cubiertas
+   * @return boolean
+   */
+  private static boolean hedgeable(ServerWebExchange exchange, List<PathPattern> paths) {
+
+    ServerHttpRequest request = exchange.getRequest();
+
+    if (paths.isEmpty() || request.getHeaders().getAccept().stream().anyMatch(accepted -> STREAMING_TYPES
+        .stream()
+        .anyMatch(accepted::equalsTypeAndSubtype))) {
+      return false;
+    }
+
+    Set<URI> originalUris = exchange.getAttribute(GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+    URI original = originalUris == null || originalUris.isEmpty() ? request.getURI() : originalUris.iterator().next();
+    PathContainer path = PathContainer.parsePath(original.getRawPath());
+
+    return paths.stream().anyMatch(pattern -> pattern.matches(path));
+  }
+
+  /**
+   * Envía una petición a una instancia y registra su latencia si se completa. Si se cancela, porque otra petición ha
+   * respondido antes, se registra el tiempo transcurrido hasta la cancelación, que es una cota inferior de su latencia:
+   * descartarla haría que el umbral bajase con cada cobertura ganadora
+   * 
+   * @param webClient Cliente HTTP de la ruta
+   * @param uri       URI de la instancia
+   * @param headers   Cabeceras de la petición
+   * @param route     Estado de la ruta
+   * @return Mono(ResponseEntity(byte[])) - Respuesta completa
+   */
+  private static Mono<ResponseEntity<byte[]>> call(WebClient webClient, URI uri, HttpHeaders headers,
+      RouteHedging route) {
+
+    return Mono.defer(() -> {
+
+      long start = System.nanoTime();
+
+      return webClient
+          .get()
+          .uri(uri)
+          .headers(requestHeaders -> requestHeaders.addAll(headers))
+          .exchangeToMono(response -> response.toEntity(byte[].class))
+          .doFinally(signal -> {
+
+            if (signal != SignalType.ON_ERROR) {
+              route.threshold().record(System.nanoTime() - start);
+            }
+          });
+    });
+  }
+
+  /**
+   * Elige la instancia de la petición de cobertura: la de menor carga distinta de la primera
+   * 
+   * @param primary Instancia de la primera petición
+   * @return Mono(ServiceInstance) - Instancia, o vacío si no hay otra instancia
+   */
+  private Mono<ServiceInstance> alternative(ServiceInstance primary) {
+
+    ServiceInstanceListSupplier supplier = loadBalancerClientFactory
+        .getInstance(primary.getServiceId(), ServiceInstanceListSupplier.class);
+
+    if (supplier == null) {
+      return Mono.empty();
+    }
+
+    return supplier.get().next().flatMap(instances -> {
+
+      long now = tracker.now();
+
+      return Mono.justOrEmpty(instances
+          .stream()
+          .filter(instance -> !instance.getHost().equals(primary.getHost()) || instance.getPort() != primary.getPort())
+          .min(Comparator.comparingDouble(instance -> tracker.cost(instance, now))));
+    });
+  }
+
+  /**
+   * Escribe la respuesta elegida
+   * 
+   * @param exchange Petición
+   * @param entity   Respuesta del servicio
+   * @return Mono(Void)
+   */
+  private Mono<Void> write(ServerWebExchange exchange, ResponseEntity<byte[]> entity) {
+
+    ServerHttpResponse response = exchange.getResponse();
+    HttpHeaders headers = HttpHeadersFilter.filter(headersFiltersProvider.getIfAvailable(), entity.getHeaders(),
+        exchange, HttpHeadersFilter.Type.RESPONSE);
+
+    response.setStatusCode(entity.getStatusCode());
+    response.getHeaders().putAll(headers);
+    response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+
+    byte[] body = entity.getBody();
+
+    if (body == null) {
+      return response.setComplete();
+    }
+
+    return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+  }
+
+  /**
+   * Registra las métricas de una ruta
+   * 
+   * @param routeId ID de la ruta
+   * @param config  Configuración de la ruta
+   * @return RouteHedging
+   */
+  private RouteHedging register(String routeId, Config config) {
+
+    LatencyThreshold threshold = new LatencyThreshold(config.getMaxDelay().toNanos());
+
+    Gauge
+        .builder("petcare.gateway.hedging.delay", threshold, LatencyThreshold::millis)
+        .description("Latencia tras la que se envía una petición de cobertura")
+        .baseUnit("milliseconds")
+        .tag("route", routeId)
+        .register(meterRegistry);
+
+    return new RouteHedging(threshold, new HedgeBudget(), counter("petcare.gateway.hedging.hedges",
+        "Peticiones de cobertura enviadas", routeId), counter("petcare.gateway.hedging.wins",
+            "Peticiones de cobertura que responden antes que la primera", routeId),
+        counter("petcare.gateway.hedging.budget-exhausted", "Coberturas descartadas por agotar el presupuesto",
+            routeId));
+  }
+
+  /**
+   * Registra un contador de una ruta
+   * 
+   * @param name        Nombre
+   * @param description Descripción
+   * @param routeId     ID de la ruta
+   * @return Counter
+   */
+  private Counter counter(String name, String description, String routeId) {
+    return Counter.builder(name).description(description).tag("route", routeId).register(meterRegistry);
+  }
+
+  /**
+   * Respuesta de una de las peticiones
+   * 
+   * @param entity Respuesta completa
+   * @param hedged true si es la respuesta de la petición de cobertura
+   */
+  record Attempt(ResponseEntity<byte[]> entity, boolean hedged) {
+  }
+
+  /**
+   * Estado de una ruta
+   * 
+   * @param threshold       Umbral de cobertura
+   * @param budget          Presupuesto de coberturas
+   * @param hedges          Contador de coberturas enviadas
+   * @param wins            Contador de coberturas que responden antes
+   * @param budgetExhausted Contador de coberturas descartadas por el presupuesto
+   */
+  private record RouteHedging(LatencyThreshold threshold, HedgeBudget budget, Counter hedges, Counter wins,
+      Counter budgetExhausted) {
+  }
+
+  /** Configuración de una ruta */
+  public static class Config implements HasRouteId {
+
+    /** ID de la ruta */
+    private String routeId;
+
+    /** Percentil de la latencia tras el que se envía la cobertura */
+    private double percentile = 95;
+
+    /** Umbral mínimo */
+    private Duration minDelay = Duration.ofMillis(20);
+
+    /** Umbral máximo, y umbral inicial hasta disponer de latencias */
+    private Duration maxDelay = Duration.ofSeconds(1);
+
+    /** Duración de cada ventana de latencias */
+    private Duration window = Duration.ofSeconds(10);
+
+    /** Porcentaje máximo de peticiones de cobertura sobre el total */
+    private int budgetPercent = 10;
+
+    /** Tamaño máximo de una respuesta */
+    private DataSize maxBodySize = DataSize.ofMegabytes(2);
+
+    /** Patrones de las rutas de la pasarela cubiertas. Sin patrones no se cubre ninguna petición */
+    private List<String> paths = List.of();
+
+    @Override
+    public String getRouteId() {
+      return routeId;
+    }
+
+    @Override
+    public void setRouteId(String routeId) {
+      this.routeId = routeId;
+    }
+
+    /**
+     * Getter - Percentil de la latencia tras el que se envía la cobertura
+     * 
+     * @return double
+     */
+    public double getPercentile() {
+      return percentile;
+    }
+
+    /**
+     * Setter - Percentil de la latencia tras el que se envía la cobertura
+     * 
+     * @param percentile Percentil, entre 0 y 100
+     */
+    public void setPercentile(double percentile) {
+      this.percentile = percentile;
+    }
+
+    /**
+     * Getter - Umbral mínimo
+     * 
+     * @return Duration
+     */
+    public Duration getMinDelay() {
+      return minDelay;
+    }
+
+    /**
+     * Setter - Umbral mínimo
+     * 
+     * @param minDelay Umbral mínimo
+     */
+    public void setMinDelay(Duration minDelay) {
+      this.minDelay = minDelay;
+    }
+
+    /**
+     * Getter - Umbral máximo
+     * 
+     * @return Duration
+     */
+    public Duration getMaxDelay() {
+      return maxDelay;
+    }
+
+    /**
+     * Setter - Umbral máximo
+     * 
+     * @param maxDelay Umbral máximo
+     */
+    public void setMaxDelay(Duration maxDelay) {
+      this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Getter - Duración de cada ventana de latencias
+     * 
+     * @return Duration
+     */
+    public Duration getWindow() {
+      return window;
+    }
+
+    /**
+     * Setter - Duración de cada ventana de latencias
+     * 
+     * @param window Duración
+     */
+    public void setWindow(Duration window) {
+      this.window = window;
+    }
+
+    /**
+     * Getter - Porcentaje máximo de peticiones de cobertura
+     * 
+     * @return int
+     */
+    public int getBudgetPercent() {
+      return budgetPercent;
+    }
+
+    /**
+     * Setter - Porcentaje máximo de peticiones de cobertura
+     * 
+     * @param budgetPercent Porcentaje, entre 0 y 100
+     */
+    public void setBudgetPercent(int budgetPercent) {
+      this.budgetPercent = budgetPercent;
+    }
+
+    /**
+     * Getter - Tamaño máximo de una respuesta
+     * 
+     * @return DataSize
+     */
+    public DataSize getMaxBodySize() {
+      return maxBodySize;
+    }
+
+    /**
+     * Setter - Tamaño máximo de una respuesta
+     * 
+     * @param maxBodySize Tamaño máximo
+     */
+    public void setMaxBodySize(DataSize maxBodySize) {
+      this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Getter - Patrones de las rutas de la pasarela cubiertas
+     * 
+     * @return List(String)
+     */
+    public List<String> getPaths() {
+      return paths;
+    }
+
+    /**
+     * Setter - Patrones de las rutas de la pasarela cubiertas
+     * 
+     * @param paths Patrones, con la sintaxis de PathPattern
+     */
+    public void setPaths(List<String> paths) {
+      this.paths = paths;
+    }
+  }
+
+}
@@ -0,0 +1,98 @@
+package petcare.app.gateway.hedging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Umbral de cobertura de una ruta: percentil de la latencia de las peticiones de la última ventana. Las peticiones
+ * canceladas al responder antes otra se registran con el tiempo transcurrido hasta la cancelación.<br/>
+ * Las latencias se registran sin bloqueos en un Recorder de HdrHistogram. Al terminar cada ventana, la primera petición
+ * que lo detecta recalcula el umbral a partir del histograma de la ventana, si tiene suficientes muestras; si no, se
+ * conserva el umbral anterior
+ */
+class LatencyThreshold {
+
+  /** Latencia máxima registrada, en microsegundos. Las mayores se registran con este valor */
+  private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+  /** Número mínimo de muestras de una ventana para recalcular el umbral */
+  private static final long MIN_SAMPLES = 50;
+
+  /** Latencias de la ventana actual, en microsegundos */
+  private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 2);
+
+  /** Indica si se está recalculando el umbral */
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+
+  /** Histograma reutilizado en cada recálculo */
+  private Histogram interval;
+
+  /** Inicio de la ventana actual, en nanosegundos (System.nanoTime) */
+  private volatile long windowStart = System.nanoTime();
+
+  /** Umbral actual, en nanosegundos */
+  private volatile long thresholdNanos;
+
+  /**
+   * Constructor
+   * 
+   * @param initialNanos Umbral inicial, en nanosegundos, hasta completar la primera ventana con suficientes muestras
+   */
+  LatencyThreshold(long initialNanos) {
+    this.thresholdNanos = initialNanos;
+  }
+
+  /**
+   * Registra la latencia de una petición completada, o el tiempo transcurrido hasta la cancelación de una petición
+   * 
+   * @param latencyNanos Latencia, en nanosegundos
+   */
+  void record(long latencyNanos) {
+    recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+  }
+
+  /**
+   * Umbral actual. Se recalcula si ha terminado la ventana
+   * 
+   * @param config Configuración de la ruta
+   * @return long - Umbral, en nanosegundos
+   */
+  long get(HedgingGatewayFilterFactory.Config config) {
+
+    long now = System.nanoTime();
+
+    if (now - windowStart >= config.getWindow().toNanos() && refreshing.compareAndSet(false, true)) {
+
+      try {
+        interval = recorder.getIntervalHistogram(interval);
+        windowStart = now;
+
+        if (interval.getTotalCount() >= MIN_SAMPLES) {
+
+          long percentileNanos = TimeUnit.MICROSECONDS
+              .toNanos(interval.getValueAtPercentile(config.getPercentile()));
+
+          thresholdNanos = Math.clamp(percentileNanos, config.getMinDelay().toNanos(), config.getMaxDelay().toNanos());
+        }
+
+      } finally {
+        refreshing.set(false);
+      }
+    }
+
+    return thresholdNanos;
+  }
+
+  /**
+   * Umbral actual, sin recalcularlo
+   * 
+   * @return double - Umbral, en milisegundos
+   */
+  double millis() {
+    return thresholdNanos / 1_000_000.0;
+  }
+
+}
@@ -0,0 +1,84 @@
+package petcare.app.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Carga observada de una instancia: peticiones en curso y latencia media con decaimiento exponencial (peak EWMA).<br/>
+ * Una latencia mayor que la media la sustituye de inmediato, y una menor sólo la reduce gradualmente según el tiempo
+ * transcurrido desde la muestra anterior. Así una instancia que empieza a degradarse deja de recibir tráfico en cuanto
+ * responde lenta, y sólo lo recupera de forma progresiva
+ */
+final class InstanceLoad {
+
+  /** Peticiones en curso */
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  /** Latencia media, en nanosegundos. 0 si todavía no hay muestras */
+  private double latency;
+
+  /** Instante de la última muestra, en nanosegundos */
+  private long updatedAt;
+
+  /** Registra el inicio de una petición */
+  void start() {
+    inFlight.incrementAndGet();
+  }
+
+  /**
+   * Registra el fin de una petición y su latencia
+   * 
+   * @param latencyNanos Latencia de la petición, en nanosegundos
+   * @param now          Instante actual, en nanosegundos
+   * @param decayNanos   Constante de tiempo del decaimiento, en nanosegundos
+   */
+  synchronized void complete(long latencyNanos, long now, long decayNanos) {
+
+    inFlight.decrementAndGet();
+
+    if (latencyNanos > latency) {
+      latency = latencyNanos;
+
+    } else {
+      double weight = weight(now, decayNanos);
+      latency = latency * weight + latencyNanos * (1 - weight);
+    }
+
+    updatedAt = now;
+  }
+
+  /**
+   * Coste de enviar una nueva petición a la instancia: latencia media, decaída hasta el instante actual, multiplicada
+   * por las peticiones en curso más la nueva. La latencia de una instancia sin tráfico decae hacia 0, de forma que
+   * vuelve a recibir peticiones y se comprueba si se ha recuperado.<br/>
+   * Una instancia sin latencia conocida pero con peticiones en curso recibe un coste de penalización, para no enviarle
+   * todo el tráfico antes de conocer su primera respuesta
+   * 
+   * @param now          Instante actual, en nanosegundos
+   * @param decayNanos   Constante de tiempo del decaimiento, en nanosegundos
+   * @param penaltyNanos Coste de penalización, en nanosegundos
+   * @return double - Coste de la instancia
+   */
+  synchronized double cost(long now, long decayNanos, long penaltyNanos) {
+
+    int pending = inFlight.get();
+    double decayed = latency * weight(now, decayNanos);
+
+    if (decayed < 1 && pending > 0) {
+      return penaltyNanos + (double) pending;
+    }
+
+    return decayed * (pending + 1);
+  }
+
+  /**
+   * Peso de la latencia media frente a una nueva muestra, según el tiempo transcurrido desde la muestra anterior
+   * 
+   * @param now        Instante actual, en nanosegundos
+   * @param decayNanos Constante de tiempo del decaimiento, en nanosegundos
+   * @return double - Peso entre 0 y 1
+   */
+  private double weight(long now, long decayNanos) {
+    return Math.exp(-Math.max(now - updatedAt, 0) / (double) decayNanos);
+  }
+
+}
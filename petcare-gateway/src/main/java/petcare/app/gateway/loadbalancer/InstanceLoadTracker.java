@@ -0,0 +1,208 @@
+package petcare.app.gateway.loadbalancer;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Filtro global que registra la carga de cada instancia a partir de las propias respuestas del gateway: peticiones en
+ * curso y latencia de cada petición, desde que se elige la instancia hasta que finaliza la respuesta, también si el
+ * cliente la cancela. Los errores y las respuestas 5xx cuentan, como mínimo, con la latencia de penalización.<br/>
+ * Las peticiones de las rutas de respuestas de larga duración (metadata response-timeout negativo), como las
+ * suscripciones SSE, no se registran: su duración no es una latencia, y contarlas como peticiones en curso
+ * multiplicaría el coste de las instancias que mantienen muchas suscripciones abiertas.<br/>
+ * La carga la utiliza {@link PeakEwmaLoadBalancer} para elegir instancia
+ */
+@Component
+public class InstanceLoadTracker implements GlobalFilter, Ordered {
+
+  /** Orden del filtro: justo tras el balanceador, que elige la instancia */
+  public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+  /** Tiempo sin peticiones tras el que se descarta la carga de una instancia, que probablemente ya no existe */
+  private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+  /** Carga de cada instancia */
+  private final Cache<InstanceKey, InstanceLoad> loads = Caffeine
+      .newBuilder()
+      .expireAfterAccess(IDLE_TIMEOUT)
+      .build();
+
+  /** Constante de tiempo del decaimiento de la latencia media */
+  private final Duration decay;
+
+  /** Latencia de penalización de errores e instancias sin latencia conocida */
+  private final Duration failurePenalty;
+
+  /** Reloj de las latencias, en nanosegundos */
+  private final LongSupplier nanoClock;
+
+  /**
+   * Constructor
+   * 
+   * @param decay          Constante de tiempo del decaimiento de la latencia media
+   * @param failurePenalty Latencia de penalización de errores e instancias sin latencia conocida
+   */
+  @Autowired
+  public InstanceLoadTracker(@Value("${petcare.gateway.load-balancer.decay:10s}") Duration decay,
+      @Value("${petcare.gateway.load-balancer.failure-penalty:5s}") Duration failurePenalty) {
+
+    this(decay, failurePenalty, System::nanoTime);
+  }
+
+  /**
+   * Constructor con un reloj propio
+   * 
+   * @param decay          Constante de tiempo del decaimiento de la latencia media
+   * @param failurePenalty Latencia de penalización de errores e instancias sin latencia conocida
+   * @param nanoClock      Reloj de las latencias, en nanosegundos
+   */
+  InstanceLoadTracker(Duration decay, Duration failurePenalty, LongSupplier nanoClock) {
+
+    this.decay = decay;
+    this.failurePenalty = failurePenalty;
+    this.nanoClock = nanoClock;
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+
+    Response<ServiceInstance> response = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+
+    if (response == null || !response.hasServer() || !isLatencySampled(exchange)) {
+      return chain.filter(exchange);
+    }
+
+    InstanceLoad load = load(response.getServer());
+    long start = nanoClock.getAsLong();
+
+    load.start();
+
+    return chain.filter(exchange).doFinally(signal -> {
+
+      long now = nanoClock.getAsLong();
+      long latency = now - start;
+      HttpStatusCode status = exchange.getResponse().getStatusCode();
+
+      if (signal == SignalType.ON_ERROR || status != null && status.is5xxServerError()) {
+        latency = Math.max(latency, failurePenalty.toNanos());
+      }
+
+      load.complete(latency, now, decay.toNanos());
+    });
+  }
+
+  /**
+   * Registra la carga de una petición enviada a una instancia fuera de la cadena de filtros, como las peticiones de
+   * cobertura de HedgingGatewayFilterFactory. Los errores cuentan, como mínimo, con la latencia de penalización
+   * 
+   * @param <T>      Tipo de la respuesta
+   * @param instance Instancia
+   * @param call     Petición
+   * @return Mono(T) - Petición con registro de carga
+   */
+  public <T> Mono<T> track(ServiceInstance instance, Mono<T> call) {
+
+    return Mono.defer(() -> {
+
+      InstanceLoad load = load(instance);
+      long start = nanoClock.getAsLong();
+
+      load.start();
+
+      return call.doFinally(signal -> {
+
+        long now = nanoClock.getAsLong();
+        long latency = now - start;
+
+        if (signal == SignalType.ON_ERROR) {
+          latency = Math.max(latency, failurePenalty.toNanos());
+        }
+
+        load.complete(latency, now, decay.toNanos());
+      });
+    });
+  }
+
+  /**
+   * Instante actual del reloj con el que se registra la carga, para calcular el coste de varias instancias en el mismo
+   * instante
+   * 
+   * @return long - Instante actual, en nanosegundos
+   */
+  public long now() {
+    return nanoClock.getAsLong();
+  }
+
+  /**
+   * Coste de enviar una nueva petición a una instancia
+   * 
+   * @param instance Instancia
+   * @param now      Instante actual, en nanosegundos ({@link #now()})
+   * @return double - Coste de la instancia. Menor es mejor
+   */
+  public double cost(ServiceInstance instance, long now) {
+    return load(instance).cost(now, decay.toNanos(), failurePenalty.toNanos());
+  }
+
+  /**
+   * Obtiene la carga de una instancia
+   * 
+   * @param instance Instancia
+   * @return InstanceLoad
+   */
+  private InstanceLoad load(ServiceInstance instance) {
+    return loads.get(new InstanceKey(instance.getHost(), instance.getPort()), key -> new InstanceLoad());
+  }
+
+  /**
+   * Comprueba si la duración de las peticiones de la ruta es una latencia
+   * 
+   * @param exchange Petición
+   * @return boolean - false si la ruta tiene respuestas de larga duración sin tiempo máximo
+   */
+  private static boolean isLatencySampled(ServerWebExchange exchange) {
+
+    Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+    Object responseTimeout = route == null ? null : route.getMetadata().get(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR);
+
+    return responseTimeout == null || !responseTimeout.toString().trim().startsWith("-");
+  }
+
+  /**
+   * Clave de una instancia
+   * 
+   * @param host Host
+   * @param port Puerto
+   */
+  private record InstanceKey(String host, int port) {
+  }
+
+}
@@ -0,0 +1,116 @@
+package petcare.app.gateway.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Balanceador de carga por latencia: elige dos instancias al azar y envía la petición a la de menor coste (power of two
+ * choices), según la latencia media y las peticiones en curso registradas por {@link InstanceLoadTracker}.<br/>
+ * Comparar sólo dos instancias evita que todas las peticiones se dirijan a la vez a la instancia que parece más rápida,
+ * y basta para apartar el tráfico de una instancia lenta o saturada.<br/>
+ * Las instancias se obtienen del ServiceInstanceListSupplier del servicio, por lo que puede probarse en local sin
+ * Eureka, con instancias fijas:
+ * 
+ * <pre>
+ * spring.cloud.discovery.client.simple.instances.petcare-core[0].uri=http://localhost:8081
+ * spring.cloud.discovery.client.simple.instances.petcare-core[1].uri=http://localhost:8082
+ * </pre>
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+  /** Logger */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PeakEwmaLoadBalancer.class);
+
+  /** ID del servicio */
+  private final String serviceId;
+
+  /** Proveedor de las instancias del servicio */
+  private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+  /** Carga de las instancias */
+  private final InstanceLoadTracker tracker;
+
+  /**
+   * Constructor
+   * 
+   * @param serviceInstanceListSupplierProvider Proveedor de las instancias del servicio
+   * @param serviceId                           ID del servicio
+   * @param tracker                             Carga de las instancias
+   */
+  public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+      String serviceId, InstanceLoadTracker tracker) {
+
+    this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+    this.serviceId = serviceId;
+    this.tracker = tracker;
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes")
+  public Mono<Response<ServiceInstance>> choose(Request request) {
+
+    ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+        .getIfAvailable(NoopServiceInstanceListSupplier::new);
+
+    return supplier.get(request).next().map(instances -> {
+
+      Response<ServiceInstance> response = choose(instances);
+
+      if (response.hasServer() && supplier instanceof SelectedInstanceCallback callback) {
+        callback.selectedServiceInstance(response.getServer());
+      }
+
+      return response;
+    });
+  }
+
+  /**
+   * Elige una instancia
+   * 
+   * @param instances Instancias disponibles
+   * @return Response(ServiceInstance) - Instancia elegida, o respuesta vacía si no hay instancias
+   */
+  private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+
+    if (instances.isEmpty()) {
+
+      LOGGER.warn("No hay instancias disponibles del servicio {}", serviceId);
+      return new EmptyResponse();
+    }
+
+    if (instances.size() == 1) {
+      return new DefaultResponse(instances.get(0));
+    }
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(instances.size());
+    int second = random.nextInt(instances.size() - 1);
+
+    if (second >= first) {
+      second++;
+    }
+
+    ServiceInstance firstInstance = instances.get(first);
+    ServiceInstance secondInstance = instances.get(second);
+    long now = tracker.now();
+
+    return new DefaultResponse(tracker.cost(firstInstance, now) <= tracker.cost(secondInstance, now) ? firstInstance
+        : secondInstance);
+  }
+
+}
@@ -0,0 +1,34 @@
+package petcare.app.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuración del balanceador de carga de un servicio, aplicada mediante @LoadBalancerClient. No se anota con
+ * Configuration para que no la detecte el escaneo de componentes y se aplique a todos los servicios
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+  /**
+   * Balanceador de carga por latencia del servicio
+   * 
+   * @param environment               Entorno del contexto del servicio
+   * @param loadBalancerClientFactory Factoría de los contextos de los servicios
+   * @param tracker                   Carga de las instancias
+   * @return ReactorLoadBalancer(ServiceInstance)
+   */
+  @Bean
+  public ReactorLoadBalancer<ServiceInstance> peakEwmaLoadBalancer(Environment environment,
+      LoadBalancerClientFactory loadBalancerClientFactory, InstanceLoadTracker tracker) {
+
+    String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+
+    return new PeakEwmaLoadBalancer(
+        loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId, tracker);
+  }
+
+}
@@ -0,0 +1,65 @@
+package petcare.app.gateway.metrics;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Respuesta que cuenta los bytes enviados al cliente. Si la respuesta indica su longitud (Content-Length), se toma
+ * directamente, sin recorrer el cuerpo
+ */
+class CountingResponse extends ServerHttpResponseDecorator {
+
+  /** Bytes enviados. Sólo se actualiza desde el hilo que escribe la respuesta */
+  private long bytes;
+
+  /**
+   * Constructor
+   * 
+   * @param delegate Respuesta original
+   */
+  CountingResponse(ServerHttpResponse delegate) {
+    super(delegate);
+  }
+
+  /**
+   * Getter - Bytes enviados
+   * 
+   * @return long
+   */
+  long getBytes() {
+    return bytes;
+  }
+
+  @Override
+  public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+
+    long contentLength = getHeaders().getContentLength();
+
+    if (contentLength >= 0) {
+      bytes += contentLength;
+      return super.writeWith(body);
+    }
+
+    return super.writeWith(Flux.from(body).doOnNext(this::count));
+  }
+
+  @Override
+  public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+    return super.writeAndFlushWith(Flux.from(body).map(chunk -> Flux.from(chunk).doOnNext(this::count)));
+  }
+
+  /**
+   * Cuenta un fragmento del cuerpo
+   * 
+   * @param buffer Fragmento
+   */
+  private void count(DataBuffer buffer) {
+    bytes += buffer.readableByteCount();
+  }
+
+}
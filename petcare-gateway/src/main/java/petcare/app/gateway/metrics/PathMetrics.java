@@ -0,0 +1,164 @@
+package petcare.app.gateway.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Métricas de una plantilla de path de una ruta: histograma de latencias (HdrHistogram), peticiones por código de
+ * estado y bytes recibidos y enviados.<br/>
+ * El registro de cada petición no bloquea y sólo reserva memoria cuando el histograma compacto se amplía a un nuevo
+ * rango de valores: las latencias se registran en un Recorder y los contadores son LongAdder y AtomicLongArray. Los
+ * percentiles publicados son los de la última ventana completa: al leer las métricas, si la ventana ha terminado, se
+ * intercambia el histograma del Recorder
+ */
+class PathMetrics {
+
+  /**
+   * Latencia máxima registrada, en microsegundos. Las mayores, como las suscripciones SSE, se registran con este valor
+   */
+  private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+  /** Percentiles publicados */
+  private static final double[] PERCENTILES = { 50, 99, 99.9 };
+
+  /** Primer código de estado */
+  private static final int MIN_STATUS = 100;
+
+  /** Número de códigos de estado */
+  private static final int STATUS_COUNT = 500;
+
+  /** Microsegundos por segundo */
+  private static final double MICROS_PER_SECOND = 1_000_000.0;
+
+  /**
+   * Latencias de la ventana actual, en microsegundos. Histograma compacto, que sólo ocupa los rangos de valores usados
+   */
+  private final Recorder recorder = new Recorder(2, true);
+
+  /** Peticiones por código de estado */
+  private final AtomicLongArray statuses = new AtomicLongArray(STATUS_COUNT);
+
+  /** Indica, por código de estado, si ya se ha registrado su contador */
+  private final AtomicIntegerArray registeredStatuses = new AtomicIntegerArray(STATUS_COUNT);
+
+  /** Bytes recibidos */
+  private final LongAdder bytesIn = new LongAdder();
+
+  /** Bytes enviados */
+  private final LongAdder bytesOut = new LongAdder();
+
+  /** Registro de métricas */
+  private final MeterRegistry meterRegistry;
+
+  /** Etiquetas de las métricas: ruta y plantilla */
+  private final Tags tags;
+
+  /** Duración de cada ventana de latencias, en nanosegundos */
+  private final long windowNanos;
+
+  /** Histograma de la última ventana completa */
+  private Histogram interval;
+
+  /** Inicio de la ventana actual, en nanosegundos (System.nanoTime) */
+  private long windowStart = System.nanoTime();
+
+  /**
+   * Constructor. Registra las métricas de latencia y bytes
+   * 
+   * @param meterRegistry Registro de métricas
+   * @param tags          Etiquetas: ruta y plantilla
+   * @param window        Duración de cada ventana de latencias
+   */
+  PathMetrics(MeterRegistry meterRegistry, Tags tags, Duration window) {
+
+    this.meterRegistry = meterRegistry;
+    this.tags = tags;
+    this.windowNanos = window.toNanos();
+    this.interval = recorder.getIntervalHistogram();
+
+    for (double percentile : PERCENTILES) {
+
+      Gauge
+          .builder("petcare.gateway.route.latency", this, metrics -> metrics.percentile(percentile))
+          .description("Percentil de la latencia de las peticiones en la última ventana")
+          .baseUnit("seconds")
+          .tags(tags)
+          .tag("percentile", String.valueOf(percentile / 100))
+          .register(meterRegistry);
+    }
+
+    FunctionCounter
+        .builder("petcare.gateway.route.bytes.in", bytesIn, LongAdder::sum)
+        .description("Bytes recibidos de los clientes")
+        .baseUnit("bytes")
+        .tags(tags)
+        .register(meterRegistry);
+
+    FunctionCounter
+        .builder("petcare.gateway.route.bytes.out", bytesOut, LongAdder::sum)
+        .description("Bytes enviados a los clientes")
+        .baseUnit("bytes")
+        .tags(tags)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Registra una petición
+   * 
+   * @param latencyNanos Latencia, en nanosegundos
+   * @param status       Código de estado
+   * @param in           Bytes recibidos
+   * @param out          Bytes enviados
+   */
+  void record(long latencyNanos, int status, long in, long out) {
+
+    recorder.recordValue(Math.clamp(TimeUnit.NANOSECONDS.toMicros(latencyNanos), 1, HIGHEST_TRACKABLE_MICROS));
+    bytesIn.add(in);
+    bytesOut.add(out);
+
+    int index = Math.clamp(status - MIN_STATUS, 0, STATUS_COUNT - 1);
+
+    statuses.incrementAndGet(index);
+
+    if (registeredStatuses.get(index) == 0 && registeredStatuses.compareAndSet(index, 0, 1)) {
+
+      FunctionCounter
+          .builder("petcare.gateway.route.requests", statuses, counts -> counts.get(index))
+          .description("Peticiones por código de estado")
+          .tags(tags)
+          .tag("status", String.valueOf(index + MIN_STATUS))
+          .register(meterRegistry);
+    }
+  }
+
+  /**
+   * Percentil de la latencia en la última ventana completa
+   * 
+   * @param percentile Percentil, entre 0 y 100
+   * @return double - Latencia, en segundos
+   */
+  private synchronized double percentile(double percentile) {
+
+    long now = System.nanoTime();
+
+    if (now - windowStart >= windowNanos) {
+
+      interval = recorder.getIntervalHistogram(interval);
+      windowStart = now;
+    }
+
+    return interval.getValueAtPercentile(percentile) / MICROS_PER_SECOND;
+  }
+
+}
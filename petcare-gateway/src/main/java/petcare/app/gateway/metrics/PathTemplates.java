@@ -0,0 +1,179 @@
+package petcare.app.gateway.metrics;
+
+/**
+ * Clase de utilidad que obtiene la plantilla de un path, para agrupar las métricas de las peticiones sin una etiqueta
+ * distinta por cada valor de sus variables.<br/>
+ * Sigue las convenciones de las APIs de los servicios, en las que las variables son IDs, fechas, documentos de
+ * identidad o nombres: se sustituye por {id} cada segmento que contiene algún dígito o es un UUID, y por {name} el
+ * segmento que sigue a un segmento name. Por ejemplo, /api/vets/find/name/Luis/entity/7 pasa a
+ * /api/vets/find/name/{name}/entity/{id}
+ */
+public class PathTemplates {
+
+  /** Segmento que sustituye a las variables con dígitos */
+  private static final String ID = "{id}";
+
+  /** Segmento que sustituye a los nombres */
+  private static final String NAME = "{name}";
+
+  /** Segmento que precede a un nombre */
+  private static final String NAME_KEY = "name";
+
+  /** Longitud de un UUID */
+  private static final int UUID_LENGTH = 36;
+
+  /** Constructor privado para evitar inicialización */
+  private PathTemplates() {
+
+  }
+
+  /**
+   * Obtiene la plantilla de un path. Si el path no tiene variables se devuelve el mismo String, sin crear uno nuevo
+   * 
+   * @param path Path
+   * @return String - Plantilla
+   */
+  public static String template(String path) {
+
+    if (!hasVariables(path)) {
+      return path;
+    }
+
+    StringBuilder template = new StringBuilder(path.length());
+    int start = 0;
+    boolean afterName = false;
+
+    while (start < path.length()) {
+
+      int end = segmentEnd(path, start);
+
+      if (end > start && (afterName || isId(path, start, end))) {
+        template.append(afterName ? NAME : ID);
+
+      } else {
+        template.append(path, start, end);
+      }
+
+      afterName = isNameKey(path, start, end);
+
+      if (end < path.length()) {
+        template.append('/');
+      }
+
+      start = end + 1;
+    }
+
+    return template.toString();
+  }
+
+  /**
+   * Comprueba si un path tiene algún segmento a sustituir
+   * 
+   * @param path Path
+   * @return boolean
+   */
+  private static boolean hasVariables(String path) {
+
+    int start = 0;
+
+    while (start < path.length()) {
+
+      int end = segmentEnd(path, start);
+
+      if (isId(path, start, end) || isNameKey(path, start, end) && end < path.length() - 1) {
+        return true;
+      }
+
+      start = end + 1;
+    }
+
+    return false;
+  }
+
+  /**
+   * Fin de un segmento
+   * 
+   * @param path  Path
+   * @param start Inicio del segmento
+   * @return int - Posición de la siguiente barra, o longitud del path
+   */
+  private static int segmentEnd(String path, int start) {
+
+    int end = path.indexOf('/', start);
+    return end < 0 ? path.length() : end;
+  }
+
+  /**
+   * Comprueba si un segmento es una variable: contiene algún dígito o es un UUID
+   * 
+   * @param path  Path
+   * @param start Inicio del segmento
+   * @param end   Fin del segmento (excluido)
+   * @return boolean
+   */
+  private static boolean isId(String path, int start, int end) {
+    return hasDigit(path, start, end) || isUuid(path, start, end);
+  }
+
+  /**
+   * Comprueba si un segmento contiene algún dígito
+   * 
+   * @param path  Path
+   * @param start Inicio del segmento
+   * @param end   Fin del segmento (excluido)
+   * @return boolean
+   */
+  private static boolean hasDigit(String path, int start, int end) {
+
+    for (int i = start; i < end; i++) {
+
+      char c = path.charAt(i);
+
+      if (c >= '0' && c <= '9') {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Comprueba si un segmento es un UUID, aunque no contenga dígitos
+   * 
+   * @param path  Path
+   * @param start Inicio del segmento
+   * @param end   Fin del segmento (excluido)
+   * @return boolean
+   */
+  private static boolean isUuid(String path, int start, int end) {
+
+    if (end - start != UUID_LENGTH) {
+      return false;
+    }
+
+    for (int i = 0; i < UUID_LENGTH; i++) {
+
+      char c = path.charAt(start + i);
+      boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+
+      if (dash ? c != '-' : Character.digit(c, 16) < 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Comprueba si un segmento es el que precede a un nombre
+   * 
+   * @param path  Path
+   * @param start Inicio del segmento
+   * @param end   Fin del segmento (excluido)
+   * @return boolean
+   */
+  private static boolean isNameKey(String path, int start, int end) {
+    return end - start == NAME_KEY.length() && path.startsWith(NAME_KEY, start);
+  }
+
+}
@@ -0,0 +1,187 @@
+package petcare.app.gateway.metrics;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Filtro global que registra métricas de cada ruta y plantilla de path ({@link PathTemplates}): percentiles de latencia
+ * p50, p99 y p999 (petcare.gateway.route.latency), peticiones por código de estado (petcare.gateway.route.requests) y
+ * bytes recibidos y enviados (petcare.gateway.route.bytes.in/out), y peticiones por instancia del servicio
+ * (petcare.gateway.route.upstream.requests). Se publican en /actuator/metrics.<br/>
+ * Se ejecuta antes que cualquier otro filtro, de forma que la latencia incluye todo el procesamiento de la pasarela, y
+ * registra cada petición sin bloqueos en el hilo de Netty que la completa. Las peticiones canceladas por el cliente
+ * cuentan con el código 499 y las que terminan en error sin código de estado, con 500.<br/>
+ * El número de plantillas de cada ruta está limitado: las peticiones de plantillas nuevas que lo superan se agrupan en
+ * la plantilla /**. Los bytes recibidos se toman de la cabecera Content-Length de la petición
+ */
+@Component
+public class RouteMetricsFilter implements GlobalFilter, Ordered {
+
+  /** Código de estado de las peticiones canceladas por el cliente */
+  private static final int CLIENT_CLOSED_REQUEST = 499;
+
+  /** Código de estado de las peticiones que terminan en error sin código de estado */
+  private static final int INTERNAL_SERVER_ERROR = 500;
+
+  /** Plantilla de las peticiones que superan el número máximo de plantillas de la ruta */
+  private static final String OVERFLOW_TEMPLATE = "/**";
+
+  /** Métricas de cada ruta y plantilla */
+  private final Map<String, Map<String, PathMetrics>> paths = new ConcurrentHashMap<>();
+
+  /** Peticiones de cada ruta e instancia */
+  private final Map<String, Map<String, LongAdder>> upstreams = new ConcurrentHashMap<>();
+
+  /** Registro de métricas */
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** Duración de cada ventana de latencias */
+  @Value("${petcare.gateway.metrics.window:1m}")
+  private Duration window;
+
+  /** Número máximo de plantillas de path de cada ruta */
+  @Value("${petcare.gateway.metrics.max-paths-per-route:100}")
+  private int maxPathsPerRoute;
+
+  @Override
+  public int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+
+    Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+
+    if (route == null) {
+      return chain.filter(exchange);
+    }
+
+    PathMetrics metrics = pathMetrics(route.getId(), PathTemplates.template(exchange.getRequest().getPath().value()));
+    CountingResponse response = new CountingResponse(exchange.getResponse());
+    long bytesIn = Math.max(exchange.getRequest().getHeaders().getContentLength(), 0);
+    long start = System.nanoTime();
+
+    return chain.filter(exchange.mutate().response(response).build()).doFinally(signal -> {
+
+      metrics.record(System.nanoTime() - start, status(signal, response.getStatusCode()), bytesIn,
+          response.getBytes());
+
+      Response<ServiceInstance> selected = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+
+      if (selected != null && selected.hasServer()) {
+        upstream(route.getId(), selected.getServer()).increment();
+      }
+    });
+  }
+
+  /**
+   * Código de estado con el que se registra una petición
+   * 
+   * @param signal Señal de finalización
+   * @param status Código de estado de la respuesta. Puede ser null
+   * @return int
+   */
+  private static int status(SignalType signal, HttpStatusCode status) {
+
+    if (signal == SignalType.CANCEL) {
+      return CLIENT_CLOSED_REQUEST;
+    }
+
+    if (status == null || signal == SignalType.ON_ERROR && !status.isError()) {
+      return INTERNAL_SERVER_ERROR;
+    }
+
+    return status.value();
+  }
+
+  /**
+   * Obtiene las métricas de una plantilla de una ruta, registrándolas la primera vez
+   * 
+   * @param routeId  ID de la ruta
+   * @param template Plantilla de path
+   * @return PathMetrics
+   */
+  private PathMetrics pathMetrics(String routeId, String template) {
+
+    Map<String, PathMetrics> routePaths = paths.get(routeId);
+
+    if (routePaths == null) {
+      routePaths = paths.computeIfAbsent(routeId, id -> new ConcurrentHashMap<>());
+    }
+
+    PathMetrics metrics = routePaths.get(template);
+
+    if (metrics != null) {
+      return metrics;
+    }
+
+    String effectiveTemplate = routePaths.size() < maxPathsPerRoute ? template : OVERFLOW_TEMPLATE;
+
+    return routePaths.computeIfAbsent(effectiveTemplate,
+        key -> new PathMetrics(meterRegistry, Tags.of("route", routeId, "path", key), window));
+  }
+
+  /**
+   * Obtiene el contador de peticiones de una instancia de una ruta, registrándolo la primera vez
+   * 
+   * @param routeId  ID de la ruta
+   * @param instance Instancia
+   * @return LongAdder
+   */
+  private LongAdder upstream(String routeId, ServiceInstance instance) {
+
+    String instanceId = instance.getInstanceId() != null ? instance.getInstanceId()
+        : instance.getHost() + ":" + instance.getPort();
+
+    Map<String, LongAdder> routeUpstreams = upstreams.get(routeId);
+
+    if (routeUpstreams == null) {
+      routeUpstreams = upstreams.computeIfAbsent(routeId, id -> new ConcurrentHashMap<>());
+    }
+
+    LongAdder counter = routeUpstreams.get(instanceId);
+
+    if (counter != null) {
+      return counter;
+    }
+
+    return routeUpstreams.computeIfAbsent(instanceId, key -> {
+
+      LongAdder requests = new LongAdder();
+
+      FunctionCounter
+          .builder("petcare.gateway.route.upstream.requests", requests, LongAdder::sum)
+          .description("Peticiones enviadas a cada instancia del servicio")
+          .tags("route", routeId, "instance", key)
+          .register(meterRegistry);
+
+      return requests;
+    });
+  }
+
+}
@@ -0,0 +1,229 @@
+package petcare.app.gateway.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.validation.constraints.Min;
+import reactor.core.publisher.Mono;
+
+/**
+ * Limitador de peticiones en memoria, sin Redis, por ruta y por clave (usuario o IP, ver {@link UserOrIpKeyResolver}).
+ * <br/>
+ * Cada clave dispone de un bucket de tokens que se rellena a un ritmo constante hasta su capacidad máxima. El bucket
+ * se implementa mediante GCRA (generic cell rate algorithm): su único estado es el instante teórico en el que el bucket
+ * volvería a estar lleno, guardado en un AtomicLong que se actualiza sin bloqueos mediante compare-and-set.<br/>
+ * Los buckets se almacenan en un mapa limitado en número de claves. Un bucket sin uso durante idle-timeout se descarta;
+ * al volver a crearse está lleno, igual que lo estaría el bucket descartado si idle-timeout supera el tiempo de
+ * rellenado completo.<br/>
+ * Se configura en cada ruta mediante los argumentos del filtro RequestRateLimiter:
+ * 
+ * <pre>
+ * - name: RequestRateLimiter
+ *   args:
+ *     local-rate-limiter.replenish-rate: 50
+ *     local-rate-limiter.burst-capacity: 100
+ * </pre>
+ */
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+  /** Prefijo de los argumentos del filtro RequestRateLimiter */
+  public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+  /** Cabecera con los tokens restantes */
+  public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+  /** Cabecera con el ritmo de rellenado del bucket */
+  public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+
+  /** Cabecera con la capacidad del bucket */
+  public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+
+  /** Nanosegundos por segundo */
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  /** Configuración de las rutas sin argumentos propios */
+  private final Config defaultConfig = new Config();
+
+  /** Buckets de cada ruta y clave: instante teórico de bucket lleno, en nanosegundos */
+  private final Cache<BucketKey, AtomicLong> buckets;
+
+  /** Reloj de los buckets, en nanosegundos */
+  private final LongSupplier nanoClock;
+
+  /**
+   * Constructor
+   * 
+   * @param configurationService Servicio de enlace de los argumentos de cada ruta
+   * @param maxKeys              Número máximo de buckets almacenados
+   * @param idleTimeout          Tiempo sin uso tras el que se descarta un bucket
+   */
+  @Autowired
+  public LocalRateLimiter(ConfigurationService configurationService,
+      @Value("${petcare.gateway.rate-limit.max-keys:100000}") long maxKeys,
+      @Value("${petcare.gateway.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+
+    this(configurationService, maxKeys, idleTimeout, System::nanoTime);
+  }
+
+  /**
+   * Constructor con un reloj propio
+   * 
+   * @param configurationService Servicio de enlace de los argumentos de cada ruta
+   * @param maxKeys              Número máximo de buckets almacenados
+   * @param idleTimeout          Tiempo sin uso tras el que se descarta un bucket
+   * @param nanoClock            Reloj de los buckets, en nanosegundos
+   */
+  LocalRateLimiter(ConfigurationService configurationService, long maxKeys, Duration idleTimeout,
+      LongSupplier nanoClock) {
+
+    super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+
+    this.buckets = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(idleTimeout).build();
+    this.nanoClock = nanoClock;
+  }
+
+  @Override
+  public Mono<Response> isAllowed(String routeId, String id) {
+
+    Config config = getConfig().getOrDefault(routeId, defaultConfig);
+
+    long interval = NANOS_PER_SECOND / config.getReplenishRate();
+    long cost = interval * config.getRequestedTokens();
+    long tolerance = interval * config.getBurstCapacity();
+
+    AtomicLong bucket = buckets.get(new BucketKey(routeId, id), key -> new AtomicLong(nanoClock.getAsLong()));
+
+    while (true) {
+
+      long now = nanoClock.getAsLong();
+      long fullAt = bucket.get();
+      long newFullAt = Math.max(fullAt, now) + cost;
+      long debt = newFullAt - now;
+
+      if (debt > tolerance) {
+
+        long retryAfterSeconds = Math.max(1, (debt - tolerance + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+
+        return Mono.just(new Response(false, headers(config, 0, retryAfterSeconds)));
+      }
+
+      if (bucket.compareAndSet(fullAt, newFullAt)) {
+        return Mono.just(new Response(true, headers(config, (tolerance - debt) / interval, 0)));
+      }
+    }
+  }
+
+  /**
+   * Cabeceras de la respuesta
+   * 
+   * @param config            Configuración de la ruta
+   * @param remaining         Tokens restantes
+   * @param retryAfterSeconds Segundos hasta que la petición se admitiría. 0 si se ha admitido
+   * @return Map(String, String) - Cabeceras
+   */
+  private static Map<String, String> headers(Config config, long remaining, long retryAfterSeconds) {
+
+    if (retryAfterSeconds > 0) {
+      return Map.of(REMAINING_HEADER, String.valueOf(remaining), REPLENISH_RATE_HEADER,
+          String.valueOf(config.getReplenishRate()), BURST_CAPACITY_HEADER, String.valueOf(config.getBurstCapacity()),
+          HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+
+    return Map.of(REMAINING_HEADER, String.valueOf(remaining), REPLENISH_RATE_HEADER,
+        String.valueOf(config.getReplenishRate()), BURST_CAPACITY_HEADER, String.valueOf(config.getBurstCapacity()));
+  }
+
+  /**
+   * Clave de un bucket
+   * 
+   * @param routeId ID de la ruta
+   * @param id      Clave resuelta de la petición
+   */
+  private record BucketKey(String routeId, String id) {
+  }
+
+  /** Configuración de una ruta */
+  public static class Config {
+
+    /** Tokens añadidos al bucket por segundo */
+    @Min(1)
+    private int replenishRate = 50;
+
+    /** Capacidad del bucket: número máximo de peticiones admitidas en una ráfaga */
+    @Min(1)
+    private int burstCapacity = 100;
+
+    /** Tokens consumidos por cada petición */
+    @Min(1)
+    private int requestedTokens = 1;
+
+    /**
+     * Getter - Tokens añadidos al bucket por segundo
+     * 
+     * @return int
+     */
+    public int getReplenishRate() {
+      return replenishRate;
+    }
+
+    /**
+     * Setter - Tokens añadidos al bucket por segundo
+     * 
+     * @param replenishRate Tokens por segundo
+     */
+    public void setReplenishRate(int replenishRate) {
+      this.replenishRate = replenishRate;
+    }
+
+    /**
+     * Getter - Capacidad del bucket
+     * 
+     * @return int
+     */
+    public int getBurstCapacity() {
+      return burstCapacity;
+    }
+
+    /**
+     * Setter - Capacidad del bucket
+     * 
+     * @param burstCapacity Número máximo de peticiones admitidas en una ráfaga
+     */
+    public void setBurstCapacity(int burstCapacity) {
+      this.burstCapacity = burstCapacity;
+    }
+
+    /**
+     * Getter - Tokens consumidos por cada petición
+     * 
+     * @return int
+     */
+    public int getRequestedTokens() {
+      return requestedTokens;
+    }
+
+    /**
+     * Setter - Tokens consumidos por cada petición
+     * 
+     * @param requestedTokens Tokens por petición
+     */
+    public void setRequestedTokens(int requestedTokens) {
+      this.requestedTokens = requestedTokens;
+    }
+  }
+
+}
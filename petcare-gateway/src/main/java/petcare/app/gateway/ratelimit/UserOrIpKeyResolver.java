@@ -0,0 +1,48 @@
+package petcare.app.gateway.ratelimit;
+
+import java.net.InetSocketAddress;
+
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Clave de limitación de peticiones: el usuario (claim user_name del token JWT, resuelto por JwtAuthenticationFilter)
+ * o, en las peticiones sin autenticar como el login, la IP de origen
+ */
+@Component
+public class UserOrIpKeyResolver implements KeyResolver {
+
+  /** Prefijo de las claves de usuario */
+  private static final String USER_PREFIX = "user:";
+
+  /** Prefijo de las claves de IP */
+  private static final String IP_PREFIX = "ip:";
+
+  @Override
+  public Mono<String> resolve(ServerWebExchange exchange) {
+
+    return exchange
+        .getPrincipal()
+        .filter(principal -> principal.getName() != null && !principal.getName().isEmpty())
+        .map(principal -> USER_PREFIX + principal.getName())
+        .switchIfEmpty(Mono.fromSupplier(() -> IP_PREFIX + remoteIp(exchange)));
+  }
+
+  /**
+   * Obtiene la IP de origen de la petición
+   * 
+   * @param exchange Petición
+   * @return String - IP de origen, o "unknown" si no se conoce
+   */
+  private static String remoteIp(ServerWebExchange exchange) {
+
+    InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+
+    return remoteAddress == null || remoteAddress.getAddress() == null ? "unknown"
+        : remoteAddress.getAddress().getHostAddress();
+  }
+
+}
@@ -1,9 +1,14 @@
 package petcare.app.gateway.security;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import javax.crypto.SecretKey;
 
@@ -15,39 +20,144 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import reactor.core.publisher.Mono;
 
+/**
+ * Verifica los tokens JWT de las peticiones y obtiene el usuario y sus authorities.<br/>
+ * La clave y el parser se crean una única vez. Cada token verificado se guarda en una caché limitada, por el hash
+ * SHA-256 del token, hasta su expiración, de forma que las peticiones sucesivas con el mismo token no vuelven a
+ * comprobar la firma ni a construir las authorities
+ */
 @Component
 public class AuthenticationManagerJwt implements ReactiveAuthenticationManager {
 
   @Value("${config.security.oauth.jwt.key}")
   private String llaveJwt;
 
+  /** Número máximo de tokens verificados almacenados */
+  @Value("${config.security.oauth.jwt.cache.maximum-size:100000}")
+  private long cacheMaximumSize;
+
+  /** Tiempo máximo de permanencia de un token verificado, aunque su expiración sea posterior o no tenga */
+  @Value("${config.security.oauth.jwt.cache.max-ttl:15m}")
+  private Duration cacheMaxTtl;
+
+  /** Parser de tokens, con la clave de firma ya configurada. Es inmutable y seguro para uso concurrente */
+  private JwtParser parser;
+
+  /** Tokens verificados, por el hash SHA-256 del token */
+  private Cache<ByteBuffer, VerifiedToken> verifiedTokens;
+
+  /** Crea el parser y la caché de tokens verificados */
+  @PostConstruct
+  public void init() {
+
+    SecretKey llave = Keys.hmacShaKeyFor(Base64.getEncoder().encode(llaveJwt.getBytes()));
+    parser = Jwts.parserBuilder().setSigningKey(llave).build();
+
+    verifiedTokens = Caffeine.newBuilder().maximumSize(cacheMaximumSize).expireAfter(new TokenExpiry()).build();
+  }
+
+  /**
+   * Verifica el token y obtiene el usuario autenticado. La firma de los tokens se comprueba mediante HMAC, con un coste
+   * de microsegundos, por lo que se verifica en el propio hilo de la petición
+   */
   @Override
-  @SuppressWarnings("unchecked")
   public Mono<Authentication> authenticate(Authentication authentication) {
 
-    return Mono.just(authentication.getCredentials().toString()).map(token -> {
+    return Mono.fromCallable(() -> {
+
+      String token = authentication.getCredentials().toString();
+      ByteBuffer key = hash(token);
+      VerifiedToken verified = verifiedTokens.getIfPresent(key);
+
+      if (verified == null) {
+        verified = verify(token);
+        verifiedTokens.put(key, verified);
+      }
+
+      return verified.authentication();
+    });
+  }
+
+  /**
+   * Comprueba la firma y la expiración del token y construye el usuario autenticado
+   * 
+   * @param token Token JWT
+   * @return VerifiedToken - Usuario autenticado y expiración del token
+   */
+  @SuppressWarnings("unchecked")
+  private VerifiedToken verify(String token) {
+
+    Claims claims = parser.parseClaimsJws(token).getBody();
+
+    String username = claims.get("user_name", String.class);
+
+    List<String> roles = claims.get("authorities", List.class);
+    Collection<GrantedAuthority> authorities = roles.stream().<GrantedAuthority>map(SimpleGrantedAuthority::new)
+        .toList();
+
+    Date expiration = claims.getExpiration();
+
+    return new VerifiedToken(new UsernamePasswordAuthenticationToken(username, null, authorities),
+        expiration == null ? Long.MAX_VALUE : expiration.getTime());
+  }
+
+  /**
+   * Calcula el hash SHA-256 de un token. La caché no guarda los tokens, sino sus hashes
+   * 
+   * @param token Token JWT
+   * @return ByteBuffer - Hash del token
+   */
+  private static ByteBuffer hash(String token) {
+
+    try {
+      return ByteBuffer
+          .wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Token verificado
+   * 
+   * @param authentication   Usuario autenticado
+   * @param expirationMillis Expiración del token, en milisegundos desde epoch
+   */
+  private record VerifiedToken(Authentication authentication, long expirationMillis) {
+  }
 
-      SecretKey llave = Keys.hmacShaKeyFor(Base64.getEncoder().encode(llaveJwt.getBytes()));
-      return Jwts.parserBuilder().setSigningKey(llave).build().parseClaimsJws(token).getBody();
+  /** Expiración de cada token verificado: la del propio token, limitada al tiempo máximo de permanencia */
+  private final class TokenExpiry implements Expiry<ByteBuffer, VerifiedToken> {
 
-    })
+    @Override
+    public long expireAfterCreate(ByteBuffer key, VerifiedToken value, long currentTime) {
 
-        .map(claims -> {
+      long remainingMillis = value.expirationMillis() - System.currentTimeMillis();
 
-          String username = claims.get("user_name", String.class);
+      return Math.clamp(remainingMillis, 0, cacheMaxTtl.toMillis()) * 1_000_000L;
+    }
 
-          List<String> roles = claims.get("authorities", List.class);
-          Collection<GrantedAuthority> authorities = roles
-              .stream()
-              .map(SimpleGrantedAuthority::new)
-              .collect(Collectors.toList());
-          return new UsernamePasswordAuthenticationToken(username, null, authorities);
+    @Override
+    public long expireAfterUpdate(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
 
-        });
+    @Override
+    public long expireAfterRead(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
   }
 
 }
@@ -15,6 +15,9 @@ import reactor.core.publisher.Mono;
 @Component
 public class JwtAuthenticationFilter implements WebFilter {
 
+  /** Prefijo de la cabecera Authorization con token JWT */
+  private static final String BEARER_PREFIX = "Bearer ";
+
   @Autowired
   private ReactiveAuthenticationManager authenticationManager;
 
@@ -24,11 +27,11 @@ public class JwtAuthenticationFilter implements WebFilter {
     return Mono
         .justOrEmpty(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION))
 
-        .filter(authHeader -> authHeader.startsWith("Bearer "))
+        .filter(authHeader -> authHeader.startsWith(BEARER_PREFIX))
 
         .switchIfEmpty(chain.filter(exchange).then(Mono.empty()))
 
-        .map(token -> token.replace("Bearer ", ""))
+        .map(authHeader -> authHeader.substring(BEARER_PREFIX.length()))
 
         .flatMap(token -> authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(null, token)))
 
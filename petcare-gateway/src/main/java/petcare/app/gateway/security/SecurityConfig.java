@@ -52,6 +52,10 @@ public class SecurityConfig {
             .pathMatchers("/users/register/vet-entity")
             .hasRole("ROOT")
 
+            // Métricas y estado de la pasarela
+            .pathMatchers("/actuator/**")
+            .hasRole("ROOT")
+
             .anyExchange()
             .authenticated()
 
@@ -0,0 +1,129 @@
+package petcare.app.gateway.coalescing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sólo se agrupan los GET idénticos con la misma cabecera Authorization: nunca se comparte una respuesta entre tokens
+ * distintos ni se agrupan las peticiones sin token
+ */
+class RequestCoalescingGatewayFilterFactoryTest {
+
+  private static final String ROUTE_ID = "route";
+
+  private static final String TOKEN = "Bearer a";
+
+  private static final String OTHER_TOKEN = "Bearer b";
+
+  private static final Duration LATENCY = Duration.ofMillis(100);
+
+  private AtomicInteger calls;
+
+  private GatewayFilter filter;
+
+  @BeforeEach
+  void setUp() {
+
+    calls = new AtomicInteger();
+
+    RequestCoalescingGatewayFilterFactory.Config config = new RequestCoalescingGatewayFilterFactory.Config();
+    config.setRouteId(ROUTE_ID);
+
+    filter = new RequestCoalescingGatewayFilterFactory(new SimpleMeterRegistry()).apply(config);
+  }
+
+  @Test
+  void keyIncludesPathQueryAndNegotiationHeaders() {
+
+    RequestCoalescingGatewayFilterFactory.RequestKey key = key(get("/pets/find/1?page=0", TOKEN));
+
+    assertEquals(key, key(get("/pets/find/1?page=0", TOKEN)));
+    assertNotEquals(key, key(get("/pets/find/2?page=0", TOKEN)));
+    assertNotEquals(key, key(get("/pets/find/1?page=1", TOKEN)));
+    assertNotEquals(key, key(get("/pets/find/1?page=0", TOKEN).accept(MediaType.APPLICATION_XML)));
+    assertNotEquals(key, key(get("/pets/find/1?page=0", TOKEN).header(HttpHeaders.ACCEPT_ENCODING, "gzip")));
+    assertNotEquals(key, RequestCoalescingGatewayFilterFactory.key("other",
+        get("/pets/find/1?page=0", TOKEN).build()));
+  }
+
+  @Test
+  void keyIncludesAuthorization() {
+    assertNotEquals(key(get("/pets/find/1", TOKEN)), key(get("/pets/find/1", OTHER_TOKEN)));
+  }
+
+  @Test
+  void requestsWithoutAuthorizationOrOtherMethodsAreNotCoalesced() {
+
+    assertNull(key(MockServerHttpRequest.get("/pets/find/1")));
+    assertNull(key(MockServerHttpRequest.post("/pets").header(HttpHeaders.AUTHORIZATION, TOKEN)));
+    assertNotNull(key(get("/pets/find/1", TOKEN)));
+  }
+
+  @Test
+  void identicalConcurrentRequestsShareOneCall() {
+
+    MockServerWebExchange first = MockServerWebExchange.from(get("/pets/find/1", TOKEN));
+    MockServerWebExchange second = MockServerWebExchange.from(get("/pets/find/1", TOKEN));
+
+    Mono.when(filter.filter(first, this::downstream), filter.filter(second, this::downstream)).block();
+
+    assertEquals(1, calls.get());
+    assertEquals(TOKEN, first.getResponse().getBodyAsString().block());
+    assertEquals(TOKEN, second.getResponse().getBodyAsString().block());
+  }
+
+  @Test
+  void requestsWithDifferentAuthorizationAreNotShared() {
+
+    MockServerWebExchange first = MockServerWebExchange.from(get("/pets/find/1", TOKEN));
+    MockServerWebExchange second = MockServerWebExchange.from(get("/pets/find/1", OTHER_TOKEN));
+
+    Mono.when(filter.filter(first, this::downstream), filter.filter(second, this::downstream)).block();
+
+    assertEquals(2, calls.get());
+    assertEquals(TOKEN, first.getResponse().getBodyAsString().block());
+    assertEquals(OTHER_TOKEN, second.getResponse().getBodyAsString().block());
+  }
+
+  private Mono<Void> downstream(ServerWebExchange exchange) {
+
+    calls.incrementAndGet();
+
+    ServerHttpResponse response = exchange.getResponse();
+    byte[] body = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION)
+        .getBytes(StandardCharsets.UTF_8);
+
+    response.setStatusCode(HttpStatus.OK);
+
+    return Mono.delay(LATENCY).then(response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body))));
+  }
+
+  private static MockServerHttpRequest.BaseBuilder<?> get(String uri, String authorization) {
+    return MockServerHttpRequest.get(uri).header(HttpHeaders.AUTHORIZATION, authorization);
+  }
+
+  private static RequestCoalescingGatewayFilterFactory.RequestKey key(MockServerHttpRequest.BaseBuilder<?> request) {
+    return RequestCoalescingGatewayFilterFactory.key(ROUTE_ID, request.build());
+  }
+
+}
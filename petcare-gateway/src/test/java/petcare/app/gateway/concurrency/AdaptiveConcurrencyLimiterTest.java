@@ -0,0 +1,169 @@
+package petcare.app.gateway.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * El límite crece mientras la latencia se mantiene, se reduce cuando la latencia crece o hay errores, siempre entre
+ * min-limit y max-limit, y las peticiones que lo superan se rechazan. Cada ventana se cierra al avanzar el reloj
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final Duration WINDOW = Duration.ofSeconds(1);
+
+  private static final long STABLE_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private static final long INFLATED_RTT = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private AtomicLong now;
+
+  private AdaptiveConcurrencyLimitGatewayFilterFactory.Config config;
+
+  @BeforeEach
+  void setUp() {
+
+    now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    config = new AdaptiveConcurrencyLimitGatewayFilterFactory.Config();
+    config.setInitialLimit(20);
+    config.setMinLimit(5);
+    config.setMaxLimit(200);
+    config.setWindow(WINDOW);
+    config.setMinWindowSamples(1);
+  }
+
+  @Test
+  void increasesUnderStableLatency() {
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config, now::get);
+
+    for (int i = 0; i < 5; i++) {
+
+      int before = limiter.getLimit();
+
+      window(limiter, STABLE_RTT, false);
+
+      assertTrue(limiter.getLimit() >= before, "limit " + limiter.getLimit() + ", before " + before);
+    }
+
+    assertTrue(limiter.getLimit() > 20, "limit " + limiter.getLimit());
+  }
+
+  @Test
+  void keepsLimitWithLittleTraffic() {
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config, now::get);
+
+    for (int i = 0; i < 5; i++) {
+
+      assertTrue(limiter.tryAcquire());
+      now.addAndGet(WINDOW.toNanos());
+      limiter.release(STABLE_RTT, false);
+    }
+
+    assertEquals(20, limiter.getLimit());
+  }
+
+  @Test
+  void decreasesWhenLatencyInflates() {
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config, now::get);
+
+    for (int i = 0; i < 5; i++) {
+      window(limiter, STABLE_RTT, false);
+    }
+
+    int stable = limiter.getLimit();
+
+    window(limiter, INFLATED_RTT, false);
+
+    assertTrue(limiter.getLimit() < stable, "limit " + limiter.getLimit() + ", stable " + stable);
+  }
+
+  @Test
+  void decreasesOnErrors() {
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config, now::get);
+
+    window(limiter, STABLE_RTT, true);
+
+    assertEquals(18, limiter.getLimit());
+  }
+
+  @Test
+  void staysWithinMinAndMax() {
+
+    config.setMaxLimit(25);
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config, now::get);
+
+    for (int i = 0; i < 20; i++) {
+      window(limiter, STABLE_RTT, false);
+    }
+
+    assertEquals(25, limiter.getLimit());
+
+    for (int i = 0; i < 20; i++) {
+      window(limiter, STABLE_RTT, true);
+    }
+
+    assertEquals(5, limiter.getLimit());
+
+    window(limiter, INFLATED_RTT, false);
+
+    assertEquals(5, limiter.getLimit());
+  }
+
+  @Test
+  void rejectsOnceLimitIsReached() {
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config, now::get);
+
+    for (int i = 0; i < 20; i++) {
+      assertTrue(limiter.tryAcquire());
+    }
+
+    assertFalse(limiter.tryAcquire());
+    assertEquals(20, limiter.getInFlight());
+
+    limiter.release();
+
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+  }
+
+  @Test
+  void keepsLearnedLimitWithinNewBounds() {
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config, now::get);
+
+    config.setMaxLimit(10);
+    limiter.configure(config);
+
+    assertEquals(10, limiter.getLimit());
+  }
+
+  private void window(AdaptiveConcurrencyLimiter limiter, long rttNanos, boolean dropped) {
+
+    int requests = limiter.getLimit();
+
+    for (int i = 0; i < requests; i++) {
+      assertTrue(limiter.tryAcquire());
+    }
+
+    for (int i = 1; i < requests; i++) {
+      limiter.release(rttNanos, dropped);
+    }
+
+    now.addAndGet(WINDOW.toNanos());
+    limiter.release(rttNanos, dropped);
+  }
+
+}
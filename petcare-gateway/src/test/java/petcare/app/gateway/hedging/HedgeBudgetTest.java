@@ -0,0 +1,70 @@
+package petcare.app.gateway.hedging;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cada petición aporta budget-percent centésimas de cobertura y cada cobertura consume una unidad completa. El
+ * presupuesto acumulado sin usar tiene un máximo
+ */
+class HedgeBudgetTest {
+
+  private final HedgeBudget budget = new HedgeBudget();
+
+  @Test
+  void startsEmpty() {
+    assertFalse(budget.tryWithdraw());
+  }
+
+  @Test
+  void allowsBudgetPercentOfRequests() {
+
+    for (int request = 0; request < 9; request++) {
+      budget.deposit(10);
+    }
+
+    assertFalse(budget.tryWithdraw());
+
+    budget.deposit(10);
+
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+  }
+
+  @Test
+  void refillsAfterExhaustion() {
+
+    deposit(10, 10);
+
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+
+    deposit(20, 10);
+
+    assertTrue(budget.tryWithdraw());
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+  }
+
+  @Test
+  void capsAccumulatedHedges() {
+
+    deposit(1_000, 10);
+
+    for (int hedge = 0; hedge < 10; hedge++) {
+      assertTrue(budget.tryWithdraw());
+    }
+
+    assertFalse(budget.tryWithdraw());
+  }
+
+  private void deposit(int requests, int budgetPercent) {
+
+    for (int request = 0; request < requests; request++) {
+      budget.deposit(budgetPercent);
+    }
+  }
+
+}
@@ -0,0 +1,139 @@
+package petcare.app.gateway.hedging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * La cobertura sólo se envía si la primera petición no ha respondido tras el umbral. Se entrega la primera respuesta
+ * y se cancela la otra petición antes de que responda. Las peticiones al servicio se simulan con retardos en tiempo
+ * virtual
+ */
+class HedgingGatewayFilterFactoryTest {
+
+  private static final Duration DELAY = Duration.ofMillis(100);
+
+  private final AtomicInteger hedgesSent = new AtomicInteger();
+
+  private final AtomicBoolean primaryCancelled = new AtomicBoolean();
+
+  private final AtomicBoolean hedgeCancelled = new AtomicBoolean();
+
+  @Test
+  void primaryRespondingBeforeDelaySendsNoHedge() {
+
+    StepVerifier
+        .withVirtualTime(() -> HedgingGatewayFilterFactory.race(primary(Duration.ofMillis(50)),
+            hedge(Duration.ofMillis(10)), DELAY))
+        .thenAwait(Duration.ofMillis(50))
+        .assertNext(attempt -> assertResponse(attempt, "primary", false))
+        .verifyComplete();
+
+    assertEquals(0, hedgesSent.get());
+    assertFalse(primaryCancelled.get());
+  }
+
+  @Test
+  void hedgeRespondingFirstWinsAndPrimaryIsCancelled() {
+
+    StepVerifier
+        .withVirtualTime(() -> HedgingGatewayFilterFactory.race(primary(Duration.ofSeconds(1)),
+            hedge(Duration.ofMillis(50)), DELAY))
+        .thenAwait(DELAY.plusMillis(50))
+        .assertNext(attempt -> assertResponse(attempt, "hedge", true))
+        .verifyComplete();
+
+    assertEquals(1, hedgesSent.get());
+    assertTrue(primaryCancelled.get());
+    assertFalse(hedgeCancelled.get());
+  }
+
+  @Test
+  void primaryRespondingFirstWinsAndHedgeIsCancelled() {
+
+    StepVerifier
+        .withVirtualTime(() -> HedgingGatewayFilterFactory.race(primary(Duration.ofMillis(120)),
+            hedge(Duration.ofSeconds(1)), DELAY))
+        .thenAwait(Duration.ofMillis(120))
+        .assertNext(attempt -> assertResponse(attempt, "primary", false))
+        .verifyComplete();
+
+    assertEquals(1, hedgesSent.get());
+    assertTrue(hedgeCancelled.get());
+    assertFalse(primaryCancelled.get());
+  }
+
+  @Test
+  void primaryErrorBeforeDelayIsPropagated() {
+
+    StepVerifier
+        .withVirtualTime(() -> HedgingGatewayFilterFactory.race(failure(Duration.ofMillis(10)),
+            hedge(Duration.ofMillis(10)), DELAY))
+        .thenAwait(Duration.ofMillis(10))
+        .verifyErrorMessage("primary");
+
+    assertEquals(0, hedgesSent.get());
+  }
+
+  @Test
+  void primaryErrorAfterDelayWaitsForHedge() {
+
+    StepVerifier
+        .withVirtualTime(() -> HedgingGatewayFilterFactory.race(failure(Duration.ofMillis(120)),
+            hedge(Duration.ofMillis(50)), DELAY))
+        .thenAwait(DELAY.plusMillis(50))
+        .assertNext(attempt -> assertResponse(attempt, "hedge", true))
+        .verifyComplete();
+  }
+
+  @Test
+  void primaryErrorIsPropagatedWhenHedgeIsNotSent() {
+
+    StepVerifier
+        .withVirtualTime(() -> HedgingGatewayFilterFactory.race(failure(Duration.ofMillis(120)),
+            Mono.empty(), DELAY))
+        .thenAwait(Duration.ofMillis(120))
+        .verifyErrorMessage("primary");
+  }
+
+  private Mono<ResponseEntity<byte[]>> primary(Duration latency) {
+    return response("primary", latency, primaryCancelled);
+  }
+
+  private Mono<ResponseEntity<byte[]>> hedge(Duration latency) {
+    return response("hedge", latency, hedgeCancelled).doOnSubscribe(subscription -> hedgesSent.incrementAndGet());
+  }
+
+  private static Mono<ResponseEntity<byte[]>> failure(Duration latency) {
+    return Mono.delay(latency).then(Mono.error(new IOException("primary")));
+  }
+
+  private static Mono<ResponseEntity<byte[]>> response(String body, Duration latency, AtomicBoolean cancelled) {
+
+    AtomicBoolean responded = new AtomicBoolean();
+
+    return Mono
+        .delay(latency)
+        .map(tick -> ResponseEntity.ok(body.getBytes()))
+        .doOnNext(entity -> responded.set(true))
+        .doOnCancel(() -> cancelled.compareAndSet(false, !responded.get()));
+  }
+
+  private static void assertResponse(HedgingGatewayFilterFactory.Attempt attempt, String body, boolean hedged) {
+
+    assertEquals(body, new String(attempt.entity().getBody()));
+    assertEquals(hedged, attempt.hedged());
+  }
+
+}
@@ -0,0 +1,96 @@
+package petcare.app.gateway.hedging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * El umbral es el percentil configurado de las latencias de la ventana, entre min-delay y max-delay. Hasta disponer de
+ * suficientes muestras se mantiene el umbral inicial, o el de la ventana anterior
+ */
+class LatencyThresholdTest {
+
+  private static final double DELTA_MILLIS = 1;
+
+  private HedgingGatewayFilterFactory.Config config;
+
+  private LatencyThreshold threshold;
+
+  @BeforeEach
+  void setUp() {
+
+    config = new HedgingGatewayFilterFactory.Config();
+    config.setPercentile(95);
+    config.setMinDelay(Duration.ofMillis(20));
+    config.setMaxDelay(Duration.ofSeconds(1));
+    config.setWindow(Duration.ZERO);
+
+    threshold = new LatencyThreshold(config.getMaxDelay().toNanos());
+  }
+
+  @Test
+  void usesInitialThresholdWithoutEnoughSamples() {
+
+    for (int i = 1; i <= 49; i++) {
+      threshold.record(nanos(i));
+    }
+
+    assertEquals(1_000, millis(threshold.get(config)), DELTA_MILLIS);
+  }
+
+  @Test
+  void usesPercentileOfWindow() {
+
+    for (int i = 1; i <= 100; i++) {
+      threshold.record(nanos(i));
+    }
+
+    assertEquals(95, millis(threshold.get(config)), DELTA_MILLIS);
+    assertEquals(95, threshold.millis(), DELTA_MILLIS);
+  }
+
+  @Test
+  void keepsPreviousThresholdWithoutEnoughSamples() {
+
+    for (int i = 1; i <= 100; i++) {
+      threshold.record(nanos(i));
+    }
+
+    threshold.get(config);
+
+    for (int i = 0; i < 10; i++) {
+      threshold.record(nanos(500));
+    }
+
+    assertEquals(95, millis(threshold.get(config)), DELTA_MILLIS);
+  }
+
+  @Test
+  void clampsBetweenMinAndMaxDelay() {
+
+    for (int i = 0; i < 100; i++) {
+      threshold.record(nanos(1));
+    }
+
+    assertEquals(20, millis(threshold.get(config)), DELTA_MILLIS);
+
+    for (int i = 0; i < 100; i++) {
+      threshold.record(nanos(5_000));
+    }
+
+    assertEquals(1_000, millis(threshold.get(config)), DELTA_MILLIS);
+  }
+
+  private static long nanos(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+}
@@ -0,0 +1,91 @@
+package petcare.app.gateway.loadbalancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * La latencia media sube de inmediato con una muestra mayor y baja gradualmente con el tiempo transcurrido. El coste
+ * multiplica la latencia por las peticiones en curso más la nueva
+ */
+class InstanceLoadTest {
+
+  private static final long DECAY = TimeUnit.SECONDS.toNanos(10);
+
+  private static final long PENALTY = TimeUnit.SECONDS.toNanos(5);
+
+  private static final long T0 = TimeUnit.HOURS.toNanos(1);
+
+  private static final double DELTA = 1e-3;
+
+  private final InstanceLoad load = new InstanceLoad();
+
+  @Test
+  void peakReplacesAverageAtOnce() {
+
+    sample(millis(10), T0);
+    sample(millis(100), T0 + millis(1));
+
+    assertEquals(millis(100), load.cost(T0 + millis(1), DECAY, PENALTY), DELTA);
+  }
+
+  @Test
+  void lowerSampleDecaysAverageByElapsedTime() {
+
+    sample(millis(100), T0);
+    sample(millis(10), T0 + DECAY);
+
+    double weight = Math.exp(-1);
+
+    assertEquals(millis(100) * weight + millis(10) * (1 - weight), load.cost(T0 + DECAY, DECAY, PENALTY), DELTA);
+  }
+
+  @Test
+  void averageDecaysWithoutTraffic() {
+
+    sample(millis(100), T0);
+
+    assertEquals(millis(100), load.cost(T0, DECAY, PENALTY), DELTA);
+    assertEquals(millis(100) * Math.exp(-1), load.cost(T0 + DECAY, DECAY, PENALTY), DELTA);
+    assertEquals(millis(100) * Math.exp(-3), load.cost(T0 + 3 * DECAY, DECAY, PENALTY), DELTA);
+  }
+
+  @Test
+  void costCountsRequestsInFlight() {
+
+    sample(millis(100), T0);
+
+    load.start();
+    load.start();
+
+    assertEquals(millis(100) * 3, load.cost(T0, DECAY, PENALTY), DELTA);
+
+    load.complete(millis(100), T0, DECAY);
+
+    assertEquals(millis(100) * 2, load.cost(T0, DECAY, PENALTY), DELTA);
+  }
+
+  @Test
+  void unknownLatencyWithRequestsInFlightIsPenalized() {
+
+    assertEquals(0, load.cost(T0, DECAY, PENALTY), DELTA);
+
+    load.start();
+    load.start();
+
+    assertEquals(PENALTY + 2, load.cost(T0, DECAY, PENALTY), DELTA);
+  }
+
+  private void sample(long latencyNanos, long now) {
+
+    load.start();
+    load.complete(latencyNanos, now, DECAY);
+  }
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+}
@@ -0,0 +1,107 @@
+package petcare.app.gateway.loadbalancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * De las dos instancias elegidas al azar se envía la petición a la de menor coste: la latencia registrada por
+ * InstanceLoadTracker, con un reloj fijo, multiplicada por las peticiones en curso
+ */
+class PeakEwmaLoadBalancerTest {
+
+  private static final String SERVICE_ID = "petcare-core";
+
+  private static final int CHOICES = 50;
+
+  private final ServiceInstance slow = instance("slow");
+
+  private final ServiceInstance fast = instance("fast");
+
+  private final ServiceInstance other = instance("other");
+
+  private AtomicLong now;
+
+  private InstanceLoadTracker tracker;
+
+  @BeforeEach
+  void setUp() {
+
+    now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    tracker = new InstanceLoadTracker(Duration.ofSeconds(10), Duration.ofSeconds(5), now::get);
+  }
+
+  @Test
+  void choosesTheLessLoadedOfTwo() {
+
+    respond(slow, Duration.ofMillis(200));
+    respond(fast, Duration.ofMillis(20));
+
+    PeakEwmaLoadBalancer balancer = balancer(slow, fast);
+
+    for (int i = 0; i < CHOICES; i++) {
+      assertEquals(fast, choose(balancer));
+    }
+  }
+
+  @Test
+  void neverChoosesTheMostLoadedOfThree() {
+
+    respond(slow, Duration.ofMillis(200));
+    respond(fast, Duration.ofMillis(20));
+    respond(other, Duration.ofMillis(30));
+
+    PeakEwmaLoadBalancer balancer = balancer(slow, fast, other);
+
+    for (int i = 0; i < CHOICES; i++) {
+      assertNotEquals(slow, choose(balancer));
+    }
+  }
+
+  @Test
+  void requestsInFlightOutweighLowerLatency() {
+
+    respond(slow, Duration.ofMillis(200));
+    respond(fast, Duration.ofMillis(20));
+
+    for (int i = 0; i < 10; i++) {
+      tracker.track(fast, Mono.never()).subscribe();
+    }
+
+    PeakEwmaLoadBalancer balancer = balancer(slow, fast);
+
+    for (int i = 0; i < CHOICES; i++) {
+      assertEquals(slow, choose(balancer));
+    }
+  }
+
+  private void respond(ServiceInstance instance, Duration latency) {
+    tracker.track(instance, Mono.fromSupplier(() -> now.addAndGet(latency.toNanos()))).block();
+  }
+
+  private PeakEwmaLoadBalancer balancer(ServiceInstance... instances) {
+    return new PeakEwmaLoadBalancer(ServiceInstanceListSuppliers.toProvider(SERVICE_ID, instances), SERVICE_ID,
+        tracker);
+  }
+
+  private static ServiceInstance choose(PeakEwmaLoadBalancer balancer) {
+    return balancer.choose(new DefaultRequest<>()).block().getServer();
+  }
+
+  private static ServiceInstance instance(String host) {
+    return new DefaultServiceInstance(host, SERVICE_ID, host, 8080, false);
+  }
+
+}
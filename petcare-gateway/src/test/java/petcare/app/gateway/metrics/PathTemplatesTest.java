@@ -0,0 +1,68 @@
+package petcare.app.gateway.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Los segmentos con dígitos, los UUID y los nombres se sustituyen por su variable, de forma que el número de plantillas
+ * no depende del número de valores de las variables
+ */
+class PathTemplatesTest {
+
+  @Test
+  void collapsesNumericSegments() {
+
+    assertEquals("/api/pets/find/{id}", PathTemplates.template("/api/pets/find/42"));
+    assertEquals("/api/appointments/find/vet-id/{id}/date/{id}",
+        PathTemplates.template("/api/appointments/find/vet-id/7/date/2026-03-02"));
+    assertEquals("/api/pets/find/client-national-id-document/{id}",
+        PathTemplates.template("/api/pets/find/client-national-id-document/12345678Z"));
+  }
+
+  @Test
+  void collapsesUuidSegments() {
+
+    assertEquals("/api/reports/find/{id}", PathTemplates.template("/api/reports/find/" + UUID.randomUUID()));
+    assertEquals("/api/reports/find/{id}",
+        PathTemplates.template("/api/reports/find/abcdefab-cdef-abcd-efab-cdefabcdefab"));
+  }
+
+  @Test
+  void collapsesNames() {
+    assertEquals("/api/vets/find/name/{name}/entity/{id}",
+        PathTemplates.template("/api/vets/find/name/Luis/entity/7"));
+  }
+
+  @Test
+  void keepsPathsWithoutVariables() {
+
+    String path = "/api/vets/autocomplete";
+
+    assertSame(path, PathTemplates.template(path));
+    assertEquals("/api/vets/find/name", PathTemplates.template("/api/vets/find/name"));
+    assertEquals("/api/vets/find/name/", PathTemplates.template("/api/vets/find/name/"));
+  }
+
+  @Test
+  void boundsTemplateCardinality() {
+
+    Set<String> templates = new HashSet<>();
+
+    for (int i = 0; i < 1_000; i++) {
+      templates.add(PathTemplates.template("/api/pets/find/" + i));
+      templates.add(PathTemplates.template("/api/reports/find/" + UUID.randomUUID()));
+      templates.add(PathTemplates.template("/api/vets/find/name/vet" + i + "/entity/" + i));
+      templates.add(PathTemplates.template("/api/vet-entities-query/find/name/entity-" + (char) ('a' + i % 26)));
+    }
+
+    assertEquals(Set.of("/api/pets/find/{id}", "/api/reports/find/{id}", "/api/vets/find/name/{name}/entity/{id}",
+        "/api/vet-entities-query/find/name/{name}"), templates);
+  }
+
+}
@@ -0,0 +1,112 @@
+package petcare.app.gateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter.Response;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Cada clave admite una ráfaga de burst-capacity peticiones y, agotada la ráfaga, replenish-rate peticiones por
+ * segundo. El tiempo sin peticiones rellena el bucket hasta su capacidad, nunca más
+ */
+class LocalRateLimiterTest {
+
+  private static final String ROUTE_ID = "route";
+
+  private static final String KEY = "user";
+
+  private AtomicLong now;
+
+  private LocalRateLimiter limiter;
+
+  @BeforeEach
+  void setUp() {
+
+    now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    limiter = new LocalRateLimiter(null, 100, Duration.ofMinutes(10), now::get);
+
+    LocalRateLimiter.Config config = new LocalRateLimiter.Config();
+    config.setReplenishRate(2);
+    config.setBurstCapacity(5);
+    limiter.getConfig().put(ROUTE_ID, config);
+  }
+
+  @Test
+  void admitsBurstAndThenRejectsWithRetryAfter() {
+
+    for (int remaining = 4; remaining >= 0; remaining--) {
+
+      Response response = isAllowed(KEY);
+
+      assertTrue(response.isAllowed());
+      assertEquals(String.valueOf(remaining), response.getHeaders().get(LocalRateLimiter.REMAINING_HEADER));
+    }
+
+    Response rejected = isAllowed(KEY);
+
+    assertFalse(rejected.isAllowed());
+    assertEquals("1", rejected.getHeaders().get(HttpHeaders.RETRY_AFTER));
+  }
+
+  @Test
+  void admitsReplenishRateOnceBurstIsExhausted() {
+
+    exhaustBurst();
+
+    for (int second = 0; second < 10; second++) {
+
+      advance(Duration.ofMillis(499));
+      assertFalse(isAllowed(KEY).isAllowed());
+
+      advance(Duration.ofMillis(1));
+      assertTrue(isAllowed(KEY).isAllowed());
+      assertFalse(isAllowed(KEY).isAllowed());
+
+      advance(Duration.ofMillis(500));
+      assertTrue(isAllowed(KEY).isAllowed());
+    }
+  }
+
+  @Test
+  void refillsUpToBurstCapacity() {
+
+    exhaustBurst();
+    advance(Duration.ofMinutes(1));
+
+    exhaustBurst();
+  }
+
+  @Test
+  void keepsSeparateBucketsPerKey() {
+
+    exhaustBurst();
+
+    assertTrue(isAllowed("other").isAllowed());
+  }
+
+  private void exhaustBurst() {
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(isAllowed(KEY).isAllowed());
+    }
+
+    assertFalse(isAllowed(KEY).isAllowed());
+  }
+
+  private Response isAllowed(String key) {
+    return limiter.isAllowed(ROUTE_ID, key).block();
+  }
+
+  private void advance(Duration duration) {
+    now.addAndGet(duration.toNanos());
+  }
+
+}
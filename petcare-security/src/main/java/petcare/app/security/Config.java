@@ -1,16 +1,52 @@
 package petcare.app.security;
 
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import petcare.app.security.password.BoundedPasswordEncoder;
+import petcare.app.security.password.TunableBCryptPasswordEncoder;
+
 @Configuration
 public class Config {
 
+  /** Identificador del algoritmo BCrypt en los hashes almacenados ("{bcrypt}...") */
+  private static final String BCRYPT_ID = "bcrypt";
+
+  /**
+   * Codificador de contraseñas.<br/>
+   * Los hashes se almacenan con el prefijo de su algoritmo ("{bcrypt}..."). Los hashes anteriores, sin prefijo, se
+   * consideran BCrypt. Tras cada login correcto con un hash sin prefijo o de un coste distinto al configurado, la
+   * contraseña se vuelve a codificar (ver UserService#updatePassword).<br/>
+   * Los hashes se calculan en un pool de hilos limitado, para que una ráfaga de logins no bloquee el servidor
+   * 
+   * @param strength      Coste de BCrypt (log2 del número de rondas)
+   * @param threads       Número máximo de hashes calculados simultáneamente. Por defecto, el número de procesadores
+   * @param queueCapacity Número máximo de cálculos en espera
+   * @param timeout       Tiempo máximo de espera de cada cálculo, incluida la espera en cola
+   * @param meterRegistry Registro de métricas
+   * @return PasswordEncoder
+   */
   @Bean
-  PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder(16);
+  PasswordEncoder passwordEncoder(@Value("${petcare.security.password.bcrypt-strength:12}") int strength,
+      @Value("${petcare.security.password.hashing-threads:0}") int threads,
+      @Value("${petcare.security.password.queue-capacity:200}") int queueCapacity,
+      @Value("${petcare.security.password.timeout:10s}") Duration timeout, MeterRegistry meterRegistry) {
+
+    TunableBCryptPasswordEncoder bcrypt = new TunableBCryptPasswordEncoder(strength);
+
+    DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+    delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+    int hashingThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+    return new BoundedPasswordEncoder(delegating, hashingThreads, queueCapacity, timeout, meterRegistry);
   }
 
 }
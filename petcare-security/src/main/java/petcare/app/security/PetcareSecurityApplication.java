@@ -4,12 +4,16 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
+import petcare.app.domain.cache.SecondLevelCacheConfig;
+
 @SpringBootApplication
 @EntityScan(basePackages = { "petcare.app.domain.entity" })
 @EnableJpaRepositories(basePackages = { "petcare.app.domain.repository" })
 @RefreshScope
+@Import(SecondLevelCacheConfig.class)
 public class PetcareSecurityApplication {
 
   /**
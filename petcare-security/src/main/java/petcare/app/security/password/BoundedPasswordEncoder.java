@@ -0,0 +1,215 @@
+package petcare.app.security.password;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import petcare.app.domain.utils.ExceptionMessages;
+
+/**
+ * Codificador de contraseñas que calcula los hashes en un pool de hilos dedicado y limitado.<br/>
+ * El cálculo de un hash es deliberadamente costoso en CPU. Limitar el número de cálculos simultáneos evita que una
+ * ráfaga de logins o registros ocupe todos los hilos del servidor y toda la CPU: las peticiones que superan el límite
+ * esperan en una cola acotada, y las que no caben en ella se rechazan de inmediato.<br/>
+ * Un cálculo en curso no puede interrumpirse, por lo que sigue ocupando su hilo aunque se haya superado el tiempo máximo
+ * de espera. Cada cálculo ocupa una plaza (hilos más cola) hasta que termina realmente, no hasta que su petición deja de
+ * esperarlo, de forma que el límite se mantiene aunque los cálculos abandonados ocupen todos los hilos. Los cálculos
+ * abandonados que aún no han comenzado se retiran de la cola y nunca se ejecutan.<br/>
+ * Expone como métricas el estado del pool ("password-hashing"), el tiempo total de cada operación, incluida la espera
+ * en cola, y el número de operaciones rechazadas
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+  /** Nombre del pool en las métricas */
+  private static final String EXECUTOR_NAME = "password-hashing";
+
+  /** Nombre de la métrica de tiempo de cada operación */
+  private static final String TIMER_NAME = "petcare.security.password.hashing";
+
+  /** Nombre de la métrica de operaciones rechazadas */
+  private static final String REJECTED_NAME = "petcare.security.password.hashing.rejected";
+
+  /** Codificador que calcula los hashes */
+  private final PasswordEncoder delegate;
+
+  /** Pool de hilos de cálculo de hashes */
+  private final ThreadPoolExecutor executor;
+
+  /** Plazas de cálculo: una por hilo y por posición de la cola. Se liberan cuando termina cada cálculo */
+  private final Semaphore slots;
+
+  /** Tiempo máximo de espera de cada operación, incluida la espera en cola */
+  private final Duration timeout;
+
+  /** Tiempo de las operaciones de codificación */
+  private final Timer encodeTimer;
+
+  /** Tiempo de las operaciones de comprobación */
+  private final Timer matchesTimer;
+
+  /** Operaciones rechazadas por estar llena la cola o superar el tiempo máximo */
+  private final Counter rejected;
+
+  /**
+   * Constructor
+   * 
+   * @param delegate      Codificador que calcula los hashes
+   * @param threads       Número de hilos de cálculo
+   * @param queueCapacity Número máximo de operaciones en espera
+   * @param timeout       Tiempo máximo de espera de cada operación
+   * @param meterRegistry Registro de métricas
+   */
+  public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration timeout,
+      MeterRegistry meterRegistry) {
+
+    this.delegate = delegate;
+    this.timeout = timeout;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(EXECUTOR_NAME + "-"),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.slots = new Semaphore(threads + queueCapacity);
+
+    ExecutorServiceMetrics.monitor(meterRegistry, executor, EXECUTOR_NAME);
+
+    this.encodeTimer = Timer.builder(TIMER_NAME).tag("operation", "encode").register(meterRegistry);
+    this.matchesTimer = Timer.builder(TIMER_NAME).tag("operation", "matches").register(meterRegistry);
+    this.rejected = Counter.builder(REJECTED_NAME).register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(encodeTimer, () -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  /** La comprobación sólo analiza el formato del hash, por lo que no se envía al pool */
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Número de plazas de cálculo libres
+   * 
+   * @return int - Plazas libres
+   */
+  int availableSlots() {
+    return slots.availablePermits();
+  }
+
+  /**
+   * Ejecuta una operación en el pool y espera su resultado. La operación se rechaza de inmediato si no queda ninguna
+   * plaza libre
+   * 
+   * @param <T>       Tipo del resultado
+   * @param timer     Métrica de tiempo de la operación
+   * @param operation Operación a ejecutar
+   * @return T - Resultado de la operación
+   * @throws AuthenticationServiceException Si la operación se rechaza o supera el tiempo máximo de espera
+   */
+  private <T> T run(Timer timer, Callable<T> operation) {
+
+    long start = System.nanoTime();
+    Future<T> future = null;
+
+    try {
+      if (!slots.tryAcquire()) {
+        throw new RejectedExecutionException(EXECUTOR_NAME);
+      }
+
+      future = submit(operation);
+      return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+    } catch (RejectedExecutionException | TimeoutException e) {
+
+      abandon(future);
+
+      rejected.increment();
+      throw new AuthenticationServiceException(ExceptionMessages.PASSWORD_HASHING_REJECTED, e);
+
+    } catch (InterruptedException e) {
+
+      abandon(future);
+      Thread.currentThread().interrupt();
+      throw new AuthenticationServiceException(ExceptionMessages.PASSWORD_HASHING_INTERRUPTED, e);
+
+    } catch (ExecutionException e) {
+
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+
+      throw new IllegalStateException(e.getCause());
+
+    } finally {
+      timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Envía al pool una operación que ya ocupa una plaza. La plaza se libera al terminar la operación o, si el pool la
+   * rechaza, de inmediato
+   * 
+   * @param <T>       Tipo del resultado
+   * @param operation Operación a ejecutar
+   * @return Future(T) - Resultado pendiente de la operación
+   */
+  private <T> Future<T> submit(Callable<T> operation) {
+
+    try {
+      return executor.submit(() -> {
+
+        try {
+          return operation.call();
+
+        } finally {
+          slots.release();
+        }
+      });
+
+    } catch (RejectedExecutionException e) {
+
+      slots.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Abandona una operación cuyo resultado ya no se espera. Si aún no ha comenzado, se retira de la cola y se libera su
+   * plaza; si está en curso, no se cancela, ya que el cálculo no se detiene, y conserva su plaza hasta que termine
+   * 
+   * @param future Resultado pendiente de la operación, o null si no ha llegado a enviarse al pool
+   */
+  private void abandon(Future<?> future) {
+
+    if (future instanceof Runnable task && executor.remove(task)) {
+      slots.release();
+    }
+  }
+
+}
@@ -0,0 +1,45 @@
+package petcare.app.security.password;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Codificador BCrypt cuyo coste puede cambiarse en la configuración.<br/>
+ * A diferencia de {@link BCryptPasswordEncoder}, que sólo solicita actualizar los hashes de coste inferior al
+ * configurado, solicita actualizar cualquier hash de coste distinto, de forma que las contraseñas almacenadas se
+ * adaptan al nuevo coste tanto si se aumenta como si se reduce
+ */
+public class TunableBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+  /** Formato de un hash BCrypt: versión, coste y sal + hash */
+  private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2([ayb])?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+  /** Coste configurado (log2 del número de rondas) */
+  private final int strength;
+
+  /**
+   * Constructor
+   * 
+   * @param strength Coste (log2 del número de rondas), entre 4 y 31
+   */
+  public TunableBCryptPasswordEncoder(int strength) {
+
+    super(strength);
+    this.strength = strength;
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+
+    if (encodedPassword == null || encodedPassword.isEmpty()) {
+      return false;
+    }
+
+    Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+
+    return matcher.matches() && Integer.parseInt(matcher.group(2)) != strength;
+  }
+
+}
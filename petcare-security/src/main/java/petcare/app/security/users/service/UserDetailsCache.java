@@ -0,0 +1,126 @@
+package petcare.app.security.users.service;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Caché de los datos de acceso de los usuarios, por username. Evita consultar la base de datos en cada autenticación
+ * de un mismo usuario. Está limitada en número de usuarios y en tiempo de vida de cada uno, y expone sus estadísticas
+ * como métricas bajo el nombre "user-details".<br/>
+ * Las modificaciones de usuarios realizadas en esta instancia invalidan su entrada al confirmarse la transacción. Las
+ * realizadas en otras instancias se reflejan, como máximo, al expirar la entrada
+ */
+@Component
+public class UserDetailsCache {
+
+  /** Nombre de la caché en las métricas */
+  private static final String CACHE_NAME = "user-details";
+
+  /** Datos de acceso almacenados */
+  private Cache<String, UserDetails> cache;
+
+  /** Número máximo de usuarios almacenados */
+  private long maximumSize;
+
+  /** Tiempo de vida de cada usuario desde que se carga */
+  private Duration expireAfterWrite;
+
+  /** Registro de métricas */
+  private MeterRegistry meterRegistry;
+
+  /**
+   * Setter - Número máximo de usuarios almacenados
+   * 
+   * @param maximumSize Número máximo de usuarios
+   */
+  @Value("${petcare.security.user-details-cache.maximum-size:10000}")
+  public void setMaximumSize(long maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Setter - Tiempo de vida de cada usuario
+   * 
+   * @param expireAfterWrite Tiempo de vida
+   */
+  @Value("${petcare.security.user-details-cache.expire-after-write:1m}")
+  public void setExpireAfterWrite(Duration expireAfterWrite) {
+    this.expireAfterWrite = expireAfterWrite;
+  }
+
+  /**
+   * Setter - MeterRegistry. Inyección de dependencias
+   * 
+   * @param meterRegistry Registro de métricas
+   */
+  @Autowired
+  public void setMeterRegistry(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /** Crea la caché y registra sus métricas */
+  @PostConstruct
+  public void init() {
+
+    cache = Caffeine
+        .newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite)
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  /**
+   * Obtiene los datos de acceso de un usuario, cargándolos si no se encuentran almacenados.<br/>
+   * Se devuelve siempre una copia, ya que Spring Security borra la contraseña del usuario autenticado y no debe
+   * borrarse la de la entrada almacenada
+   * 
+   * @param username Username
+   * @param loader   Carga los datos de acceso del usuario
+   * @return UserDetails - Copia de los datos de acceso del usuario
+   */
+  public UserDetails get(String username, Function<String, UserDetails> loader) {
+    return User.withUserDetails(cache.get(username, loader)).build();
+  }
+
+  /**
+   * Invalida los datos de acceso de un usuario. Si existe una transacción activa, se invalidan al confirmarla, de forma
+   * que una carga concurrente no vuelva a almacenar los datos anteriores a la modificación
+   * 
+   * @param username Username
+   */
+  public void invalidate(String username) {
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+        @Override
+        public void afterCompletion(int status) {
+          cache.invalidate(username);
+        }
+      });
+
+    } else {
+      cache.invalidate(username);
+    }
+  }
+
+}
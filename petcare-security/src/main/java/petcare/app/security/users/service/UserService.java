@@ -9,6 +9,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -20,6 +21,7 @@ import petcare.app.domain.entity.Vet;
 import petcare.app.domain.entity.VetEntity;
 import petcare.app.domain.entity.security.AppUser;
 import petcare.app.domain.entity.security.Role;
+import petcare.app.domain.repository.AppUserRepository;
 import petcare.app.domain.repository.ClientRepository;
 import petcare.app.domain.repository.RoleRepository;
 import petcare.app.domain.repository.VetEntityRepository;
@@ -28,9 +30,16 @@ import petcare.app.domain.utils.ExceptionMessages;
 import petcare.app.domain.utils.exceptions.ResourceNotFoundException;
 import petcare.app.security.users.utils.RoleConstants;
 
-/** Servicio de usuarios. Registro y modificación de usuarios */
+/**
+ * Servicio de usuarios. Registro y modificación de usuarios.<br/>
+ * Tras cada login correcto cuyo hash de contraseña no tiene el formato o el coste configurados, Spring Security vuelve
+ * a codificar la contraseña y la almacena mediante {@link #updatePassword(UserDetails, String)}
+ */
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
+
+  /** Repositorio de usuarios de cualquier tipo */
+  private AppUserRepository appUserRepository;
 
   /** Repositorio de clientes */
   private ClientRepository clientRepository;
@@ -47,6 +56,19 @@ public class UserService implements UserDetailsService {
   /** Sistema de encriptación */
   private PasswordEncoder passwordEncoder;
 
+  /** Caché de los datos de acceso de los usuarios */
+  private UserDetailsCache userDetailsCache;
+
+  /**
+   * Setter - AppUserRepository. Inyección de dependencias
+   * 
+   * @param appUserRepository Repositorio de usuarios de cualquier tipo
+   */
+  @Autowired
+  public void setAppUserRepository(AppUserRepository appUserRepository) {
+    this.appUserRepository = appUserRepository;
+  }
+
   /**
    * Setter - ClientRepository. Inyección de dependencias
    * 
@@ -97,23 +119,46 @@ public class UserService implements UserDetailsService {
     this.passwordEncoder = passwordEncoder;
   }
 
+  /**
+   * Setter - UserDetailsCache. Inyección de dependencias
+   * 
+   * @param userDetailsCache Caché de los datos de acceso de los usuarios
+   */
+  @Autowired
+  public void setUserDetailsCache(UserDetailsCache userDetailsCache) {
+    this.userDetailsCache = userDetailsCache;
+  }
+
+  /**
+   * Obtiene los datos de acceso de un usuario de cualquier tipo. El usuario se obtiene en una única consulta, y sus
+   * datos de acceso se almacenan en caché durante un tiempo limitado
+   */
   @Override
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    return userDetailsCache.get(username, this::findUserDetails);
+  }
 
-    AppUser user;
+  /**
+   * Sustituye el hash de la contraseña de un usuario por uno nuevo, calculado por Spring Security con el algoritmo y el
+   * coste configurados tras un login correcto
+   * 
+   * @param user        Datos de acceso del usuario autenticado
+   * @param newPassword Nuevo hash de la contraseña, ya codificado
+   * @return UserDetails - Datos de acceso del usuario con el nuevo hash
+   */
+  @Override
+  @Transactional
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
 
-    Optional<Client> optClient = clientRepository.findByUsername(username);
-    Optional<Vet> optVet = vetRepository.findByUsername(username);
-    Optional<VetEntity> optVetEntity = vetEntityRepository.findByUsername(username);
+    appUserRepository.findByUsername(user.getUsername()).ifPresent(appUser -> {
 
-    user = optClient.isPresent() ? optClient.get() : optVet.isPresent() ? optVet.get() : optVetEntity.get();
+      appUser.setPassword(newPassword);
+      appUserRepository.save(appUser);
+    });
 
-    return User
-        .builder()
-        .username(user.getUsername())
-        .password(user.getPassword())
-        .authorities(getAuthorities(user))
-        .build();
+    userDetailsCache.invalidate(user.getUsername());
+
+    return User.withUserDetails(user).password(newPassword).build();
   }
 
   /**
@@ -203,6 +248,8 @@ public class UserService implements UserDetailsService {
       foundClient.setAddress(client.getAddress());
       foundClient.setPhoneNumber(client.getPhoneNumber());
 
+      userDetailsCache.invalidate(foundClient.getUsername());
+
       return clientRepository.save(foundClient);
 
     } else {
@@ -238,6 +285,8 @@ public class UserService implements UserDetailsService {
               .orElseThrow(() -> new ResourceNotFoundException(
                   String.format(ExceptionMessages.VET_ENTITY_NOT_FOUND_BY_ID, vet.getVetEntity().getId()))));
 
+      userDetailsCache.invalidate(foundVet.getUsername());
+
       return vetRepository.save(foundVet);
 
     } else {
@@ -270,6 +319,8 @@ public class UserService implements UserDetailsService {
       foundVetEntity.setAddress(vetEntity.getAddress());
       foundVetEntity.setPhoneNumber(vetEntity.getPhoneNumber());
 
+      userDetailsCache.invalidate(foundVetEntity.getUsername());
+
       return vetEntityRepository.save(foundVetEntity);
 
     } else {
@@ -278,6 +329,28 @@ public class UserService implements UserDetailsService {
 
   }
 
+  /**
+   * Busca los datos de acceso de un usuario en la base de datos
+   * 
+   * @param username Username
+   * @return UserDetails - Datos de acceso del usuario
+   * @throws UsernameNotFoundException Si no existe ningún usuario con el username aportado
+   */
+  private UserDetails findUserDetails(String username) throws UsernameNotFoundException {
+
+    AppUser user = appUserRepository
+        .findByUsername(username)
+        .orElseThrow(() -> new UsernameNotFoundException(
+            String.format(ExceptionMessages.USER_NOT_FOUND_BY_USERNAME, username)));
+
+    return User
+        .builder()
+        .username(user.getUsername())
+        .password(user.getPassword())
+        .authorities(getAuthorities(user))
+        .build();
+  }
+
   /**
    * Obtiene una lista con todos los authorities en función del usuario
    * 
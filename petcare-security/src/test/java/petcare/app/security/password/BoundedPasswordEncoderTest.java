@@ -0,0 +1,141 @@
+package petcare.app.security.password;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Un cálculo de hash no se detiene al superar el tiempo máximo de espera. Mientras termina, sigue ocupando su plaza, y
+ * las operaciones que no encuentran plaza se rechazan sin esperar
+ */
+class BoundedPasswordEncoderTest {
+
+  private static final long WAIT_SECONDS = 5;
+
+  private CountDownLatch computing;
+
+  private CountDownLatch release;
+
+  private AtomicInteger computations;
+
+  private PasswordEncoder delegate;
+
+  private BoundedPasswordEncoder encoder;
+
+  @BeforeEach
+  void setUp() {
+
+    computing = new CountDownLatch(1);
+    release = new CountDownLatch(1);
+    computations = new AtomicInteger();
+
+    delegate = new SlowPasswordEncoder();
+  }
+
+  @AfterEach
+  void tearDown() {
+
+    release.countDown();
+    encoder.destroy();
+  }
+
+  @Test
+  void abandonedHashKeepsItsSlotUntilItEnds() throws Exception {
+
+    encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofMillis(200), new SimpleMeterRegistry());
+
+    // El primer cálculo supera el tiempo máximo, pero sigue en curso
+    assertThrows(AuthenticationServiceException.class, () -> encoder.matches("password", "hash"));
+    assertEquals(1, encoder.availableSlots());
+
+    // El segundo espera en la cola hasta superar el tiempo máximo, y se retira de ella sin llegar a ejecutarse
+    assertThrows(AuthenticationServiceException.class, () -> encoder.matches("password", "hash"));
+    assertEquals(1, encoder.availableSlots());
+
+    release.countDown();
+
+    assertTimeoutPreemptively(Duration.ofSeconds(WAIT_SECONDS), () -> {
+      while (encoder.availableSlots() < 2) {
+        Thread.onSpinWait();
+      }
+    });
+
+    assertEquals(1, computations.get());
+    assertTrue(encoder.matches("password", "hash"));
+  }
+
+  @Test
+  void rejectsWithoutWaitingWhenSaturated() throws Exception {
+
+    encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofSeconds(WAIT_SECONDS), new SimpleMeterRegistry());
+
+    CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("password", "hash"));
+    assertTrue(computing.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+    CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("password", "hash"));
+
+    assertTimeoutPreemptively(Duration.ofSeconds(WAIT_SECONDS), () -> {
+      while (encoder.availableSlots() > 0) {
+        Thread.onSpinWait();
+      }
+    });
+
+    assertTimeoutPreemptively(Duration.ofSeconds(1),
+        () -> assertThrows(AuthenticationServiceException.class, () -> encoder.matches("password", "hash")));
+
+    release.countDown();
+
+    assertTrue(running.get(WAIT_SECONDS, TimeUnit.SECONDS));
+    assertTrue(queued.get(WAIT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  /** Codificador cuyo cálculo no atiende a las interrupciones, como el de BCrypt */
+  private final class SlowPasswordEncoder implements PasswordEncoder {
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+      return rawPassword.toString();
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+
+      computations.incrementAndGet();
+      computing.countDown();
+
+      boolean interrupted = false;
+
+      while (true) {
+        try {
+          release.await();
+          break;
+
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+
+      return true;
+    }
+  }
+
+}